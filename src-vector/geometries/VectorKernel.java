@@ -0,0 +1,125 @@
+package geometries;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The loops of {@link PackedGeometries} over its packed arrays in SIMD lanes, with the vector API
+ * of the incubator module jdk.incubator.vector.
+ * Each lane does the same operations in the same order as the scalar loop, so the distances are identical.
+ * The loops handle only whole vectors, the remaining entities are left to the scalar loop.
+ * It is in its own source root, which is compiled with --add-modules jdk.incubator.vector, and it is loaded
+ * by {@link PackedKernel#load()} only when the module is in the boot layer.
+ */
+class VectorKernel implements PackedKernel {
+    /**
+     * the widest vector shape of the platform
+     */
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    /**
+     * the smallest magnitude that isn't zero by {@link primitives.Util#isZero(double)} (2^-40)
+     */
+    private static final double EPSILON = 0x1p-40;
+
+    /**
+     * VectorKernel constructor, called by reflection from {@link PackedKernel#load()}
+     */
+    VectorKernel() {
+    }
+
+    @Override
+    public int triangleDistances(double ox, double oy, double oz, double dx, double dy, double dz,
+                                 double[] ax, double[] ay, double[] az,
+                                 double[] e1x, double[] e1y, double[] e1z,
+                                 double[] e2x, double[] e2y, double[] e2z,
+                                 double[] inverseArea, double[] distances) {
+        int bound = SPECIES.loopBound(ax.length);
+        DoubleVector one = DoubleVector.broadcast(SPECIES, 1);
+        for (int i = 0; i < bound; i += SPECIES.length()) {
+            DoubleVector vE1x = DoubleVector.fromArray(SPECIES, e1x, i);
+            DoubleVector vE1y = DoubleVector.fromArray(SPECIES, e1y, i);
+            DoubleVector vE1z = DoubleVector.fromArray(SPECIES, e1z, i);
+            DoubleVector vE2x = DoubleVector.fromArray(SPECIES, e2x, i);
+            DoubleVector vE2y = DoubleVector.fromArray(SPECIES, e2y, i);
+            DoubleVector vE2z = DoubleVector.fromArray(SPECIES, e2z, i);
+            //p = dir x e2
+            DoubleVector px = vE2z.mul(dy).sub(vE2y.mul(dz));
+            DoubleVector py = vE2x.mul(dz).sub(vE2z.mul(dx));
+            DoubleVector pz = vE2y.mul(dx).sub(vE2x.mul(dy));
+            DoubleVector det = vE1x.mul(px).add(vE1y.mul(py)).add(vE1z.mul(pz));
+            DoubleVector inverse = one.div(det);
+
+            DoubleVector sx = DoubleVector.broadcast(SPECIES, ox).sub(DoubleVector.fromArray(SPECIES, ax, i));
+            DoubleVector sy = DoubleVector.broadcast(SPECIES, oy).sub(DoubleVector.fromArray(SPECIES, ay, i));
+            DoubleVector sz = DoubleVector.broadcast(SPECIES, oz).sub(DoubleVector.fromArray(SPECIES, az, i));
+            DoubleVector u = sx.mul(px).add(sy.mul(py)).add(sz.mul(pz)).mul(inverse);
+            //q = s x e1
+            DoubleVector qx = sy.mul(vE1z).sub(sz.mul(vE1y));
+            DoubleVector qy = sz.mul(vE1x).sub(sx.mul(vE1z));
+            DoubleVector qz = sx.mul(vE1y).sub(sy.mul(vE1x));
+            DoubleVector v = qx.mul(dx).add(qy.mul(dy)).add(qz.mul(dz)).mul(inverse);
+            DoubleVector t = vE2x.mul(qx).add(vE2y.mul(qy)).add(vE2z.mul(qz)).mul(inverse);
+
+            VectorMask<Double> inside = isZero(det.mul(DoubleVector.fromArray(SPECIES, inverseArea, i))).not()
+                    .and(positive(u)).and(positive(v)).and(positive(one.sub(u).sub(v))).and(positive(t));
+            DoubleVector.zero(SPECIES).blend(t, inside).intoArray(distances, i);
+        }
+        return bound;
+    }
+
+    @Override
+    public int sphereDistances(double ox, double oy, double oz, double dx, double dy, double dz,
+                               double[] cx, double[] cy, double[] cz, double[] radius, double[] radiusSqr,
+                               double[] distances) {
+        int bound = SPECIES.loopBound(cx.length);
+        for (int i = 0; i < bound; i += SPECIES.length()) {
+            DoubleVector ux = DoubleVector.fromArray(SPECIES, cx, i).sub(ox);
+            DoubleVector uy = DoubleVector.fromArray(SPECIES, cy, i).sub(oy);
+            DoubleVector uz = DoubleVector.fromArray(SPECIES, cz, i).sub(oz);
+            DoubleVector tm = alignZero(ux.mul(dx).add(uy.mul(dy)).add(uz.mul(dz)));
+            DoubleVector dSqr = ux.mul(ux).add(uy.mul(uy)).add(uz.mul(uz)).sub(tm.mul(tm));
+            DoubleVector thSqr = DoubleVector.fromArray(SPECIES, radiusSqr, i).sub(dSqr);
+            DoubleVector th = thSqr.lanewise(VectorOperators.SQRT);
+            DoubleVector t1 = alignZero(tm.sub(th));
+            DoubleVector t = alignZero(tm.add(th)).blend(t1, t1.compare(VectorOperators.GT, 0));
+            //the ray head at the center of the sphere is a special case
+            VectorMask<Double> atCenter = isZero(ux).and(isZero(uy)).and(isZero(uz));
+            VectorMask<Double> hit = positive(thSqr).and(t.compare(VectorOperators.GT, 0));
+            DoubleVector.zero(SPECIES).blend(t, hit)
+                    .blend(DoubleVector.fromArray(SPECIES, radius, i), atCenter).intoArray(distances, i);
+        }
+        return bound;
+    }
+
+    /**
+     * the lanes that are zero by {@link primitives.Util#isZero(double)}
+     *
+     * @param x the numbers
+     * @return mask of the numbers that are almost zero
+     */
+    private static VectorMask<Double> isZero(DoubleVector x) {
+        return x.lanewise(VectorOperators.ABS).compare(VectorOperators.LT, EPSILON);
+    }
+
+    /**
+     * the lanes that are positive after {@link primitives.Util#alignZero(double)}
+     *
+     * @param x the numbers
+     * @return mask of the numbers that are positive and not almost zero
+     */
+    private static VectorMask<Double> positive(DoubleVector x) {
+        return x.compare(VectorOperators.GE, EPSILON);
+    }
+
+    /**
+     * the same as {@link primitives.Util#alignZero(double)} on each lane
+     *
+     * @param x the numbers
+     * @return the numbers, with the ones that are almost zero replaced by 0
+     */
+    private static DoubleVector alignZero(DoubleVector x) {
+        return x.blend(0, isZero(x));
+    }
+}
@@ -0,0 +1,651 @@
+package geometries;
+
+import primitives.Double3;
+import primitives.Point;
+import primitives.Ray;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import static geometries.GeometryUtil.*;
+
+/**
+ * Class that represents a group of geometric entities arranged in a bounding volume hierarchy (BVH).
+ * The hierarchy is built with the surface area heuristic (SAH) over the boundaries of the entities,
+ * so a ray is tested only against the entities whose boxes it passes through.
+ * Entities without a boundary (planes, tubes) are tested against every ray.
+ * It can be used anywhere a {@link Geometries} is used and returns the same intersections.
+ */
+public class BvhGeometries extends Geometries {
+    /**
+     * index of no entity, for a closest intersection query that hasn't found an intersection
+     */
+    private static final int NONE = Integer.MAX_VALUE;
+
+    /**
+     * a node of the hierarchy. A leaf holds entities, an inner node holds two child nodes
+     */
+    private static class Node {
+        /**
+         * the box of the node [minX,maxX,minY,maxY,minZ,maxZ]
+         */
+        private final double[] box;
+        /**
+         * the child nodes (null in a leaf)
+         */
+        private Node left, right;
+        /**
+         * indexes of the entities in the leaf (null in an inner node)
+         */
+        private int[] entities;
+
+        /**
+         * Node constructor
+         *
+         * @param box the box of the node
+         */
+        private Node(double[] box) {
+            this.box = box;
+        }
+    }
+
+    /**
+     * PDS of a built hierarchy, it is immutable so the rendering threads can share it
+     */
+    private static class Hierarchy {
+        /**
+         * all the entities of the group by the order they were added
+         */
+        private final Intersectable[] entities;
+        /**
+         * indexes of the entities that has no boundary
+         */
+        private final int[] unbounded;
+        /**
+         * root of the hierarchy (null if there are no bounded entities)
+         */
+        private final Node root;
+        /**
+         * the depth of the deepest leaf (the root is in depth 0)
+         */
+        private final int depth;
+
+        /**
+         * Hierarchy constructor
+         *
+         * @param entities  all the entities of the group
+         * @param unbounded indexes of the entities that has no boundary
+         * @param root      root of the hierarchy
+         */
+        private Hierarchy(Intersectable[] entities, int[] unbounded, Node root) {
+            this.entities = entities;
+            this.unbounded = unbounded;
+            this.root = root;
+            this.depth = depth(root);
+        }
+
+        /**
+         * calculates the depth of a sub-tree
+         *
+         * @param node the root of the sub-tree
+         * @return the depth of its deepest leaf, relative to the node
+         */
+        private static int depth(Node node) {
+            return node == null || node.entities != null ? 0 : 1 + Math.max(depth(node.left), depth(node.right));
+        }
+    }
+
+    /**
+     * Working arrays of a packet of rays, kept for each thread and reused by its next packets,
+     * so the traversal doesn't allocate anything per node.
+     * When all the rays of the packet start at the same point, and the direction of each axis has the same
+     * sign in all of them, the packet keeps the range of the directions on each axis: a box is tested once
+     * against the whole range, and only a box that some of the rays enter and some miss is tested ray by ray.
+     */
+    private static class Packet {
+        /**
+         * the indexes of the entities of the closest intersections of the rays (NONE if none was found)
+         */
+        private int[] closest = new int[0];
+        /**
+         * coordinates of the heads and the directions of the rays
+         */
+        private double[][] origins = new double[0][], dirs = new double[0][];
+        /**
+         * for each depth of the hierarchy- the indexes of the rays that reach the node that is visited in that depth
+         */
+        private int[][] active = new int[0][];
+        /**
+         * for each depth of the hierarchy- the entries of the rays to both children of the visited node
+         * (used when the packet has no range of directions)
+         */
+        private double[][] entries = new double[0][];
+        /**
+         * whether the rays have a common head and a range of directions
+         */
+        private boolean ranged;
+        /**
+         * the common head of the rays, and the minimal and maximal direction on each axis
+         */
+        private final double[] origin = new double[3], minDir = new double[3], maxDir = new double[3];
+
+        /**
+         * prepares the arrays for a packet, enlarges them if needed
+         *
+         * @param size  the number of rays in the packet
+         * @param depth the depth of the hierarchy
+         */
+        private void prepare(int size, int depth) {
+            if (closest.length < size || active.length < depth + 1) {
+                int capacity = Math.max(size, closest.length);
+                closest = new int[capacity];
+                origins = new double[capacity][3];
+                dirs = new double[capacity][3];
+                active = new int[depth + 1][capacity];
+                entries = new double[depth + 1][2 * capacity];
+            }
+        }
+    }
+
+    /**
+     * the hierarchy of the group, built lazily on the first query after a change
+     */
+    private volatile Hierarchy hierarchy;
+    /**
+     * the working arrays of the packets of each thread
+     */
+    private final ThreadLocal<Packet> packets = ThreadLocal.withInitial(Packet::new);
+
+    /**
+     * Ctor that gets objects and adds them to the list of objects.
+     *
+     * @param geometries geometric entities.
+     */
+    public BvhGeometries(Intersectable... geometries) {
+        super(geometries);
+    }
+
+    @Override
+    public void add(Intersectable... geometries) {
+        super.add(geometries);
+        hierarchy = null;//the hierarchy would be rebuilt on the next query
+    }
+
+    @Override
+    public List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+        Hierarchy h = getHierarchy();
+        List<GeoPoint> intersections = new LinkedList<>();
+        for (int index : h.unbounded) {
+            List<GeoPoint> returnList = h.entities[index].findGeoIntersections(ray, maxDistance);
+            if (returnList != null)
+                intersections.addAll(returnList);
+        }
+        if (h.root != null) {
+            double[] origin = coordinates(ray.getP0());
+            double[] dir = coordinates(ray.getDir());
+            if (reaches(entry(h.root.box, 0, origin, dir), maxDistance))
+                collect(h, h.root, ray, origin, dir, maxDistance, intersections);
+        }
+        return intersections.isEmpty() ? null : intersections;
+    }
+
+    /**
+     * Updates a hit record by the closest intersection of a ray with the entities of the group.
+     * The nodes are visited from the nearest to the farthest, and a node that starts
+     * further than the closest intersection found so far is skipped.
+     * When several intersections have the same distance the one of the entity that was added first is kept,
+     * just like in a {@link Geometries}.
+     *
+     * @param ray the ray that intersect with the geometric entity.
+     * @param hit the record of the closest intersection found so far.
+     * @return true if the record was updated.
+     */
+    @Override
+    public boolean findClosestHit(Ray ray, Hit hit) {
+        Hierarchy h = getHierarchy();
+        int closest = NONE;
+        for (int index : h.unbounded) {
+            if (h.entities[index].findClosestHit(ray, hit))
+                closest = index;
+        }
+        if (h.root != null) {
+            double[] origin = coordinates(ray.getP0());
+            double[] dir = coordinates(ray.getDir());
+            if (reaches(entry(h.root.box, 0, origin, dir), hit.getMaxDistance()))
+                closest = closest(h, h.root, ray, origin, dir, hit, closest);
+        }
+        return closest != NONE;
+    }
+
+    /**
+     * Updates the hit records of a packet of rays by their closest intersections with the entities of the group.
+     * The packet walks down the hierarchy together: each node is visited once for all the rays that still
+     * reach it, and a ray drops out of the packet as soon as it misses a node box
+     * (or the box starts further than its closest intersection found so far).
+     * When the rays share their head (like the rays of the camera) a box is first tested against the range of
+     * the directions of the whole packet, which accepts or rejects all the rays at once.
+     * Each ray gets the same result as in {@link #findClosestHit(Ray, Hit)}.
+     *
+     * @param rays the rays that intersect with the geometric entity.
+     * @param hits the records of the closest intersections found so far, one for each ray.
+     */
+    @Override
+    public void findClosestHits(Ray[] rays, Hit[] hits) {
+        Hierarchy h = getHierarchy();
+        Packet packet = packets.get();
+        packet.prepare(rays.length, h.depth);
+        int[] closest = packet.closest;
+        Arrays.fill(closest, 0, rays.length, NONE);
+        for (int index : h.unbounded) {
+            for (int r = 0; r < rays.length; r++) {
+                if (h.entities[index].findClosestHit(rays[r], hits[r]))
+                    closest[r] = index;
+            }
+        }
+        if (h.root == null) return;
+
+        int[] active = packet.active[0];
+        int count = 0;
+        for (int r = 0; r < rays.length; r++) {
+            copy(rays[r].getP0(), packet.origins[r]);
+            copy(rays[r].getDir(), packet.dirs[r]);
+            if (reaches(entry(h.root.box, 0, packet.origins[r], packet.dirs[r]), hits[r].getMaxDistance()))
+                active[count++] = r;
+        }
+        packet.ranged = range(packet, rays.length);
+        if (count > 0)
+            closest(h, h.root, 0, rays, hits, packet, count);
+    }
+
+    @Override
+    protected Double3 occlusionHelper(Ray ray, double maxDistance, Double3 ktr, double threshold, Geometry[] blocker) {
+        Hierarchy h = getHierarchy();
+        for (int index : h.unbounded) {
+            ktr = h.entities[index].occlusionHelper(ray, maxDistance, ktr, threshold, blocker);
+            if (ktr.lowerThan(threshold)) return Double3.ZERO;
+        }
+        if (h.root != null) {
+            double[] origin = coordinates(ray.getP0());
+            double[] dir = coordinates(ray.getDir());
+            if (reaches(entry(h.root.box, 0, origin, dir), maxDistance))
+                ktr = occlusion(h, h.root, ray, origin, dir, maxDistance, ktr, threshold, blocker);
+        }
+        return ktr;
+    }
+
+    /**
+     * collects all the intersections of a ray with the entities of a node
+     *
+     * @param h             the hierarchy
+     * @param node          the node that the ray passes through its box
+     * @param ray           the ray
+     * @param origin        coordinates of the ray head
+     * @param dir           coordinates of the ray direction
+     * @param maxDistance   the maximal distance to find intersections points
+     * @param intersections the list to add the intersections to
+     */
+    private void collect(Hierarchy h, Node node, Ray ray, double[] origin, double[] dir, double maxDistance,
+                         List<GeoPoint> intersections) {
+        if (node.entities != null) {
+            for (int index : node.entities) {
+                List<GeoPoint> returnList = h.entities[index].findGeoIntersections(ray, maxDistance);
+                if (returnList != null)
+                    intersections.addAll(returnList);
+            }
+            return;
+        }
+        if (reaches(entry(node.left.box, 0, origin, dir), maxDistance))
+            collect(h, node.left, ray, origin, dir, maxDistance, intersections);
+        if (reaches(entry(node.right.box, 0, origin, dir), maxDistance))
+            collect(h, node.right, ray, origin, dir, maxDistance, intersections);
+    }
+
+    /**
+     * multiplies the transparency accumulated along a ray by the transparency of the entities of a node,
+     * stops as soon as the light is blocked
+     *
+     * @param h           the hierarchy
+     * @param node        the node that the ray passes through its box
+     * @param ray         the ray
+     * @param origin      coordinates of the ray head
+     * @param dir         coordinates of the ray direction
+     * @param maxDistance the distance of the light source
+     * @param ktr         the transparency accumulated so far
+     * @param threshold   the transparency below which the light is considered blocked
+     * @param blocker     a single cell array to set to the entity that blocked the light, may be null
+     * @return the accumulated transparency, Double3.ZERO if it's below the threshold
+     */
+    private Double3 occlusion(Hierarchy h, Node node, Ray ray, double[] origin, double[] dir, double maxDistance,
+                              Double3 ktr, double threshold, Geometry[] blocker) {
+        if (node.entities != null) {
+            for (int index : node.entities) {
+                ktr = h.entities[index].occlusionHelper(ray, maxDistance, ktr, threshold, blocker);
+                if (ktr.lowerThan(threshold)) return Double3.ZERO;
+            }
+            return ktr;
+        }
+        if (reaches(entry(node.left.box, 0, origin, dir), maxDistance)) {
+            ktr = occlusion(h, node.left, ray, origin, dir, maxDistance, ktr, threshold, blocker);
+            if (ktr.lowerThan(threshold)) return Double3.ZERO;
+        }
+        if (reaches(entry(node.right.box, 0, origin, dir), maxDistance))
+            ktr = occlusion(h, node.right, ray, origin, dir, maxDistance, ktr, threshold, blocker);
+        return ktr;
+    }
+
+    /**
+     * searches the closest intersection of a ray with the entities of a node
+     *
+     * @param h       the hierarchy
+     * @param node    the node that the ray passes through its box
+     * @param ray     the ray
+     * @param origin  coordinates of the ray head
+     * @param dir     coordinates of the ray direction
+     * @param hit     the record of the closest intersection found so far
+     * @param closest the index of the entity of the closest intersection found so far (NONE if none was found)
+     * @return the index of the entity of the closest intersection (NONE if none was found)
+     */
+    private int closest(Hierarchy h, Node node, Ray ray, double[] origin, double[] dir, Hit hit, int closest) {
+        if (node.entities != null) {
+            for (int index : node.entities) {
+                if (closestHit(h.entities[index], index, ray, hit, closest))
+                    closest = index;
+            }
+            return closest;
+        }
+        double tLeft = entry(node.left.box, 0, origin, dir);
+        double tRight = entry(node.right.box, 0, origin, dir);
+        //visit the nearer child first, so the farther one could be skipped
+        Node first = tLeft <= tRight ? node.left : node.right;
+        Node second = tLeft <= tRight ? node.right : node.left;
+        double tFirst = Math.min(tLeft, tRight);
+        double tSecond = Math.max(tLeft, tRight);
+        if (reaches(tFirst, Math.min(hit.getMaxDistance(), hit.getT())))
+            closest = closest(h, first, ray, origin, dir, hit, closest);
+        if (reaches(tSecond, Math.min(hit.getMaxDistance(), hit.getT())))
+            closest = closest(h, second, ray, origin, dir, hit, closest);
+        return closest;
+    }
+
+    /**
+     * searches the closest intersections of a packet of rays with the entities of a node
+     *
+     * @param h      the hierarchy
+     * @param node   the node that all the active rays pass through its box
+     * @param depth  the depth of the node
+     * @param rays   all the rays of the packet
+     * @param hits   the records of the closest intersections found so far
+     * @param packet the working arrays of the packet, the indexes of the rays that reach the node
+     *               are the first count of its active rays in the depth of the node
+     * @param count  the number of the rays that reach the node
+     */
+    private void closest(Hierarchy h, Node node, int depth, Ray[] rays, Hit[] hits, Packet packet, int count) {
+        int[] active = packet.active[depth];
+        int[] closest = packet.closest;
+        if (node.entities != null) {
+            for (int index : node.entities) {
+                for (int a = 0; a < count; a++) {
+                    int r = active[a];
+                    if (closestHit(h.entities[index], index, rays[r], hits[r], closest[r]))
+                        closest[r] = index;
+                }
+            }
+            return;
+        }
+        boolean leftFirst;
+        double leftEntry = 0, rightEntry = 0;
+        if (packet.ranged) {
+            //the packet visits first the child it may enter first
+            leftEntry = packetEntry(node.left.box, packet);
+            rightEntry = packetEntry(node.right.box, packet);
+            leftFirst = leftEntry <= rightEntry;
+        } else {
+            //the entries of each active ray to both children, the packet visits first the child that most rays enter first
+            double[] entries = packet.entries[depth];
+            int lefts = 0;
+            for (int a = 0; a < count; a++) {
+                int r = active[a];
+                entries[2 * a] = entry(node.left.box, 0, packet.origins[r], packet.dirs[r]);
+                entries[2 * a + 1] = entry(node.right.box, 0, packet.origins[r], packet.dirs[r]);
+                if (entries[2 * a] <= entries[2 * a + 1]) lefts++;
+            }
+            leftFirst = 2 * lefts >= count;
+        }
+        if (leftFirst) {
+            closestChild(h, node.left, 0, leftEntry, depth, rays, hits, packet, count);
+            closestChild(h, node.right, 1, rightEntry, depth, rays, hits, packet, count);
+        } else {
+            closestChild(h, node.right, 1, rightEntry, depth, rays, hits, packet, count);
+            closestChild(h, node.left, 0, leftEntry, depth, rays, hits, packet, count);
+        }
+    }
+
+    /**
+     * visits a child node with the rays of the packet that still reach it.
+     * A packet with a range of directions is rejected or accepted as a whole when the range misses the box
+     * or all of it enters the box, the rays are tested one by one only when some of them miss
+     *
+     * @param h           the hierarchy
+     * @param child       the child node
+     * @param side        0 for the left child, 1 for the right one
+     * @param packetEntry the lowest entry of the packet to the box of the child (when the packet has a range)
+     * @param depth       the depth of the parent node
+     * @param rays        all the rays of the packet
+     * @param hits        the records of the closest intersections found so far
+     * @param packet      the working arrays of the packet
+     * @param count       the number of the rays that reach the parent node
+     */
+    private void closestChild(Hierarchy h, Node child, int side, double packetEntry, int depth, Ray[] rays,
+                              Hit[] hits, Packet packet, int count) {
+        int[] active = packet.active[depth];
+        int[] reaching = packet.active[depth + 1];
+        int reachingCount = 0;
+        if (packet.ranged) {
+            if (packetEntry == Double.POSITIVE_INFINITY) return;//no ray of the packet enters the box
+            boolean all = packetEnters(child.box, packet);
+            for (int a = 0; a < count; a++) {
+                int r = active[a];
+                double limit = Math.min(hits[r].getMaxDistance(), hits[r].getT());
+                //no ray enters before the entry of the packet
+                if (all ? packetEntry <= limit : reaches(entry(child.box, 0, packet.origins[r], packet.dirs[r]), limit))
+                    reaching[reachingCount++] = r;
+            }
+        } else {
+            double[] entries = packet.entries[depth];
+            for (int a = 0; a < count; a++) {
+                Hit hit = hits[active[a]];
+                if (reaches(entries[2 * a + side], Math.min(hit.getMaxDistance(), hit.getT())))
+                    reaching[reachingCount++] = active[a];
+            }
+        }
+        if (reachingCount > 0)
+            closest(h, child, depth + 1, rays, hits, packet, reachingCount);
+    }
+
+    /**
+     * Finds the range of the directions of a packet on each axis, if the rays have a common head and the
+     * direction of each axis has the same sign (not zero) in all of them.
+     * The entry of a ray to a box is calculated from (side - head) / direction on each axis, which changes
+     * monotonically with the direction, so the entries of all the rays are within the entries of the extreme
+     * directions, and (by the monotonic rounding of division) they are also calculated within them.
+     *
+     * @param packet the working arrays of the packet, with the heads and the directions of the rays
+     * @param size   the number of rays in the packet
+     * @return true if the packet has a common head and a range of directions
+     */
+    private static boolean range(Packet packet, int size) {
+        double[] origin = packet.origins[0];
+        for (int axis = 0; axis < 3; axis++) {
+            packet.origin[axis] = origin[axis];
+            packet.minDir[axis] = Double.POSITIVE_INFINITY;
+            packet.maxDir[axis] = Double.NEGATIVE_INFINITY;
+        }
+        for (int r = 0; r < size; r++) {
+            for (int axis = 0; axis < 3; axis++) {
+                if (packet.origins[r][axis] != origin[axis]) return false;
+                double d = packet.dirs[r][axis];
+                if (d < packet.minDir[axis]) packet.minDir[axis] = d;
+                if (d > packet.maxDir[axis]) packet.maxDir[axis] = d;
+            }
+        }
+        for (int axis = 0; axis < 3; axis++) {
+            if (!(packet.minDir[axis] > 0 || packet.maxDir[axis] < 0)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * finds the lowest entry of the rays of a packet to a box, by the range of their directions
+     *
+     * @param box    the box
+     * @param packet the packet, with a range of directions
+     * @return a ray parameter that no ray of the packet enters the box before it,
+     * positive infinity if no ray of the packet enters the box
+     */
+    private static double packetEntry(double[] box, Packet packet) {
+        double tNear = 0;
+        double tFar = Double.POSITIVE_INFINITY;
+        for (int axis = 0; axis < 3; axis++) {
+            //with positive directions the rays enter through the minimal side and leave through the maximal one
+            boolean positive = packet.minDir[axis] > 0;
+            double near = box[2 * axis + (positive ? 0 : 1)] - packet.origin[axis];
+            double far = box[2 * axis + (positive ? 1 : 0)] - packet.origin[axis];
+            tNear = Math.max(tNear, Math.min(near / packet.minDir[axis], near / packet.maxDir[axis]));
+            tFar = Math.min(tFar, Math.max(far / packet.minDir[axis], far / packet.maxDir[axis]));
+        }
+        return tNear > tFar ? Double.POSITIVE_INFINITY : tNear;
+    }
+
+    /**
+     * checks if all the rays of a packet enter a box, by the range of their directions
+     *
+     * @param box    the box
+     * @param packet the packet, with a range of directions
+     * @return true if every ray of the packet enters the box
+     */
+    private static boolean packetEnters(double[] box, Packet packet) {
+        double tNear = 0;
+        double tFar = Double.POSITIVE_INFINITY;
+        for (int axis = 0; axis < 3; axis++) {
+            boolean positive = packet.minDir[axis] > 0;
+            double near = box[2 * axis + (positive ? 0 : 1)] - packet.origin[axis];
+            double far = box[2 * axis + (positive ? 1 : 0)] - packet.origin[axis];
+            tNear = Math.max(tNear, Math.max(near / packet.minDir[axis], near / packet.maxDir[axis]));
+            tFar = Math.min(tFar, Math.min(far / packet.minDir[axis], far / packet.maxDir[axis]));
+        }
+        return tNear <= tFar;
+    }
+
+    /**
+     * copies the coordinates of a point to an array
+     *
+     * @param p      the point
+     * @param target the array [x,y,z]
+     */
+    private static void copy(Point p, double[] target) {
+        target[0] = p.getX();
+        target[1] = p.getY();
+        target[2] = p.getZ();
+    }
+
+    /**
+     * updates a hit record by the closest intersection of a ray with an entity of a leaf.
+     * The leaves aren't visited in the order the entities were added, so on equal distances the entity that
+     * was added first must win: an entity that was added before the entity of the closest intersection
+     * is queried on a scratch record, and its result replaces the closest one also on an equal distance
+     *
+     * @param entity  the entity
+     * @param index   the index of the entity in the group
+     * @param ray     the ray
+     * @param hit     the record of the closest intersection found so far
+     * @param closest the index of the entity of the closest intersection found so far (NONE if none was found)
+     * @return true if the record was updated
+     */
+    private static boolean closestHit(Intersectable entity, int index, Ray ray, Hit hit, int closest) {
+        if (closest == NONE || index > closest)
+            return entity.findClosestHit(ray, hit);
+        Hit scratch = hit.scratch();
+        return entity.findClosestHit(ray, scratch) && hit.replaceIfNotFurther(scratch);
+    }
+
+    /**
+     * returns the hierarchy of the group, builds it if it doesn't exist
+     *
+     * @return the hierarchy
+     */
+    private Hierarchy getHierarchy() {
+        Hierarchy h = hierarchy;
+        if (h == null) {
+            synchronized (this) {
+                h = hierarchy;
+                if (h == null) {
+                    h = buildHierarchy();
+                    hierarchy = h;
+                }
+            }
+        }
+        return h;
+    }
+
+    /**
+     * builds the hierarchy over all the entities of the group (nested groups are flattened)
+     *
+     * @return the built hierarchy
+     */
+    private Hierarchy buildHierarchy() {
+        List<Intersectable> flat = new ArrayList<>();
+        flatten(this, flat);
+        Intersectable[] entities = flat.toArray(new Intersectable[0]);
+
+        double[] boxes = new double[6 * entities.length];
+        double[] centroids = new double[3 * entities.length];
+        int boundedCount = 0;
+        for (int i = 0; i < entities.length; i++) {
+            int[][] boundary = entities[i].boundary;
+            if (boundary == null) continue;
+            for (int axis = 0; axis < 3; axis++) {
+                boxes[6 * i + 2 * axis] = boundary[axis][0] - BOX_PADDING;
+                boxes[6 * i + 2 * axis + 1] = boundary[axis][1] + BOX_PADDING;
+                centroids[3 * i + axis] = (boxes[6 * i + 2 * axis] + boxes[6 * i + 2 * axis + 1]) / 2;
+            }
+            boundedCount++;
+        }
+
+        int[] bounded = new int[boundedCount];
+        int[] unbounded = new int[entities.length - boundedCount];
+        for (int i = 0, b = 0, u = 0; i < entities.length; i++) {
+            if (entities[i].boundary != null) bounded[b++] = i;
+            else unbounded[u++] = i;
+        }
+        Node root = boundedCount == 0 ? null : buildNode(bounded, 0, boundedCount, boxes, centroids);
+        return new Hierarchy(entities, unbounded, root);
+    }
+
+    /**
+     * builds a node of the hierarchy over a range of entities.
+     * The range is split where the surface area heuristic estimates the lowest cost,
+     * or kept as a leaf if splitting won't be cheaper.
+     *
+     * @param indexes   indexes of the entities (reordered while splitting)
+     * @param from      the start of the range (inclusive)
+     * @param to        the end of the range (exclusive)
+     * @param boxes     the boxes of the entities, 6 values per entity
+     * @param centroids the centers of the boxes of the entities, 3 values per entity
+     * @return the built node
+     */
+    private static Node buildNode(int[] indexes, int from, int to, double[] boxes, double[] centroids) {
+        double[] box = new double[6];
+        rangeBox(indexes, from, to, boxes, box, 0);
+        Node node = new Node(box);
+        int mid = split(indexes, from, to, boxes, centroids);
+        if (mid == -1) {
+            node.entities = Arrays.copyOfRange(indexes, from, to);
+            return node;
+        }
+        node.left = buildNode(indexes, from, mid, boxes, centroids);
+        node.right = buildNode(indexes, mid, to, boxes, centroids);
+        return node;
+    }
+}
@@ -1,11 +1,11 @@
 package geometries;
 
-import lighting.PointLight;
 import primitives.*;
 
 import java.util.List;
 import java.util.Map;
 
+import static primitives.Util.alignZero;
 import static primitives.Util.isZero;
 
 /**
@@ -14,6 +14,8 @@ import static primitives.Util.isZero;
 public class Cylinder extends Tube {
     //height of cylinder
     private final double height;
+    //the coordinates of the center of the second base
+    private final double cx, cy, cz;
 
     /**
      * ctor of parameters
@@ -25,6 +27,10 @@ public class Cylinder extends Tube {
     public Cylinder(Ray axisRay, double radius, double height) {
         super(axisRay, radius);
         this.height = height;
+        Point secondBaseCenter = axisRay.getPoint(height);
+        this.cx = secondBaseCenter.getX();
+        this.cy = secondBaseCenter.getY();
+        this.cz = secondBaseCenter.getZ();
         this.boundary=calcBoundary();
     }
 
@@ -65,68 +71,107 @@ public class Cylinder extends Tube {
 
     @Override
     public List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
-        Vector dir = axisRay.getDir();
-        Point baseCenter = axisRay.getP0();
-        Point secondBaseCenter = axisRay.getPoint(height);
-        Plane base = new Plane(baseCenter, dir);
-        Plane secondBase = new Plane(secondBaseCenter, dir);
-        double rdSqr = radius * radius;
-        List<GeoPoint> temp;
-
-        boolean cond = ray.getDir().equals(dir) || ray.getDir().scale(-1).equals(dir);
+        double[] distances = new double[2];
+        int count = distances(ray, distances);
+        if (count == 0 || alignZero(distances[0] - maxDistance) > 0) return null;
+        if (count == 1 || alignZero(distances[1] - maxDistance) > 0)
+            return List.of(new GeoPoint(this, ray.getPoint(distances[0]), distances[0]));
+        return List.of(new GeoPoint(this, ray.getPoint(distances[0]), distances[0]), new GeoPoint(this, ray.getPoint(distances[1]), distances[1]));
+    }
 
-        temp = base.findGeoIntersections(ray, maxDistance);
-        GeoPoint gp1 = temp == null || onBase(temp.get(0), baseCenter, rdSqr, cond) ? null : new GeoPoint(this, temp.get(0).point);
+    @Override
+    public boolean findClosestHit(Ray ray, Hit hit) {
+        double[] distances = new double[2];
+        return distances(ray, distances) > 0 && hit.update(this, distances[0]);
+    }
 
-        temp = secondBase.findGeoIntersections(ray, maxDistance);
-        GeoPoint gp2 = temp == null || onBase(temp.get(0), secondBaseCenter, rdSqr, cond) ? null : new GeoPoint(this, temp.get(0).point);
+    @Override
+    protected int countIntersections(Ray ray, double maxDistance) {
+        double[] distances = new double[2];
+        int count = distances(ray, distances);
+        //the distances are sorted, so only the ones within the maximal distance are counted
+        while (count > 0 && alignZero(distances[count - 1] - maxDistance) > 0) count--;
+        return count;
+    }
 
-        if (gp1 != null && gp2 != null) {
-            if (ray.getP0().distanceSquared(gp1.point) < ray.getP0().distanceSquared(gp2.point)) {
-                return List.of(gp1, gp2);
-            } else {
-                return List.of(gp2, gp1);
-            }
+    /**
+     * Calculates the distances along a ray to the cylinder, the bases and the casing in one pass.
+     * A ray meets the (convex) cylinder at most twice, so if both bases are intersected the casing isn't tested.
+     *
+     * @param ray       the ray
+     * @param distances array to fill with the ray parameters of the intersections in front of the ray head,
+     *                  from the nearest to the farthest
+     * @return the number of intersections (0, 1 or 2)
+     */
+    private int distances(Ray ray, double[] distances) {
+        Point p0 = ray.getP0();
+        Vector rayDir = ray.getDir();
+        double ox = p0.getX(), oy = p0.getY(), oz = p0.getZ();
+        double dx = rayDir.getX(), dy = rayDir.getY(), dz = rayDir.getZ();
+        int count = 0;
+
+        //the bases
+        double denominator = vx * dx + vy * dy + vz * dz;
+        if (!isZero(denominator)) {
+            //a ray parallel to the axis doesn't intersect the rim of the bases
+            boolean parallel = (isZero(dx - vx) && isZero(dy - vy) && isZero(dz - vz))
+                    || (isZero(-dx - vx) && isZero(-dy - vy) && isZero(-dz - vz));
+            double t = baseDistance(ox, oy, oz, dx, dy, dz, px, py, pz, denominator, parallel);
+            if (t > 0) distances[count++] = t;
+            t = baseDistance(ox, oy, oz, dx, dy, dz, cx, cy, cz, denominator, parallel);
+            if (t > 0) distances[count++] = t;
         }
 
-        GeoPoint gpBase = gp1 != null ? gp1 : gp2;
-        temp = super.findGeoIntersectionsHelper(ray, maxDistance);
-
-        //No intersections with the casing
-        if (temp == null) return gpBase == null ? null : List.of(gpBase);
-        //Two intersections with the casing
-        if (temp.size() == 2) {
-            //Between the planes
-            boolean cond1 = onCylinder(temp.get(0), baseCenter, secondBaseCenter, dir);
-            boolean cond2 = onCylinder(temp.get(1), baseCenter, secondBaseCenter, dir);
-            if (cond1 && cond2) return temp;
-            if (!cond1 && !cond2) return null;
-            if (cond1) return List.of(temp.get(0), gpBase);
-            if (cond2) return List.of(gpBase, temp.get(1));
+        //the casing, only the intersections between the bases
+        if (count < 2) {
+            double[] casing = new double[2];
+            int casingCount = casingDistances(ray, casing);
+            for (int i = 0; i < casingCount && count < 2; i++) {
+                double t = casing[i];
+                double x = ox + dx * t, y = oy + dy * t, z = oz + dz * t;
+                if ((x - px) * vx + (y - py) * vy + (z - pz) * vz > 0
+                        && (x - cx) * -vx + (y - cy) * -vy + (z - cz) * -vz > 0)
+                    distances[count++] = t;
+            }
         }
 
-        if (!(onCylinder(temp.get(0), baseCenter, secondBaseCenter, dir))) {//לשים לב שזה ממש בתוך
-            return gpBase == null ? null : List.of(gpBase);
-        } else if (gpBase == null) {
-            return temp;
+        if (count == 2 && distances[1] < distances[0]) {
+            double temp = distances[0];
+            distances[0] = distances[1];
+            distances[1] = temp;
         }
-        double d1 = temp.get(0).point.distanceSquared(ray.getP0());
-        double d2 = gpBase.point.distanceSquared(ray.getP0());
-
-        return d1 < d2 ? List.of(temp.get(0), gpBase) : List.of(gpBase, temp.get(0));
-    }
-
-    private boolean onCylinder(GeoPoint geoPoint, Point b1, Point b2, Vector dir) {
-        return geoPoint.point.subtract(b1).dotProduct(dir) > 0 &&
-                geoPoint.point.subtract(b2).dotProduct(dir.scale(-1)) > 0;
+        return count;
     }
 
-    private boolean onBase(GeoPoint check, Point center, double rdSqr, boolean cond) {
-        return (check.point.distanceSquared(center) == rdSqr && cond) ||
-                (check.point.distanceSquared(center) > rdSqr);
+    /**
+     * calculates the distance along a ray to a base of the cylinder
+     *
+     * @param ox          the X coordinate of the ray head
+     * @param oy          the Y coordinate of the ray head
+     * @param oz          the Z coordinate of the ray head
+     * @param dx          the X coordinate of the ray direction
+     * @param dy          the Y coordinate of the ray direction
+     * @param dz          the Z coordinate of the ray direction
+     * @param bx          the X coordinate of the center of the base
+     * @param by          the Y coordinate of the center of the base
+     * @param bz          the Z coordinate of the center of the base
+     * @param denominator the dot product of the axis direction and the ray direction
+     * @param parallel    whether the ray is parallel to the axis
+     * @return the ray parameter t of the intersection, 0 if the ray doesn't intersect the base
+     */
+    private double baseDistance(double ox, double oy, double oz, double dx, double dy, double dz,
+                                double bx, double by, double bz, double denominator, boolean parallel) {
+        double ux = bx - ox, uy = by - oy, uz = bz - oz;
+        if (ux == 0 && uy == 0 && uz == 0)
+            return 0; // the ray starts at the center of the base
+        double t = alignZero((vx * ux + vy * uy + vz * uz) / denominator);
+        if (t <= 0) return 0;
+        double x = ox + dx * t - bx, y = oy + dy * t - by, z = oz + dz * t - bz;
+        double distanceSquared = x * x + y * y + z * z;
+        //the intersection with the plane of the base is on the base
+        return distanceSquared < radiusSquared || (distanceSquared == radiusSquared && !parallel) ? t : 0;
     }
 
-
     @Override
     public int[][] calcBoundary() {
         Point firstBaseCenter = axisRay.getP0();
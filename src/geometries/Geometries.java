@@ -4,9 +4,11 @@ package geometries;
 import primitives.Double3;
 import primitives.Ray;
 import scene.Scene;
+import scene.VoxelGrid;
 
 
 import java.util.*;
+import java.util.function.IntConsumer;
 
 /**
  * Class the represents a group of geometric entities
@@ -16,7 +18,16 @@ public class Geometries extends Intersectable {
     //Also, we will never try to access an object in a specific index, but we will always scan all the array.
     //Meaning there are no drawbacks using linked list, but we would have the best running time.
 
-    private final List<Intersectable> objects = new LinkedList<>();
+    protected final List<Intersectable> objects = new LinkedList<>();
+
+    /**
+     * the number of geometric entities from which a voxel of the scene grid is divided again into a nested grid
+     */
+    private static final int SUBDIVISION_THRESHOLD = 16;
+    /**
+     * the maximal number of voxels of a nested grid on each axis
+     */
+    private static final int MAX_SUB_RESOLUTION = 8;
 
     /**
      * Ctor that gets objects and adds them to the list of objects.
@@ -27,6 +38,27 @@ public class Geometries extends Intersectable {
         this.add(geometries);
     }
 
+    /**
+     * returns the number of geometric entities in the list (a nested group is counted as one entity)
+     *
+     * @return the number of geometric entities
+     */
+    public int size() {
+        return objects.size();
+    }
+
+    /**
+     * returns the number of geometric entities in the group and its nested groups,
+     * the entities that {@link #flatten} would add
+     *
+     * @return the number of flattened geometric entities
+     */
+    public int flatSize() {
+        List<Intersectable> flat = new ArrayList<>();
+        flatten(this, flat);
+        return flat.size();
+    }
+
     /**
      * Adds several geometric entities to the list of objects.
      *
@@ -62,6 +94,23 @@ public class Geometries extends Intersectable {
     }
 
 
+    /**
+     * adds the entities of a group to a list, the entities of nested groups are added instead of the groups.
+     * A nested {@link PackedGeometries} is added as a single entity, so its entities stay packed together
+     * (e.g. in a leaf of a {@link BvhGeometries})
+     *
+     * @param group the group
+     * @param flat  the list to add the entities to
+     */
+    static void flatten(Geometries group, List<Intersectable> flat) {
+        for (Intersectable entity : group.objects) {
+            if (entity instanceof Geometries nested && !(nested instanceof PackedGeometries))
+                flatten(nested, flat);
+            else
+                flat.add(entity);
+        }
+    }
+
     @Override
     public List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
         List<GeoPoint> intersections = null;
@@ -77,6 +126,32 @@ public class Geometries extends Intersectable {
         return intersections;
     }
 
+    @Override
+    public boolean findClosestHit(Ray ray, Hit hit) {
+        boolean updated = false;
+        for (var geometry : objects) {
+            updated = geometry.findClosestHit(ray, hit) || updated;
+        }
+        return updated;
+    }
+
+    @Override
+    public void findClosestHits(Ray[] rays, Hit[] hits) {
+        //the whole packet is passed to each entity by the order they were added, so nested groups may share work
+        for (var geometry : objects) {
+            geometry.findClosestHits(rays, hits);
+        }
+    }
+
+    @Override
+    protected Double3 occlusionHelper(Ray ray, double maxDistance, Double3 ktr, double threshold, Geometry[] blocker) {
+        for (var geometry : objects) {
+            ktr = geometry.occlusionHelper(ray, maxDistance, ktr, threshold, blocker);
+            if (ktr.lowerThan(threshold)) return Double3.ZERO;
+        }
+        return ktr;
+    }
+
     @Override
     public int[][] calcBoundary() {
         double minX = Double.POSITIVE_INFINITY;
@@ -86,6 +161,9 @@ public class Geometries extends Intersectable {
         double minZ = Double.POSITIVE_INFINITY;
         double maxZ = Double.NEGATIVE_INFINITY;
         for (var geometry : objects) {
+            //a nested group gets its boundary only here, from its own entities
+            if (geometry instanceof Geometries nested)
+                nested.boundary = nested.calcBoundary();
             if (geometry.boundary[0][0] < minX)
                 minX = geometry.boundary[0][0];
             if (geometry.boundary[0][1] > maxX)
@@ -105,30 +183,122 @@ public class Geometries extends Intersectable {
     }
 
     /**
-     * move over all geometric entities of a scene and return a hashmap of all the none empty voxels
+     * move over all geometric entities of a scene and return the voxel grid of the scene.
+     * Voxels that hold more than SUBDIVISION_THRESHOLD entities are divided again into a nested grid.
      *
      * @param scene the scene
-     * @return the hash map of voxels
+     * @return the voxel grid
      */
-    public HashMap<Double3, Geometries> attachVoxel(Scene scene) {
-        HashMap<Double3, Geometries> voxels = new HashMap<>();
-        List<Double3> voxelIndexes;
-        int i = 0;
-        for (var geometry : objects) {
-            if(i==231){
-                int u = 5;
+    public VoxelGrid attachVoxel(Scene scene) {
+        int[][] sceneBoundary = scene.geometries.boundary;
+        double[] origin = {sceneBoundary[0][0], sceneBoundary[1][0], sceneBoundary[2][0]};
+        double[] voxelEdges = {scene.getXEdgeVoxel(), scene.getYEdgeVoxel(), scene.getZEdgeVoxel()};
+        int[] ids = new int[objects.size()];
+        Arrays.setAll(ids, i -> i);
+        return buildGrid(objects.toArray(new Intersectable[0]), ids, scene.resolutions, origin, voxelEdges, true);
+    }
+
+    /**
+     * builds a voxel grid of geometric entities.
+     * The first pass counts the entities of each voxel and the second pass places them in their voxel's range.
+     *
+     * @param objects     the geometric entities
+     * @param objectIds   the id of each geometric entity
+     * @param resolutions the number of voxels on each axis [x,y,z]
+     * @param origin      the minimal corner of the grid [x,y,z]
+     * @param voxelEdges  the size of the edge of a voxel on each axis [x,y,z]
+     * @param subdivide   whether crowded voxels are divided again into a nested grid
+     * @return the voxel grid
+     */
+    private static VoxelGrid buildGrid(Intersectable[] objects, int[] objectIds, int[] resolutions, double[] origin,
+                                       double[] voxelEdges, boolean subdivide) {
+        int cells = resolutions[0] * resolutions[1] * resolutions[2];
+        int[] cellStart = new int[cells + 1];
+        int[][][] voxelIndexes = new int[objects.length][][];
+        //count the entities of each voxel (shifted by one cell, so the prefix sum would give the starts)
+        for (int i = 0; i < objects.length; i++) {
+            voxelIndexes[i] = objects[i].findVoxels(origin, voxelEdges);
+            forEachCell(voxelIndexes[i], resolutions, cell -> cellStart[cell + 1]++);
+        }
+        for (int cell = 1; cell < cellStart.length; cell++) {
+            cellStart[cell] += cellStart[cell - 1];
+        }
+        //place the entities in their voxel's range
+        Intersectable[] entities = new Intersectable[cellStart[cells]];
+        int[] ids = new int[cellStart[cells]];
+        int[] next = Arrays.copyOf(cellStart, cells);
+        for (int i = 0; i < objects.length; i++) {
+            Intersectable geometry = objects[i];
+            int id = objectIds[i];
+            forEachCell(voxelIndexes[i], resolutions, cell -> {
+                ids[next[cell]] = id;
+                entities[next[cell]++] = geometry;
+            });
+        }
+
+        VoxelGrid[] subGrids = null;
+        if (subdivide) {
+            for (int cell = 0; cell < cells; cell++) {
+                int count = cellStart[cell + 1] - cellStart[cell];
+                if (count <= SUBDIVISION_THRESHOLD)
+                    continue;
+                VoxelGrid subGrid = subdivideVoxel(Arrays.copyOfRange(entities, cellStart[cell], cellStart[cell + 1]),
+                        Arrays.copyOfRange(ids, cellStart[cell], cellStart[cell + 1]), cell, resolutions, origin, voxelEdges);
+                if (subGrid != null) {
+                    if (subGrids == null)
+                        subGrids = new VoxelGrid[cells];
+                    subGrids[cell] = subGrid;
+                }
             }
-            i++;
-            voxelIndexes = geometry.findVoxels(scene);
-            for (var index : voxelIndexes) {
-                if (!voxels.containsKey(index))//the voxel is already exists in thr map
-                    voxels.put(index, new Geometries(geometry));
-                else {
-                    voxels.get(index).add(geometry);
+        }
+        return new VoxelGrid(resolutions, origin, voxelEdges, cellStart, entities, ids, subGrids);
+    }
+
+    /**
+     * divides a crowded voxel into a nested grid that covers exactly the voxel
+     *
+     * @param objects     the geometric entities of the voxel
+     * @param objectIds   the id of each geometric entity of the voxel
+     * @param cell        the cell of the voxel in its grid
+     * @param resolutions the number of voxels of the grid on each axis [x,y,z]
+     * @param origin      the minimal corner of the grid [x,y,z]
+     * @param voxelEdges  the size of the edge of a voxel of the grid on each axis [x,y,z]
+     * @return the nested grid, null if dividing the voxel doesn't separate its entities
+     */
+    private static VoxelGrid subdivideVoxel(Intersectable[] objects, int[] objectIds, int cell, int[] resolutions,
+                                            double[] origin, double[] voxelEdges) {
+        int[] indexes = {cell % resolutions[0], cell / resolutions[0] % resolutions[1],
+                cell / (resolutions[0] * resolutions[1])};
+        int[] subResolutions = VoxelGrid.chooseResolutions(voxelEdges, objects.length, MAX_SUB_RESOLUTION);
+        int subCells = subResolutions[0] * subResolutions[1] * subResolutions[2];
+        if (subCells == 1)
+            return null;
+        double[] subOrigin = new double[3];
+        double[] subEdges = new double[3];
+        for (int i = 0; i < 3; i++) {
+            subOrigin[i] = origin[i] + indexes[i] * voxelEdges[i];
+            subEdges[i] = voxelEdges[i] / subResolutions[i];
+        }
+        VoxelGrid subGrid = buildGrid(objects, objectIds, subResolutions, subOrigin, subEdges, false);
+        //if the entities are spread over (almost) all the nested voxels, the nested grid only adds work
+        return subGrid.start(subCells) * 2 > objects.length * subCells ? null : subGrid;
+    }
+
+    /**
+     * move over all the cells of a range of voxels (the range is clipped to the grid)
+     *
+     * @param range      the range of indexes of the voxels on each axis
+     * @param resolutions the number of voxels on each axis
+     * @param action      the action to do with each cell
+     */
+    private static void forEachCell(int[][] range, int[] resolutions, IntConsumer action) {
+        for (int x = Math.max(range[0][0], 0); x <= Math.min(range[0][1], resolutions[0] - 1); x++) {
+            for (int y = Math.max(range[1][0], 0); y <= Math.min(range[1][1], resolutions[1] - 1); y++) {
+                for (int z = Math.max(range[2][0], 0); z <= Math.min(range[2][1], resolutions[2] - 1); z++) {
+                    action.accept(x + resolutions[0] * (y + resolutions[1] * z));
                 }
             }
         }
-        return voxels;
     }
 
     /**
@@ -2,6 +2,8 @@ package geometries;
 
 import primitives.*;
 
+import java.util.List;
+
 /**
  * abstract class which all the geometries implement
  */
@@ -56,4 +58,41 @@ public abstract class Geometry extends Intersectable {
      */
     public abstract Vector getNormal(Point pnt);
 
+    @Override
+    protected Double3 occlusionHelper(Ray ray, double maxDistance, Double3 ktr, double threshold, Geometry[] blocker) {
+        Double3 kT = getMaterial().kT;
+        //the transparency is multiplied for each intersection, without creating them
+        //(an opaque entity blocks the light at its first intersection)
+        int count = countIntersections(ray, maxDistance);
+        for (int i = 0; i < count; i++) {
+            ktr = ktr.product(kT);
+            if (ktr.lowerThan(threshold)) return blocked(blocker);
+        }
+        return ktr;
+    }
+
+    /**
+     * counts the intersections of a ray with the geometric entity within a given distance, without creating
+     * the intersection points (for the occlusion query of transparent entities).
+     * By default they are counted on the list of intersections, the entities override it with their own calculation.
+     *
+     * @param ray         the ray
+     * @param maxDistance the maximal distance to find intersections
+     * @return the number of intersections
+     */
+    protected int countIntersections(Ray ray, double maxDistance) {
+        List<GeoPoint> intersections = findGeoIntersectionsHelper(ray, maxDistance);
+        return intersections == null ? 0 : intersections.size();
+    }
+
+    /**
+     * records the geometric entity as the one that blocked the light
+     *
+     * @param blocker a single cell array to set to the entity, may be null
+     * @return Double3.ZERO (the transparency of blocked light)
+     */
+    protected Double3 blocked(Geometry[] blocker) {
+        if (blocker != null) blocker[0] = this;
+        return Double3.ZERO;
+    }
 }
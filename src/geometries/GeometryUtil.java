@@ -0,0 +1,315 @@
+package geometries;
+
+import primitives.Point;
+
+import static primitives.Util.alignZero;
+import static primitives.Util.isZero;
+
+/**
+ * Calculations shared by the entities that keep their geometry in flat arrays of numbers:
+ * axis aligned boxes [minX,maxX,minY,maxY,minZ,maxZ], their intersection with rays (slabs method),
+ * the surface area heuristic (SAH) that splits ranges of boxes in a bounding volume hierarchy,
+ * and the intersection of a ray with a triangle (the algorithm of Moller and Trumbore).
+ */
+abstract class GeometryUtil {
+    /**
+     * the maximal number of entities in a leaf of a hierarchy
+     */
+    static final int MAX_LEAF_SIZE = 4;
+    /**
+     * the number of bins each axis is divided to when searching for the best split
+     */
+    static final int SAH_BINS = 12;
+    /**
+     * the cost of traversing a node relative to the cost of intersecting an entity
+     */
+    static final double TRAVERSAL_COST = 1;
+    /**
+     * the boxes are padded by this value, so points that lay exactly on a box face won't be missed
+     */
+    static final double BOX_PADDING = 1e-5;
+
+    /**
+     * Empty private constructor to hide the public one
+     */
+    private GeometryUtil() {
+    }
+
+    /**
+     * creates an empty box that uniting it with any box results the other box
+     *
+     * @return the empty box
+     */
+    static double[] emptyBox() {
+        return new double[]{
+                Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+                Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+                Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+    }
+
+    /**
+     * enlarges a box so it would contain another box
+     *
+     * @param box   the box to enlarge
+     * @param other the box to contain
+     */
+    static void unite(double[] box, double[] other) {
+        for (int i = 0; i < 6; i += 2) {
+            if (other[i] < box[i]) box[i] = other[i];
+            if (other[i + 1] > box[i + 1]) box[i + 1] = other[i + 1];
+        }
+    }
+
+    /**
+     * calculates the surface area of a box
+     *
+     * @param box the box
+     * @return the surface area
+     */
+    static double area(double[] box) {
+        double dx = box[1] - box[0];
+        double dy = box[3] - box[2];
+        double dz = box[5] - box[4];
+        return 2 * (dx * dy + dy * dz + dz * dx);
+    }
+
+    /**
+     * returns the coordinates of a point as an array
+     *
+     * @param p the point
+     * @return the array [x,y,z]
+     */
+    static double[] coordinates(Point p) {
+        return new double[]{p.getX(), p.getY(), p.getZ()};
+    }
+
+    /**
+     * checks if a ray enters a box before a limit
+     *
+     * @param entry the ray parameter where it enters the box (as returned from entry)
+     * @param limit the maximal ray parameter
+     * @return true if the ray enters the box and does it before the limit
+     */
+    static boolean reaches(double entry, double limit) {
+        return entry != Double.POSITIVE_INFINITY && entry <= limit;
+    }
+
+    /**
+     * finds where a ray enters a box (slabs method)
+     *
+     * @param boxes  array of boxes, 6 values per box
+     * @param offset the offset of the box in the array
+     * @param origin coordinates of the ray head
+     * @param dir    coordinates of the ray direction
+     * @return the ray parameter where it enters the box (0 if the head is inside the box),
+     * positive infinity if the ray misses the box
+     */
+    static double entry(double[] boxes, int offset, double[] origin, double[] dir) {
+        double tNear = 0;
+        double tFar = Double.POSITIVE_INFINITY;
+        for (int axis = 0; axis < 3; axis++) {
+            double min = boxes[offset + 2 * axis];
+            double max = boxes[offset + 2 * axis + 1];
+            if (dir[axis] == 0) {
+                //the ray is parallel to the slab, it must start between its planes
+                if (origin[axis] < min || origin[axis] > max) return Double.POSITIVE_INFINITY;
+                continue;
+            }
+            double t1 = (min - origin[axis]) / dir[axis];
+            double t2 = (max - origin[axis]) / dir[axis];
+            if (t1 > t2) {
+                double temp = t1;
+                t1 = t2;
+                t2 = temp;
+            }
+            if (t1 > tNear) tNear = t1;
+            if (t2 < tFar) tFar = t2;
+            if (tNear > tFar) return Double.POSITIVE_INFINITY;
+        }
+        return tNear;
+    }
+
+    /**
+     * calculates the box of a range of entities
+     *
+     * @param order  indexes of the entities
+     * @param from   the start of the range in the order array (inclusive)
+     * @param to     the end of the range in the order array (exclusive)
+     * @param boxes  the boxes of the entities, 6 values per entity
+     * @param target the array to write the box to
+     * @param offset the offset of the box in the target array
+     */
+    static void rangeBox(int[] order, int from, int to, double[] boxes, double[] target, int offset) {
+        double[] box = emptyBox();
+        for (int i = from; i < to; i++) {
+            int entity = 6 * order[i];
+            for (int j = 0; j < 6; j += 2) {
+                box[j] = Math.min(box[j], boxes[entity + j]);
+                box[j + 1] = Math.max(box[j + 1], boxes[entity + j + 1]);
+            }
+        }
+        System.arraycopy(box, 0, target, offset, 6);
+    }
+
+    /**
+     * Splits a range of entities for a node of a hierarchy with the surface area heuristic:
+     * the centers of the boxes are binned along each axis, and the range is partitioned
+     * by the split with the lowest estimated cost.
+     * A range of at most MAX_LEAF_SIZE entities, or one that splitting won't make cheaper, stays a leaf.
+     *
+     * @param order     indexes of the entities (the range is reordered by the split)
+     * @param from      the start of the range in the order array (inclusive)
+     * @param to        the end of the range in the order array (exclusive)
+     * @param boxes     the boxes of the entities, 6 values per entity
+     * @param centroids the centers of the boxes of the entities, 3 values per entity
+     * @return the start of the second part of the range, -1 if the range should stay a leaf
+     */
+    static int split(int[] order, int from, int to, double[] boxes, double[] centroids) {
+        int count = to - from;
+        if (count <= MAX_LEAF_SIZE) return -1;
+        double[] box = emptyBox();
+        double[] centroidBox = emptyBox();
+        for (int i = from; i < to; i++) {
+            int entity = order[i];
+            for (int axis = 0; axis < 3; axis++) {
+                box[2 * axis] = Math.min(box[2 * axis], boxes[6 * entity + 2 * axis]);
+                box[2 * axis + 1] = Math.max(box[2 * axis + 1], boxes[6 * entity + 2 * axis + 1]);
+                centroidBox[2 * axis] = Math.min(centroidBox[2 * axis], centroids[3 * entity + axis]);
+                centroidBox[2 * axis + 1] = Math.max(centroidBox[2 * axis + 1], centroids[3 * entity + axis]);
+            }
+        }
+
+        //search the best split over all the axes
+        double nodeArea = area(box);
+        double bestCost = count;//the cost of keeping the node as a leaf
+        int bestAxis = -1;
+        int bestBin = -1;
+        for (int axis = 0; axis < 3; axis++) {
+            double min = centroidBox[2 * axis];
+            double extent = centroidBox[2 * axis + 1] - min;
+            if (extent <= 0) continue;//all the centers are on the same place on this axis
+
+            int[] binCounts = new int[SAH_BINS];
+            double[][] binBoxes = new double[SAH_BINS][];
+            for (int i = 0; i < SAH_BINS; i++) binBoxes[i] = emptyBox();
+            for (int i = from; i < to; i++) {
+                int entity = order[i];
+                int bin = bin(centroids[3 * entity + axis], min, extent);
+                binCounts[bin]++;
+                for (int j = 0; j < 6; j += 2) {
+                    binBoxes[bin][j] = Math.min(binBoxes[bin][j], boxes[6 * entity + j]);
+                    binBoxes[bin][j + 1] = Math.max(binBoxes[bin][j + 1], boxes[6 * entity + j + 1]);
+                }
+            }
+
+            //areas and counts of all the bins right to each split
+            double[] rightAreas = new double[SAH_BINS];
+            int[] rightCounts = new int[SAH_BINS];
+            double[] rightBox = emptyBox();
+            int rightCount = 0;
+            for (int i = SAH_BINS - 1; i > 0; i--) {
+                unite(rightBox, binBoxes[i]);
+                rightCount += binCounts[i];
+                rightAreas[i] = area(rightBox);
+                rightCounts[i] = rightCount;
+            }
+
+            double[] leftBox = emptyBox();
+            int leftCount = 0;
+            for (int i = 0; i < SAH_BINS - 1; i++) {
+                unite(leftBox, binBoxes[i]);
+                leftCount += binCounts[i];
+                if (leftCount == 0 || rightCounts[i + 1] == 0) continue;
+                double cost = TRAVERSAL_COST
+                        + (area(leftBox) * leftCount + rightAreas[i + 1] * rightCounts[i + 1]) / nodeArea;
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestAxis = axis;
+                    bestBin = i;
+                }
+            }
+        }
+        if (bestAxis == -1) return -1;//splitting won't be cheaper
+
+        //partition the range by the chosen split
+        double min = centroidBox[2 * bestAxis];
+        double extent = centroidBox[2 * bestAxis + 1] - min;
+        int mid = from;
+        for (int i = from; i < to; i++) {
+            if (bin(centroids[3 * order[i] + bestAxis], min, extent) <= bestBin) {
+                int temp = order[i];
+                order[i] = order[mid];
+                order[mid++] = temp;
+            }
+        }
+        return mid;
+    }
+
+    /**
+     * finds the bin of a center of a box on an axis
+     *
+     * @param value  the coordinate of the center on the axis
+     * @param min    the minimal coordinate of all the centers on the axis
+     * @param extent the range of the coordinates of all the centers on the axis
+     * @return the index of the bin
+     */
+    private static int bin(double value, double min, double extent) {
+        int bin = (int) (SAH_BINS * (value - min) / extent);
+        return Math.min(bin, SAH_BINS - 1);
+    }
+
+    /**
+     * Calculates the distance along a ray to a triangle (the algorithm of Moller and Trumbore).
+     * The distance and the barycentric coordinates of the intersection are calculated together from the edges
+     * of the triangle, so no plane intersection, vectors or normalizations are needed.
+     * Like in a polygon, the edges and the vertices of the triangle aren't intersections.
+     *
+     * @param ox          the X coordinate of the ray head
+     * @param oy          the Y coordinate of the ray head
+     * @param oz          the Z coordinate of the ray head
+     * @param dx          the X coordinate of the ray direction
+     * @param dy          the Y coordinate of the ray direction
+     * @param dz          the Z coordinate of the ray direction
+     * @param ax          the X coordinate of the first vertex
+     * @param ay          the Y coordinate of the first vertex
+     * @param az          the Z coordinate of the first vertex
+     * @param e1x         the X coordinate of the edge from the first vertex to the second one
+     * @param e1y         the Y coordinate of the edge from the first vertex to the second one
+     * @param e1z         the Z coordinate of the edge from the first vertex to the second one
+     * @param e2x         the X coordinate of the edge from the first vertex to the third one
+     * @param e2y         the Y coordinate of the edge from the first vertex to the third one
+     * @param e2z         the Z coordinate of the edge from the first vertex to the third one
+     * @param scale       the determinant is multiplied by it for the parallel test
+     *                    (1 / |e1 x e2| tests the angle between the ray and the plane)
+     * @param barycentric array of 3 cells to fill with the barycentric coordinates of the intersection
+     *                    (the weights of the vertices by their order), may be null
+     * @return the ray parameter t of the intersection, 0 if the ray doesn't intersect the triangle
+     */
+    static double triangleDistance(double ox, double oy, double oz, double dx, double dy, double dz,
+                                   double ax, double ay, double az, double e1x, double e1y, double e1z,
+                                   double e2x, double e2y, double e2z, double scale, double[] barycentric) {
+        //p = dir x e2
+        double px = dy * e2z - dz * e2y, py = dz * e2x - dx * e2z, pz = dx * e2y - dy * e2x;
+        //det = e1 * p = -(dir * (e1 x e2))
+        double det = e1x * px + e1y * py + e1z * pz;
+        if (isZero(det * scale)) return 0;//the ray is parallel to the triangle
+        double inverse = 1 / det;
+
+        double sx = ox - ax, sy = oy - ay, sz = oz - az;
+        double u = (sx * px + sy * py + sz * pz) * inverse;
+        if (alignZero(u) <= 0) return 0;
+        //q = s x e1
+        double qx = sy * e1z - sz * e1y, qy = sz * e1x - sx * e1z, qz = sx * e1y - sy * e1x;
+        double v = (dx * qx + dy * qy + dz * qz) * inverse;
+        if (alignZero(v) <= 0 || alignZero(1 - u - v) <= 0) return 0;
+
+        double t = alignZero((e2x * qx + e2y * qy + e2z * qz) * inverse);
+        if (t <= 0) return 0;
+        if (barycentric != null) {
+            barycentric[0] = 1 - u - v;
+            barycentric[1] = u;
+            barycentric[2] = v;
+        }
+        return t;
+    }
+}
@@ -3,12 +3,11 @@ package geometries;
 import primitives.Double3;
 import primitives.Point;
 import primitives.Ray;
-import scene.Scene;
 
-import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
 
+import static primitives.Util.alignZero;
+
 /**
  * Interface of all the intersectable by rays geometries apply.
  */
@@ -26,16 +25,32 @@ public abstract class Intersectable {
          * the point on the geometric entity
          */
         public final Point point;
+        /**
+         * the ray parameter of the point (its distance from the head of the ray), NaN if unknown
+         */
+        public final double t;
 
         /**
          * GeoPoint constructor
          *
          * @param geometry Geometric entity
          * @param point    the point on the geometric entity
+         * @param t        the ray parameter of the point
          */
-        public GeoPoint(Geometry geometry, Point point) {
+        public GeoPoint(Geometry geometry, Point point, double t) {
             this.geometry = geometry;
             this.point = point;
+            this.t = t;
+        }
+
+        /**
+         * GeoPoint constructor for a point that isn't related to a ray (its ray parameter is unknown)
+         *
+         * @param geometry Geometric entity
+         * @param point    the point on the geometric entity
+         */
+        public GeoPoint(Geometry geometry, Point point) {
+            this(geometry, point, Double.NaN);
         }
 
         @Override
@@ -55,6 +70,166 @@ public abstract class Intersectable {
         }
     }
 
+    /**
+     * Mutable record of the closest intersection of a ray found so far.
+     * The geometric entities update it only with a closer intersection, so a closest intersection query
+     * doesn't create lists or points, and the point is calculated only when it's needed.
+     */
+    public static class Hit {
+        /**
+         * the ray of the query
+         */
+        private Ray ray;
+        /**
+         * the maximal distance to find intersections
+         */
+        private double maxDistance;
+        /**
+         * the distance of the closest intersection from the head of the ray (the parameter t of the ray)
+         */
+        private double t;
+        /**
+         * the geometric entity of the closest intersection (null if none was found)
+         */
+        private Geometry geometry;
+        /**
+         * the closest intersection point (calculated lazily)
+         */
+        private Point point;
+        /**
+         * a record for the queries of a group on behalf of this record (created on the first use)
+         */
+        private Hit scratch;
+
+        /**
+         * Hit constructor
+         *
+         * @param ray         the ray of the query
+         * @param maxDistance the maximal distance to find intersections
+         */
+        public Hit(Ray ray, double maxDistance) {
+            reset(ray, maxDistance);
+        }
+
+        /**
+         * clears the record for a new query, so it could be reused
+         *
+         * @param ray         the ray of the query
+         * @param maxDistance the maximal distance to find intersections
+         * @return the record itself
+         */
+        public Hit reset(Ray ray, double maxDistance) {
+            this.ray = ray;
+            this.maxDistance = maxDistance;
+            this.t = Double.POSITIVE_INFINITY;
+            this.geometry = null;
+            this.point = null;
+            return this;
+        }
+
+        /**
+         * checks if an intersection would replace the closest intersection found so far
+         *
+         * @param t the distance of the intersection from the head of the ray
+         * @return true if the intersection is in front of the ray, within the maximal distance and closer
+         */
+        public boolean isCloser(double t) {
+            return t > 0 && t < this.t && alignZero(t - maxDistance) <= 0;
+        }
+
+        /**
+         * updates the record if an intersection is closer than the closest intersection found so far
+         *
+         * @param geometry the geometric entity of the intersection
+         * @param t        the distance of the intersection from the head of the ray
+         * @return true if the record was updated
+         */
+        public boolean update(Geometry geometry, double t) {
+            if (!isCloser(t))
+                return false;
+            this.t = t;
+            this.geometry = geometry;
+            this.point = null;
+            return true;
+        }
+
+        /**
+         * returns a record that a group can query an entity with, instead of this record, before it decides
+         * whether the result replaces the closest intersection of this record. Each record has its own,
+         * so nested groups don't share it
+         *
+         * @return the scratch record, reset to the ray and the distance of the closest intersection of this record
+         */
+        Hit scratch() {
+            double limit = Math.min(t, maxDistance);
+            if (scratch == null) scratch = new Hit(ray, limit);
+            return scratch.reset(ray, limit);
+        }
+
+        /**
+         * takes the result of a query on a scratch record if its intersection isn't further than the closest one
+         * of this record- so on equal distances the scratch result wins
+         *
+         * @param other the scratch record
+         * @return true if the record was updated
+         */
+        boolean replaceIfNotFurther(Hit other) {
+            if (other.geometry == null || other.t > this.t)
+                return false;
+            this.t = other.t;
+            this.geometry = other.geometry;
+            this.point = other.point;
+            return true;
+        }
+
+        /**
+         * t getter
+         *
+         * @return the distance of the closest intersection from the head of the ray (infinity if none was found)
+         */
+        public double getT() {
+            return t;
+        }
+
+        /**
+         * maxDistance getter
+         *
+         * @return the maximal distance to find intersections
+         */
+        public double getMaxDistance() {
+            return maxDistance;
+        }
+
+        /**
+         * geometry getter
+         *
+         * @return the geometric entity of the closest intersection (null if none was found)
+         */
+        public Geometry getGeometry() {
+            return geometry;
+        }
+
+        /**
+         * returns the closest intersection point, calculates it on the first call
+         *
+         * @return the closest intersection point (null if none was found)
+         */
+        public Point getPoint() {
+            if (point == null && geometry != null)
+                point = ray.getPoint(t);
+            return point;
+        }
+
+        /**
+         * returns the closest intersection as a GeoPoint
+         *
+         * @return the closest intersection GeoPoint (null if none was found)
+         */
+        public GeoPoint getGeoPoint() {
+            return geometry == null ? null : new GeoPoint(geometry, getPoint(), t);
+        }
+    }
+
     /**
      * boundary of the entity represented by the array [x[min,max],y[min,max],z[min,max]]
      */
@@ -112,6 +287,93 @@ public abstract class Intersectable {
      */
     protected abstract List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance);
 
+    /**
+     * Finds the closest intersection GeoPoint of a ray and a geometric entity.
+     *
+     * @param ray the ray that intersect with the geometric entity.
+     * @return the closest intersection GeoPoint, null if there is none.
+     */
+    public GeoPoint findClosestGeoIntersection(Ray ray) {
+        return findClosestGeoIntersection(ray, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Finds the closest intersection GeoPoint of a ray and a geometric entity within a given distance.
+     *
+     * @param ray         the ray that intersect with the geometric entity.
+     * @param maxDistance the maximal distance to find intersections points.
+     * @return the closest intersection GeoPoint, null if there is none.
+     */
+    public GeoPoint findClosestGeoIntersection(Ray ray, double maxDistance) {
+        Hit hit = new Hit(ray, maxDistance);
+        return findClosestHit(ray, hit) ? hit.getGeoPoint() : null;
+    }
+
+    /**
+     * Updates a hit record by the closest intersection of a ray and a geometric entity,
+     * only if it's closer than the intersection that the record holds (allocation free closest intersection query).
+     *
+     * @param ray the ray that intersect with the geometric entity.
+     * @param hit the record of the closest intersection found so far.
+     * @return true if the record was updated.
+     */
+    public abstract boolean findClosestHit(Ray ray, Hit hit);
+
+    /**
+     * Updates the hit records of a packet of rays by their closest intersections with the geometric entity.
+     * Each ray gets the same result as in {@link #findClosestHit(Ray, Hit)}, by default the rays are
+     * simply tested one by one. Groups that can share work between coherent rays (such as the camera rays
+     * of neighbouring pixels) override it.
+     *
+     * @param rays the rays that intersect with the geometric entity.
+     * @param hits the records of the closest intersections found so far, one for each ray.
+     */
+    public void findClosestHits(Ray[] rays, Hit[] hits) {
+        for (int i = 0; i < rays.length; i++)
+            findClosestHit(rays[i], hits[i]);
+    }
+
+    /**
+     * Finds how much light passes through the geometric entity along a ray within a given distance (any-hit query).
+     * The transparency coefficients of the intersections are multiplied without collecting them to a list,
+     * and the query stops as soon as the transparency drops below the threshold.
+     *
+     * @param ray         the ray from the point towards the light source.
+     * @param maxDistance the distance of the light source.
+     * @param threshold   the transparency below which the light is considered blocked.
+     * @return the transparency along the ray, Double3.ZERO if it's below the threshold.
+     */
+    public Double3 occlusion(Ray ray, double maxDistance, double threshold) {
+        return occlusionHelper(ray, maxDistance, Double3.ONE, threshold, null);
+    }
+
+    /**
+     * Finds how much light passes through the geometric entity along a ray within a given distance (any-hit query),
+     * and which geometric entity blocked the light if it was blocked.
+     *
+     * @param ray         the ray from the point towards the light source.
+     * @param maxDistance the distance of the light source.
+     * @param threshold   the transparency below which the light is considered blocked.
+     * @param blocker     a single cell array that is set to the geometric entity whose intersection dropped
+     *                    the transparency below the threshold (left unchanged if the light isn't blocked).
+     * @return the transparency along the ray, Double3.ZERO if it's below the threshold.
+     */
+    public Double3 occlusion(Ray ray, double maxDistance, double threshold, Geometry[] blocker) {
+        return occlusionHelper(ray, maxDistance, Double3.ONE, threshold, blocker);
+    }
+
+    /**
+     * Multiplies the transparency accumulated along a ray by the transparency of the geometric entity.
+     *
+     * @param ray         the ray from the point towards the light source.
+     * @param maxDistance the distance of the light source.
+     * @param ktr         the transparency accumulated so far.
+     * @param threshold   the transparency below which the light is considered blocked.
+     * @param blocker     a single cell array to set to the geometric entity that blocked the light, may be null.
+     * @return the accumulated transparency, Double3.ZERO if it's below the threshold.
+     */
+    protected abstract Double3 occlusionHelper(Ray ray, double maxDistance, Double3 ktr, double threshold, Geometry[] blocker);
+
     /**
      * boundary getter
      *
@@ -123,30 +385,18 @@ public abstract class Intersectable {
 
 
     /**
-     * return the indexes of all voxels that the geometric entity intersects with
-     * @param scene the scene that we would use its voxels
-     * @return the indexes of the voxels intersected with this
-     */
-    protected List<Double3> findVoxels(Scene scene) {
-        List<Double3> indexes = new LinkedList<>();//since we won't remove any voxel but only add we will use linked list
-        double xEdgeVoxel=scene.getXEdgeVoxel();
-        double yEdgeVoxel=scene.getYEdgeVoxel();
-        double zEdgeVoxel=scene.getZEdgeVoxel();
-        int xMinIndex = (int) ((this.boundary[0][0] - scene.geometries.boundary[0][0]) / xEdgeVoxel - 0.01);
-        int xMaxIndex = (int) ((this.boundary[0][1] - scene.geometries.boundary[0][0]) / xEdgeVoxel - 0.01);
-        int yMinIndex = (int) ((this.boundary[1][0] - scene.geometries.boundary[1][0]) / yEdgeVoxel - 0.01);
-        int yMaxIndex = (int) ((this.boundary[1][1] - scene.geometries.boundary[1][0]) / yEdgeVoxel - 0.01);
-        int zMinIndex = (int) ((this.boundary[2][0] - scene.geometries.boundary[2][0]) / zEdgeVoxel - 0.01);
-        int zMaxIndex = (int) ((this.boundary[2][1] - scene.geometries.boundary[2][0]) / zEdgeVoxel - 0.01);
-        //move over all the voxels in the range of indexes
-        for (int i = xMinIndex; i <= xMaxIndex; i++) {
-            for (int j = yMinIndex; j <= yMaxIndex; j++) {
-                for (int k = zMinIndex; k <= zMaxIndex; k++) {
-                    indexes.add(new Double3(i, j, k));
-                }
-            }
-        }
-        return indexes;
+     * return the range of indexes of the voxels that the geometric entity intersects with
+     * @param origin     the minimal corner of the voxel grid [x,y,z]
+     * @param voxelEdges the size of the edge of a voxel of the grid on each axis [x,y,z]
+     * @return the range of indexes of the voxels on each axis [x[min,max],y[min,max],z[min,max]]
+     */
+    protected int[][] findVoxels(double[] origin, double[] voxelEdges) {
+        int[][] range = new int[3][2];
+        for (int i = 0; i < 3; i++) {
+            range[i][0] = (int) ((this.boundary[i][0] - origin[i]) / voxelEdges[i] - 0.01);
+            range[i][1] = (int) ((this.boundary[i][1] - origin[i]) / voxelEdges[i] - 0.01);
+        }
+        return range;
     }
 
 }
@@ -0,0 +1,363 @@
+package geometries;
+
+import primitives.Double3;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import static primitives.Util.alignZero;
+import static primitives.Util.isZero;
+
+/**
+ * Class that represents a group of geometric entities whose triangles and spheres are packed in
+ * struct of arrays: each coordinate of all the triangles (or spheres) is kept in its own array.
+ * A ray is tested against all the triangles (and all the spheres) in one tight loop over primitive arrays,
+ * without dereferencing the objects, and only the results are combined by the order the entities were added.
+ * Other entities (and subclasses of triangle and sphere) are tested as usual.
+ * When the JVM has the incubator module jdk.incubator.vector the loops run in SIMD lanes
+ * ({@link PackedKernel}), otherwise in scalar loops with the same results.
+ * It can be used anywhere a {@link Geometries} is used and returns the same intersections.
+ * Nested in a {@link BvhGeometries} it isn't flattened, so it's a single entity in a leaf of the hierarchy
+ * and the entities of the leaf are tested in the packed loops.
+ */
+public class PackedGeometries extends Geometries {
+    /**
+     * the SIMD loops, null if the vector API isn't available
+     */
+    static final PackedKernel KERNEL = PackedKernel.load();
+
+    /**
+     * PDS of the packed entities, it is immutable so the rendering threads can share it
+     */
+    private static class Packed {
+        /**
+         * all the entities of the group by the order they were added (nested groups are flattened)
+         */
+        private final Intersectable[] entities;
+        /**
+         * the index of each entity in the packed arrays of its type, -1 if it isn't packed
+         */
+        private final int[] slots;
+        /**
+         * whether each entity is a packed triangle (otherwise it's a packed sphere, if it's packed at all)
+         */
+        private final boolean[] isTriangle;
+
+        //the triangles- the first vertex, the edges from it and 1 / |e1 x e2|
+        private final Triangle[] triangles;
+        private final double[] ax, ay, az;
+        private final double[] e1x, e1y, e1z;
+        private final double[] e2x, e2y, e2z;
+        private final double[] inverseArea;
+
+        //the spheres- the center, the radius and the squared radius
+        private final Sphere[] spheres;
+        private final double[] cx, cy, cz;
+        private final double[] radius, radiusSqr;
+
+        /**
+         * packs the entities
+         *
+         * @param entities all the entities of the group
+         */
+        private Packed(Intersectable[] entities) {
+            this.entities = entities;
+            this.slots = new int[entities.length];
+            this.isTriangle = new boolean[entities.length];
+            int triangleCount = 0, sphereCount = 0;
+            for (int i = 0; i < entities.length; i++) {
+                //only the exact classes are packed, a subclass may intersect differently
+                if (entities[i].getClass() == Triangle.class) {
+                    isTriangle[i] = true;
+                    slots[i] = triangleCount++;
+                } else if (entities[i].getClass() == Sphere.class) {
+                    slots[i] = sphereCount++;
+                } else {
+                    slots[i] = -1;
+                }
+            }
+
+            triangles = new Triangle[triangleCount];
+            ax = new double[triangleCount];
+            ay = new double[triangleCount];
+            az = new double[triangleCount];
+            e1x = new double[triangleCount];
+            e1y = new double[triangleCount];
+            e1z = new double[triangleCount];
+            e2x = new double[triangleCount];
+            e2y = new double[triangleCount];
+            e2z = new double[triangleCount];
+            inverseArea = new double[triangleCount];
+            spheres = new Sphere[sphereCount];
+            cx = new double[sphereCount];
+            cy = new double[sphereCount];
+            cz = new double[sphereCount];
+            radius = new double[sphereCount];
+            radiusSqr = new double[sphereCount];
+
+            for (int i = 0; i < entities.length; i++) {
+                int slot = slots[i];
+                if (slot == -1) continue;
+                if (isTriangle[i]) {
+                    //the same numbers that the triangle calculates
+                    Triangle triangle = (Triangle) entities[i];
+                    Point a = triangle.vertices.get(0), b = triangle.vertices.get(1), c = triangle.vertices.get(2);
+                    triangles[slot] = triangle;
+                    ax[slot] = a.getX();
+                    ay[slot] = a.getY();
+                    az[slot] = a.getZ();
+                    e1x[slot] = b.getX() - ax[slot];
+                    e1y[slot] = b.getY() - ay[slot];
+                    e1z[slot] = b.getZ() - az[slot];
+                    e2x[slot] = c.getX() - ax[slot];
+                    e2y[slot] = c.getY() - ay[slot];
+                    e2z[slot] = c.getZ() - az[slot];
+                    double nx = e1y[slot] * e2z[slot] - e1z[slot] * e2y[slot];
+                    double ny = e1z[slot] * e2x[slot] - e1x[slot] * e2z[slot];
+                    double nz = e1x[slot] * e2y[slot] - e1y[slot] * e2x[slot];
+                    inverseArea[slot] = 1 / Math.sqrt(nx * nx + ny * ny + nz * nz);
+                } else {
+                    Sphere sphere = (Sphere) entities[i];
+                    spheres[slot] = sphere;
+                    cx[slot] = sphere.getCenter().getX();
+                    cy[slot] = sphere.getCenter().getY();
+                    cz[slot] = sphere.getCenter().getZ();
+                    radius[slot] = sphere.getRadius();
+                    radiusSqr[slot] = sphere.getRadius() * sphere.getRadius();
+                }
+            }
+        }
+    }
+
+    /**
+     * the packed entities of the group, built lazily on the first query after a change
+     */
+    private volatile Packed packed;
+    /**
+     * the distances of the packed triangles and spheres from the head of the current ray of each thread
+     */
+    private final ThreadLocal<double[][]> distances = ThreadLocal.withInitial(() -> new double[2][0]);
+
+    /**
+     * Ctor that gets objects and adds them to the list of objects.
+     *
+     * @param geometries geometric entities.
+     */
+    public PackedGeometries(Intersectable... geometries) {
+        super(geometries);
+    }
+
+    @Override
+    public void add(Intersectable... geometries) {
+        super.add(geometries);
+        packed = null;//the entities would be packed again on the next query
+        boundary = calcBoundary();
+    }
+
+    /**
+     * calculates the boundary of all the entities of the group
+     *
+     * @return the boundary, null if the group is empty or one of its entities has no boundary
+     */
+    @Override
+    public int[][] calcBoundary() {
+        for (Intersectable entity : objects) {
+            if (entity.boundary == null) return null;
+        }
+        return objects.isEmpty() ? null : super.calcBoundary();
+    }
+
+    @Override
+    public List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+        Packed p = getPacked();
+        double[][] d = calcDistances(p, ray);
+        List<GeoPoint> intersections = new LinkedList<>();
+        for (int i = 0; i < p.entities.length; i++) {
+            int slot = p.slots[i];
+            if (slot != -1 && p.isTriangle[i]) {
+                double t = d[0][slot];
+                if (t > 0 && alignZero(t - maxDistance) <= 0)
+                    intersections.add(new GeoPoint(p.triangles[slot], ray.getPoint(t), t));
+                continue;
+            }
+            //a sphere may have two intersections, it's asked for them only if it's intersected
+            if (slot != -1 && d[1][slot] == 0) continue;
+            List<GeoPoint> returnList = p.entities[i].findGeoIntersections(ray, maxDistance);
+            if (returnList != null)
+                intersections.addAll(returnList);
+        }
+        return intersections.isEmpty() ? null : intersections;
+    }
+
+    @Override
+    public boolean findClosestHit(Ray ray, Hit hit) {
+        Packed p = getPacked();
+        double[][] d = calcDistances(p, ray);
+        boolean updated = false;
+        //the results are combined by the order of the entities, so equal distances are resolved as in a Geometries
+        for (int i = 0; i < p.entities.length; i++) {
+            int slot = p.slots[i];
+            if (slot == -1)
+                updated = p.entities[i].findClosestHit(ray, hit) || updated;
+            else if (p.isTriangle[i])
+                updated = hit.update(p.triangles[slot], d[0][slot]) || updated;
+            else
+                updated = hit.update(p.spheres[slot], d[1][slot]) || updated;
+        }
+        return updated;
+    }
+
+    @Override
+    protected Double3 occlusionHelper(Ray ray, double maxDistance, Double3 ktr, double threshold, Geometry[] blocker) {
+        Packed p = getPacked();
+        double[][] d = calcDistances(p, ray);
+        for (int i = 0; i < p.entities.length; i++) {
+            int slot = p.slots[i];
+            if (slot != -1 && p.isTriangle[i]) {
+                //a triangle has a single intersection, it passes its transparency if it's before the light
+                double t = d[0][slot];
+                if (t > 0 && alignZero(t - maxDistance) <= 0) {
+                    ktr = ktr.product(p.triangles[slot].getMaterial().kT);
+                    if (ktr.lowerThan(threshold)) return p.triangles[slot].blocked(blocker);
+                }
+            } else {
+                //a sphere that isn't intersected before the light doesn't change the transparency
+                double t = slot == -1 ? 1 : d[1][slot];
+                if (slot != -1 && (t == 0 || alignZero(t - maxDistance) > 0)) continue;
+                ktr = p.entities[i].occlusionHelper(ray, maxDistance, ktr, threshold, blocker);
+            }
+            if (ktr.lowerThan(threshold)) return Double3.ZERO;
+        }
+        return ktr;
+    }
+
+    /**
+     * calculates the distances of all the packed triangles and spheres from the head of a ray
+     *
+     * @param p   the packed entities
+     * @param ray the ray
+     * @return the distances of the triangles and of the spheres (the closest intersection in front of the ray head),
+     * 0 for an entity that isn't intersected. The arrays belong to the thread and are reused by its next query
+     */
+    private double[][] calcDistances(Packed p, Ray ray) {
+        double[][] d = distances.get();
+        if (d[0].length < p.triangles.length) d[0] = new double[p.triangles.length];
+        if (d[1].length < p.spheres.length) d[1] = new double[p.spheres.length];
+        Point p0 = ray.getP0();
+        Vector dir = ray.getDir();
+        double ox = p0.getX(), oy = p0.getY(), oz = p0.getZ();
+        double dx = dir.getX(), dy = dir.getY(), dz = dir.getZ();
+        triangleDistances(p, ox, oy, oz, dx, dy, dz, d[0]);
+        sphereDistances(p, ox, oy, oz, dx, dy, dz, d[1]);
+        return d;
+    }
+
+    /**
+     * Calculates the distances of all the triangles by the algorithm of Moller and Trumbore,
+     * the same calculation as {@link Triangle#intersectionDistance(Ray, double[])} for all of them in one loop
+     * over the packed arrays.
+     *
+     * @param p         the packed entities
+     * @param ox        the X coordinate of the ray head
+     * @param oy        the Y coordinate of the ray head
+     * @param oz        the Z coordinate of the ray head
+     * @param dx        the X coordinate of the ray direction
+     * @param dy        the Y coordinate of the ray direction
+     * @param dz        the Z coordinate of the ray direction
+     * @param distances the array to fill with the distances
+     */
+    private static void triangleDistances(Packed p, double ox, double oy, double oz, double dx, double dy, double dz,
+                                          double[] distances) {
+        double[] ax = p.ax, ay = p.ay, az = p.az;
+        double[] e1x = p.e1x, e1y = p.e1y, e1z = p.e1z;
+        double[] e2x = p.e2x, e2y = p.e2y, e2z = p.e2z;
+        double[] inverseArea = p.inverseArea;
+        int start = KERNEL != null ? KERNEL.triangleDistances(ox, oy, oz, dx, dy, dz,
+                ax, ay, az, e1x, e1y, e1z, e2x, e2y, e2z, inverseArea, distances) : 0;
+        //the triangles that don't fill a whole vector (all of them without the vector API)
+        for (int i = start; i < ax.length; i++)
+            distances[i] = GeometryUtil.triangleDistance(ox, oy, oz, dx, dy, dz, ax[i], ay[i], az[i],
+                    e1x[i], e1y[i], e1z[i], e2x[i], e2y[i], e2z[i], inverseArea[i], null);
+    }
+
+    /**
+     * Calculates the distances of all the spheres (the closest intersection in front of the ray head),
+     * the same calculation as {@link Sphere#findClosestHit(Ray, Hit)} for all of them in one loop.
+     *
+     * @param p         the packed entities
+     * @param ox        the X coordinate of the ray head
+     * @param oy        the Y coordinate of the ray head
+     * @param oz        the Z coordinate of the ray head
+     * @param dx        the X coordinate of the ray direction
+     * @param dy        the Y coordinate of the ray direction
+     * @param dz        the Z coordinate of the ray direction
+     * @param distances the array to fill with the distances
+     */
+    private static void sphereDistances(Packed p, double ox, double oy, double oz, double dx, double dy, double dz,
+                                        double[] distances) {
+        double[] cx = p.cx, cy = p.cy, cz = p.cz;
+        double[] radius = p.radius, radiusSqr = p.radiusSqr;
+        int start = KERNEL != null ? KERNEL.sphereDistances(ox, oy, oz, dx, dy, dz,
+                cx, cy, cz, radius, radiusSqr, distances) : 0;
+        //the spheres that don't fill a whole vector (all of them without the vector API)
+        for (int i = start; i < cx.length; i++)
+            distances[i] = sphereDistance(ox, oy, oz, dx, dy, dz, cx[i], cy[i], cz[i], radius[i], radiusSqr[i]);
+    }
+
+    /**
+     * Calculates the distance of a sphere (the closest intersection in front of the ray head),
+     * the same calculation as {@link Sphere#findClosestHit(Ray, Hit)}.
+     * All the values are calculated and the tests are combined at the end, like in the SIMD lanes.
+     *
+     * @param ox        the X coordinate of the ray head
+     * @param oy        the Y coordinate of the ray head
+     * @param oz        the Z coordinate of the ray head
+     * @param dx        the X coordinate of the ray direction
+     * @param dy        the Y coordinate of the ray direction
+     * @param dz        the Z coordinate of the ray direction
+     * @param cx        the X coordinate of the center
+     * @param cy        the Y coordinate of the center
+     * @param cz        the Z coordinate of the center
+     * @param radius    the radius
+     * @param radiusSqr the squared radius
+     * @return the distance, 0 if the sphere isn't intersected
+     */
+    static double sphereDistance(double ox, double oy, double oz, double dx, double dy, double dz,
+                                 double cx, double cy, double cz, double radius, double radiusSqr) {
+        double ux = cx - ox, uy = cy - oy, uz = cz - oz;
+        double tm = alignZero((ux * dx) + (uy * dy) + (uz * dz));
+        double dSqr = ((ux * ux) + (uy * uy) + (uz * uz)) - tm * tm;
+        double thSqr = radiusSqr - dSqr;
+        double th = Math.sqrt(thSqr);
+        double t1 = alignZero(tm - th);
+        double t = t1 > 0 ? t1 : alignZero(tm + th);
+        //the ray head at the center of the sphere is a special case
+        boolean atCenter = isZero(ux) && isZero(uy) && isZero(uz);
+        return atCenter ? radius : alignZero(thSqr) > 0 && t > 0 ? t : 0;
+    }
+
+    /**
+     * returns the packed entities of the group, packs them if they weren't packed
+     *
+     * @return the packed entities
+     */
+    private Packed getPacked() {
+        Packed p = packed;
+        if (p == null) {
+            synchronized (this) {
+                p = packed;
+                if (p == null) {
+                    List<Intersectable> flat = new ArrayList<>();
+                    flatten(this, flat);
+                    p = new Packed(flat.toArray(new Intersectable[0]));
+                    packed = p;
+                }
+            }
+        }
+        return p;
+    }
+}
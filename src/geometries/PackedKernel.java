@@ -0,0 +1,82 @@
+package geometries;
+
+/**
+ * The loops of {@link PackedGeometries} over its packed arrays in SIMD lanes.
+ * The implementation uses the vector API of the incubator module jdk.incubator.vector, so it's kept in its own
+ * source root (src-vector) and loaded by reflection. Without the module (or without that source root)
+ * there is no kernel and the packed geometries use their scalar loops, with the same results.
+ * The loops handle only whole vectors, the remaining entities are left to the scalar loop.
+ */
+interface PackedKernel {
+    /**
+     * the name of the class of the SIMD implementation
+     */
+    String VECTOR_KERNEL = "geometries.VectorKernel";
+
+    /**
+     * loads the SIMD implementation if the vector API is available
+     * (the JVM runs with --add-modules jdk.incubator.vector and the implementation was compiled)
+     *
+     * @return the kernel, null if the loops should be scalar
+     */
+    static PackedKernel load() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty())
+            return null;
+        try {
+            return (PackedKernel) Class.forName(VECTOR_KERNEL).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * Calculates the distances of the triangles by the algorithm of Moller and Trumbore,
+     * the same calculation as {@link GeometryUtil#triangleDistance} for a vector of triangles at once.
+     *
+     * @param ox          the X coordinate of the ray head
+     * @param oy          the Y coordinate of the ray head
+     * @param oz          the Z coordinate of the ray head
+     * @param dx          the X coordinate of the ray direction
+     * @param dy          the Y coordinate of the ray direction
+     * @param dz          the Z coordinate of the ray direction
+     * @param ax          the X coordinates of the first vertices
+     * @param ay          the Y coordinates of the first vertices
+     * @param az          the Z coordinates of the first vertices
+     * @param e1x         the X coordinates of the first edges
+     * @param e1y         the Y coordinates of the first edges
+     * @param e1z         the Z coordinates of the first edges
+     * @param e2x         the X coordinates of the second edges
+     * @param e2y         the Y coordinates of the second edges
+     * @param e2z         the Z coordinates of the second edges
+     * @param inverseArea 1 / |e1 x e2| of each triangle
+     * @param distances   the array to fill with the distances
+     * @return the number of triangles that were calculated (from the start of the arrays)
+     */
+    int triangleDistances(double ox, double oy, double oz, double dx, double dy, double dz,
+                          double[] ax, double[] ay, double[] az,
+                          double[] e1x, double[] e1y, double[] e1z,
+                          double[] e2x, double[] e2y, double[] e2z,
+                          double[] inverseArea, double[] distances);
+
+    /**
+     * Calculates the distances of the spheres (the closest intersection in front of the ray head),
+     * the same calculation as {@link PackedGeometries#sphereDistance} for a vector of spheres at once.
+     *
+     * @param ox        the X coordinate of the ray head
+     * @param oy        the Y coordinate of the ray head
+     * @param oz        the Z coordinate of the ray head
+     * @param dx        the X coordinate of the ray direction
+     * @param dy        the Y coordinate of the ray direction
+     * @param dz        the Z coordinate of the ray direction
+     * @param cx        the X coordinates of the centers
+     * @param cy        the Y coordinates of the centers
+     * @param cz        the Z coordinates of the centers
+     * @param radius    the radiuses
+     * @param radiusSqr the squared radiuses
+     * @param distances the array to fill with the distances
+     * @return the number of spheres that were calculated (from the start of the arrays)
+     */
+    int sphereDistances(double ox, double oy, double oz, double dx, double dy, double dz,
+                        double[] cx, double[] cy, double[] cz, double[] radius, double[] radiusSqr,
+                        double[] distances);
+}
@@ -92,22 +92,44 @@ public class Plane extends Geometry {
 
     @Override
     public List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+        double t = intersectionDistance(ray);
+        return alignZero(t - maxDistance) > 0 || t <= 0 ? null
+                : List.of(new GeoPoint(this, ray.getPoint(t), t));
+    }
+
+    @Override
+    public boolean findClosestHit(Ray ray, Hit hit) {
+        return hit.update(this, intersectionDistance(ray));
+    }
+
+    @Override
+    protected int countIntersections(Ray ray, double maxDistance) {
+        double t = intersectionDistance(ray);
+        return t > 0 && alignZero(t - maxDistance) <= 0 ? 1 : 0;
+    }
+
+    /**
+     * calculates the distance along a ray to the plane
+     *
+     * @param ray the ray
+     * @return the ray parameter t of the intersection, 0 if the ray doesn't intersect the plane
+     */
+    double intersectionDistance(Ray ray) {
         double denominator = this.normal.dotProduct(ray.getDir());
         if (isZero(denominator))
-            return null; // ray parallel to the plane- the ray direction orthogonal to the normal
+            return 0; // ray parallel to the plane- the ray direction orthogonal to the normal
 
         Vector u;
         try {
             u = q0.subtract(ray.getP0());
         } catch (IllegalArgumentException ignore) {
             // the ray starts at the plane's reference point
-            return null;
+            return 0;
         }
 
-        double t = alignZero(this.normal.dotProduct(u) / denominator);
-        return alignZero(t - maxDistance) > 0 || t <= 0 ? null
-                : List.of(new GeoPoint(this, ray.getPoint(t)));
+        return alignZero(this.normal.dotProduct(u) / denominator);
     }
+
     @Override
     public int[][] calcBoundary() {//there is no boundary to infinite geometric entity
         return null;
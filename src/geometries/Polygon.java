@@ -1,7 +1,6 @@
 package geometries;
 
 
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
@@ -25,6 +24,14 @@ public class Polygon extends Geometry {
      */
     protected final Plane plane;
     private final int size;
+    //the normal of the plane
+    private final double nx, ny, nz;
+    /**
+     * for each edge- its first vertex and its normal in the plane of the polygon, pointing inside the polygon
+     * [x0,y0,z0,mx0,my0,mz0,x1,...], a quad has the normal of its diagonal (from the first vertex) after them,
+     * pointing towards the second vertex (null for subclasses with their own intersection)
+     */
+    private final double[] edges;
 
     /**
      * Polygon constructor based on vertices list. The list must be ordered by edge
@@ -48,6 +55,18 @@ public class Polygon extends Geometry {
      *                                  </ul>
      */
     public Polygon(Point... vertices) {
+        this(true, vertices);
+    }
+
+    /**
+     * Polygon constructor for subclasses, which may skip the in-plane normals of the edges when they
+     * intersect rays by themselves (and never use the intersection of the polygon)
+     *
+     * @param edgeNormals false to skip the calculation and the storage of the edges array
+     * @param vertices    list of vertices according to their order by edge path
+     * @throws IllegalArgumentException in any case of illegal combination of vertices (see above)
+     */
+    protected Polygon(boolean edgeNormals, Point... vertices) {
         size = vertices.length;
         if (size < 3)
             throw new IllegalArgumentException("A polygon can't have less than 3 vertices");
@@ -58,13 +77,26 @@ public class Polygon extends Geometry {
         // polygon with this plane.
         // The plane holds the invariant normal (orthogonal unit) vector to the polygon
         plane = new Plane(vertices[0], vertices[1], vertices[2]);
+        Vector n = plane.getNormal();
+        nx = n.getX();
+        ny = n.getY();
+        nz = n.getZ();
+        edges = edgeNormals ? new double[size == 4 ? 27 : 6 * size] : null;
+        for (int i = 0; edgeNormals && i < size; i++) {
+            Point vertex = vertices[i];
+            edges[6 * i] = vertex.getX();
+            edges[6 * i + 1] = vertex.getY();
+            edges[6 * i + 2] = vertex.getZ();
+            //the vertex after the next one is inside the polygon, on the inner side of the edge
+            inPlaneNormal(n, vertex, vertices[(i + 1) % size], vertices[(i + 2) % size], 6 * i + 3);
+        }
+        if (edgeNormals && size == 4)
+            inPlaneNormal(n, vertices[0], vertices[2], vertices[1], 24);
         if (size == 3) {
             this.boundary = calcBoundary();
             return; // no need for more tests for a Triangle
         }
 
-        Vector n = plane.getNormal();
-
         // Subtracting any subsequent points will throw an IllegalArgumentException
         // because of Zero Vector if they are in the same point
         Vector edge1 = vertices[vertices.length - 1].subtract(vertices[vertices.length - 2]);
@@ -94,6 +126,29 @@ public class Polygon extends Geometry {
     }
 
 
+    /**
+     * calculates the normal of a line in the plane of the polygon and keeps it in the edges array
+     *
+     * @param n      the normal of the plane
+     * @param from   the first point of the line
+     * @param to     the second point of the line
+     * @param inside a point on the side of the line the normal should point to
+     * @param offset the offset of the normal in the edges array
+     */
+    private void inPlaneNormal(Vector n, Point from, Point to, Point inside, int offset) {
+        Vector m;
+        try {
+            m = n.crossProduct(to.subtract(from)).normalize();
+        } catch (IllegalArgumentException ignore) {
+            return;//consequent vertices in the same point, the constructor rejects the polygon
+        }
+        if (inside.subtract(from).dotProduct(m) < 0)
+            m = m.scale(-1);
+        edges[offset] = m.getX();
+        edges[offset + 1] = m.getY();
+        edges[offset + 2] = m.getZ();
+    }
+
     @Override
     public Vector getNormal(Point point) {
         return plane.getNormal();
@@ -101,50 +156,82 @@ public class Polygon extends Geometry {
 
 
     public List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
-        List<GeoPoint> intersection = this.plane.findGeoIntersections(ray, maxDistance);
-        if (intersection == null)//checks if there is an intersection with the plane of the polygon
+        double t = intersectionDistance(ray);
+        //checks if there is an intersection with the plane of the polygon, and if it's inside the polygon
+        if (t <= 0 || alignZero(t - maxDistance) > 0 || !isInside(ray, t))
             return null;
+        return List.of(new GeoPoint(this, ray.getPoint(t), t));
+    }
+
+    @Override
+    public boolean findClosestHit(Ray ray, Hit hit) {
+        double t = intersectionDistance(ray);
+        //the inside test is done only if the intersection with the plane is closer than the record
+        return hit.isCloser(t) && isInside(ray, t) && hit.update(this, t);
+    }
+
+    @Override
+    protected int countIntersections(Ray ray, double maxDistance) {
+        double t = intersectionDistance(ray);
+        return t > 0 && alignZero(t - maxDistance) <= 0 && isInside(ray, t) ? 1 : 0;
+    }
 
-        List<GeoPoint> geoIntersection = new LinkedList<>();
-        for (var geoPoint : intersection)
-            geoIntersection.add(new GeoPoint(this, geoPoint.point));
-        //we will check if the point is inside or outside the polygon
+    /**
+     * calculates the distance along a ray to the plane of the polygon (the same calculation as in the plane,
+     * on the numbers of the normal and the first vertex)
+     *
+     * @param ray the ray
+     * @return the ray parameter t of the intersection, 0 if the ray doesn't intersect the plane
+     */
+    private double intersectionDistance(Ray ray) {
         Point p0 = ray.getP0();
-        Vector v = ray.getDir();
-        //V(i)= vertices[i]-p0
-        List<Vector> listVi = vertices.stream().map(p -> p.subtract(p0)).toList();
-        //N(i)= Normalize(V(i)*V(i+1))
-        List<Vector> listNi = new LinkedList<>();
-        //can't use map since I need to reach the i and i+1 (don't know how to do it)
-        //also can't use for each for the same reason
-        int i = 0;
-        for (; i < size - 1; i++) {
-            listNi.add(listVi.get(i).crossProduct(listVi.get(i + 1).normalize()));
-        }
-        listNi.add((listVi.get(i).crossProduct(listVi.get(0))).normalize());//cross product the last and the first vectors
-        //Sign(i)= v*N(i)
-        double sign = v.dotProduct(listNi.get(0));
-        int counter = 1;
-        while (sign > 0)//all signs must be positive from now on in order the point to be inside the polygon
-        {
-            if (counter == size)//all signs are positive
-                return geoIntersection;
-            sign = v.dotProduct(listNi.get(counter));
-            if (!(sign > 0))//if the sign is not positive
-                return null;//not all signs are positive therefore no intersection
-            counter++;
+        Vector dir = ray.getDir();
+        double denominator = (nx * dir.getX()) + (ny * dir.getY()) + (nz * dir.getZ());
+        if (isZero(denominator))
+            return 0; // ray parallel to the plane- the ray direction orthogonal to the normal
+        double ux = edges[0] - p0.getX(), uy = edges[1] - p0.getY(), uz = edges[2] - p0.getZ();
+        return alignZero(((nx * ux) + (ny * uy) + (nz * uz)) / denominator);
+    }
+
+    /**
+     * checks if the intersection of a ray with the plane of the polygon is inside the polygon
+     *
+     * @param ray the ray
+     * @param t   the ray parameter of the intersection with the plane
+     * @return true if the intersection point is inside the polygon (not on its edges)
+     */
+    private boolean isInside(Ray ray, double t) {
+        Point p0 = ray.getP0();
+        Vector dir = ray.getDir();
+        double x = p0.getX() + t * dir.getX();
+        double y = p0.getY() + t * dir.getY();
+        double z = p0.getZ() + t * dir.getZ();
+        if (size == 4) {
+            //a quad is divided by its diagonal from the first vertex to two triangles,
+            //the point is tested only against the two edges of the triangle on its side of the diagonal
+            //(the diagonal itself is inside the quad)
+            double diagonal = (x - edges[0]) * edges[24] + (y - edges[1]) * edges[25] + (z - edges[2]) * edges[26];
+            return diagonal >= 0 ? side(0, x, y, z) && side(1, x, y, z) : side(2, x, y, z) && side(3, x, y, z);
         }
-        while (sign < 0)//all signs must be negative from now on in order the point to be inside the polygon
-        {
-            if (counter == size)//all signs are negative
-                return geoIntersection;
-            sign = v.dotProduct(listNi.get(counter));
-            if (!(sign < 0))//if the sign is not negative
-                return null;//not all signs are negative therefore no intersection
-            counter++;
+        for (int i = 0; i < size; i++) {
+            if (!side(i, x, y, z)) return false;
         }
-        return null;//if the first sign is zero
+        return true;
+    }
 
+    /**
+     * checks if a point in the plane of the polygon is on the inner side of an edge
+     *
+     * @param i the index of the edge (from vertex i to the next vertex)
+     * @param x the x coordinate of the point
+     * @param y the y coordinate of the point
+     * @param z the z coordinate of the point
+     * @return true if the point is on the inner side of the edge, false if it's on the edge or outside
+     */
+    private boolean side(int i, double x, double y, double z) {
+        int e = 6 * i;
+        return alignZero((x - edges[e]) * edges[e + 3] + (y - edges[e + 1]) * edges[e + 4]
+                + (z - edges[e + 2]) * edges[e + 5]) > 0;
     }
 
     @Override
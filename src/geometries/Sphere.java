@@ -7,6 +7,7 @@ import java.util.Map;
 
 import static java.lang.Math.*;
 import static primitives.Util.alignZero;
+import static primitives.Util.isZero;
 
 /**
  * class that represents a sphere and implements the interface Geometry
@@ -66,11 +67,38 @@ public class Sphere extends Geometry {
 
     @Override
     public List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
-        Vector vec;
-        try {
-            vec = this.center.subtract(ray.getP0());
-        } catch (IllegalArgumentException ignore) {
-            return alignZero(radius - maxDistance) > 0 ? null : List.of(new GeoPoint(this, ray.getPoint(this.radius)));
+        double[] distances = new double[2];
+        int count = distances(ray, maxDistance, distances);
+        if (count == 0) return null;
+        return count == 1 ? List.of(new GeoPoint(this, ray.getPoint(distances[0]), distances[0]))
+                : List.of(new GeoPoint(this, ray.getPoint(distances[0]), distances[0]),
+                new GeoPoint(this, ray.getPoint(distances[1]), distances[1]));
+    }
+
+    @Override
+    protected int countIntersections(Ray ray, double maxDistance) {
+        return distances(ray, maxDistance, null);
+    }
+
+    /**
+     * calculates the distances along a ray to the sphere within a given distance
+     *
+     * @param ray         the ray
+     * @param maxDistance the maximal distance to find intersections
+     * @param distances   array to fill with the ray parameters of the intersections, from the nearest to the
+     *                    farthest (may be null when only the number of intersections is needed)
+     * @return the number of intersections (0, 1 or 2)
+     */
+    private int distances(Ray ray, double maxDistance, double[] distances) {
+        //the vector from the ray head to the center, in local coordinates
+        Point head = ray.getP0();
+        double x = center.getX() - head.getX();
+        double y = center.getY() - head.getY();
+        double z = center.getZ() - head.getZ();
+        if (isZero(x) && isZero(y) && isZero(z)) {
+            if (alignZero(radius - maxDistance) > 0) return 0;
+            if (distances != null) distances[0] = this.radius;
+            return 1;
         }
 
         // Here we calculate the projection of the vector formed by the center of the
@@ -78,21 +106,54 @@ public class Sphere extends Geometry {
         // and the projection and the distance between the projection to the intersections points.
         // The idea is that the projection is the middle of the two intersection points
         // so all we have to do is to add and subtract the distance to the intersection points
-        double tm = alignZero(vec.dotProduct(ray.getDir()));
-        double dSqr = vec.lengthSquared() - tm * tm;
+        Vector dir = ray.getDir();
+        double tm = alignZero((x * dir.getX()) + (y * dir.getY()) + (z * dir.getZ()));
+        double dSqr = (x * x) + (y * y) + (z * z) - tm * tm;
         double thSqr = this.radiusSqr - dSqr;
-        // If the ray is tangent to the sphere or doesn't intersect the sphere at all return null
-        if (alignZero(thSqr) <= 0) return null;
+        // If the ray is tangent to the sphere or doesn't intersect the sphere at all there are no intersections
+        if (alignZero(thSqr) <= 0) return 0;
 
         double th = sqrt(thSqr);
         double t2 = alignZero(tm + th);
-        if (t2 <= 0) return null;
+        if (t2 <= 0) return 0;
         double t1 = alignZero(tm - th);
-        if (t1 - maxDistance > 0) return null;
+        if (t1 - maxDistance > 0) return 0;
         // If only one is greater than 0 then the ray intersects the sphere only once
-        if (t2 - maxDistance > 0)
-            return t1 <= 0 ? null : List.of(new GeoPoint(this, ray.getPoint(t1)));
-        return t1 <= 0 ? List.of(new GeoPoint(this, ray.getPoint(t2))) : List.of(new GeoPoint(this, ray.getPoint(t1)), new GeoPoint(this, ray.getPoint(t2)));
+        if (t2 - maxDistance > 0) {
+            if (t1 <= 0) return 0;
+            if (distances != null) distances[0] = t1;
+            return 1;
+        }
+        if (t1 <= 0) {
+            if (distances != null) distances[0] = t2;
+            return 1;
+        }
+        if (distances != null) {
+            distances[0] = t1;
+            distances[1] = t2;
+        }
+        return 2;
+    }
+
+    @Override
+    public boolean findClosestHit(Ray ray, Hit hit) {
+        Point head = ray.getP0();
+        double x = center.getX() - head.getX();
+        double y = center.getY() - head.getY();
+        double z = center.getZ() - head.getZ();
+        if (isZero(x) && isZero(y) && isZero(z))
+            return hit.update(this, this.radius);
+
+        //the same calculation as in findGeoIntersectionsHelper, but only the closest point in front of the ray head
+        Vector dir = ray.getDir();
+        double tm = alignZero((x * dir.getX()) + (y * dir.getY()) + (z * dir.getZ()));
+        double dSqr = (x * x) + (y * y) + (z * z) - tm * tm;
+        double thSqr = this.radiusSqr - dSqr;
+        if (alignZero(thSqr) <= 0) return false;
+
+        double th = sqrt(thSqr);
+        double t1 = alignZero(tm - th);
+        return hit.update(this, t1 > 0 ? t1 : alignZero(tm + th));
     }
 
     @Override
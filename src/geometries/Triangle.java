@@ -1,27 +1,48 @@
 package geometries;
 
-import primitives.Color;
 import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
 
 import java.util.List;
-import java.util.Map;
 
 import static primitives.Util.alignZero;
 
 /**
- * Class that represents a triangle and extends the class polygon
+ * Class that represents a triangle and extends the class polygon.
+ * The intersection is found by the algorithm of Moller and Trumbore: the distance and the barycentric
+ * coordinates of the intersection are calculated together from the edges of the triangle,
+ * which are kept as numbers, so no plane intersection, vectors or normalizations are needed.
  */
 public class Triangle extends Polygon {
+    //the first vertex and the edges from it to the other vertices
+    private final double ax, ay, az;
+    private final double e1x, e1y, e1z;
+    private final double e2x, e2y, e2z;
+    //1 / |e1 x e2|, so the parallel test is done on the angle between the ray and the plane
+    private final double inverseArea;
+
     /**
      * Triangle constructor
      *
      * @param vertices the vertices of the triangle
      */
     public Triangle(Point... vertices) {
-        super(vertices);
+        //the triangle has its own intersection, so the edge normals of the polygon aren't needed
+        super(false, vertices);
         this.boundary = super.calcBoundary();
+        Point a = vertices[0], b = vertices[1], c = vertices[2];
+        ax = a.getX();
+        ay = a.getY();
+        az = a.getZ();
+        e1x = b.getX() - ax;
+        e1y = b.getY() - ay;
+        e1z = b.getZ() - az;
+        e2x = c.getX() - ax;
+        e2y = c.getY() - ay;
+        e2z = c.getZ() - az;
+        double nx = e1y * e2z - e1z * e2y, ny = e1z * e2x - e1x * e2z, nz = e1x * e2y - e1y * e2x;
+        inverseArea = 1 / Math.sqrt(nx * nx + ny * ny + nz * nz);
     }
 
     @Override
@@ -34,30 +55,36 @@ public class Triangle extends Polygon {
 
     @Override
     public List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
-        var intersections = this.plane.findGeoIntersections(ray, maxDistance);
-        if (intersections == null)//checks if there is an intersection with the plane of the triangle
+        double t = intersectionDistance(ray, null);
+        if (t <= 0 || alignZero(t - maxDistance) > 0)
             return null;
+        return List.of(new GeoPoint(this, ray.getPoint(t), t));
+    }
+
+    @Override
+    public boolean findClosestHit(Ray ray, Hit hit) {
+        return hit.update(this, intersectionDistance(ray, null));
+    }
+
+    @Override
+    protected int countIntersections(Ray ray, double maxDistance) {
+        double t = intersectionDistance(ray, null);
+        return t > 0 && alignZero(t - maxDistance) <= 0 ? 1 : 0;
+    }
 
+    /**
+     * Calculates the distance along a ray to the triangle (the algorithm of Moller and Trumbore).
+     * Like in a polygon, the edges and the vertices of the triangle aren't intersections.
+     *
+     * @param ray         the ray
+     * @param barycentric array of 3 cells to fill with the barycentric coordinates of the intersection
+     *                    (the weights of the vertices by their order), may be null
+     * @return the ray parameter t of the intersection, 0 if the ray doesn't intersect the triangle
+     */
+    public double intersectionDistance(Ray ray, double[] barycentric) {
         Point p0 = ray.getP0();
         Vector dir = ray.getDir();
-        //we will check if the point is inside or outside the triangle
-        Vector v1 = this.vertices.get(0).subtract(p0);
-        Vector v2 = this.vertices.get(1).subtract(p0);
-        Vector n1 = (v1.crossProduct(v2)).normalize();
-        double sign1 = alignZero(dir.dotProduct(n1));
-        if (sign1 == 0) return null;
-
-        Vector v3 = this.vertices.get(2).subtract(p0);
-        Vector n2 = (v2.crossProduct(v3)).normalize();
-        double sign2 = alignZero(dir.dotProduct(n2));
-        if (sign1 * sign2 <= 0) return null;
-
-        Vector n3 = (v3.crossProduct(v1)).normalize();
-        double sign3 = alignZero(dir.dotProduct(n3));
-        if (sign1 * sign3 <= 0) return null;
-
-        //if all signs are equal (+/-) the point is inside the triangle
-        return List.of(new GeoPoint(this, intersections.get(0).point));
+        return GeometryUtil.triangleDistance(p0.getX(), p0.getY(), p0.getZ(), dir.getX(), dir.getY(), dir.getZ(),
+                ax, ay, az, e1x, e1y, e1z, e2x, e2y, e2z, inverseArea, barycentric);
     }
-
 }
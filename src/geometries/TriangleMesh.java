@@ -0,0 +1,572 @@
+package geometries;
+
+import primitives.*;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import static geometries.GeometryUtil.*;
+import static primitives.Util.alignZero;
+import static primitives.Util.isZero;
+
+/**
+ * Class that represents a mesh of triangles that share their vertices.
+ * The coordinates of all the vertices are kept in one flat array [x0,y0,z0,x1,y1,z1,...],
+ * and each face is three indexes of vertices in one flat array of faces,
+ * so a triangle costs a few numbers instead of a {@link Triangle} with its points, vectors and plane.
+ * The mesh has its own bounding volume hierarchy over the faces, kept in flat arrays as well,
+ * so it's a single entity for the voxel grid and for the BVH of the scene.
+ * The intersections of the mesh are reported on a light {@link Face} of the intersected face,
+ * that gives the normal and the material of that face.
+ */
+public class TriangleMesh extends Geometry {
+    /**
+     * the maximal depth of the hierarchy (the size of the traversal stack)
+     */
+    private static final int MAX_DEPTH = 64;
+
+    /**
+     * the coordinates of the vertices [x0,y0,z0,x1,y1,z1,...]
+     */
+    private final double[] vertices;
+    /**
+     * the indexes of the vertices of the faces [a0,b0,c0,a1,b1,c1,...]
+     */
+    private final int[] faces;
+    /**
+     * the materials of the faces (null if all the faces have the material of the mesh)
+     */
+    private Material[] materials;
+    /**
+     * the index of the material of each face in the materials array
+     */
+    private int[] faceMaterials;
+
+    /**
+     * the boxes of the nodes of the hierarchy, 6 values per node [minX,maxX,minY,maxY,minZ,maxZ]
+     */
+    private double[] nodeBoxes;
+    /**
+     * for a leaf- the start of its faces in the order array, for an inner node- the index of its left child
+     * (the right child follows it)
+     */
+    private int[] nodeStart;
+    /**
+     * the number of faces of each node, 0 for an inner node
+     */
+    private int[] nodeCount;
+    /**
+     * the faces sorted by the leaves of the hierarchy
+     */
+    private int[] order;
+    /**
+     * the number of nodes in the hierarchy
+     */
+    private int nodes;
+
+    /**
+     * Class that represents a single face of a mesh, it holds only the mesh and the index of the face.
+     * It is created for the intersections of the mesh, so the ray tracer could get the normal and the material
+     * of the intersected face.
+     */
+    public static class Face extends Geometry {
+        /**
+         * the mesh of the face
+         */
+        private final TriangleMesh mesh;
+        /**
+         * the index of the face in the mesh
+         */
+        private final int index;
+
+        /**
+         * Face constructor
+         *
+         * @param mesh  the mesh of the face
+         * @param index the index of the face in the mesh
+         */
+        private Face(TriangleMesh mesh, int index) {
+            this.mesh = mesh;
+            this.index = index;
+        }
+
+        /**
+         * mesh getter
+         *
+         * @return the mesh of the face
+         */
+        public TriangleMesh getMesh() {
+            return mesh;
+        }
+
+        /**
+         * index getter
+         *
+         * @return the index of the face in the mesh
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        @Override
+        public Color getEmission() {
+            return mesh.getEmission();
+        }
+
+        @Override
+        public Material getMaterial() {
+            return mesh.getFaceMaterial(index);
+        }
+
+        @Override
+        public Vector getNormal(Point pnt) {
+            return mesh.faceNormal(index);
+        }
+
+        @Override
+        protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+            double t = mesh.intersect(index, coordinates(ray.getP0()), coordinates(ray.getDir()));
+            return t > 0 && alignZero(t - maxDistance) <= 0 ? List.of(new GeoPoint(this, ray.getPoint(t), t)) : null;
+        }
+
+        @Override
+        public boolean findClosestHit(Ray ray, Hit hit) {
+            return hit.update(this, mesh.intersect(index, coordinates(ray.getP0()), coordinates(ray.getDir())));
+        }
+
+        @Override
+        protected int countIntersections(Ray ray, double maxDistance) {
+            double t = mesh.intersect(index, coordinates(ray.getP0()), coordinates(ray.getDir()));
+            return t > 0 && alignZero(t - maxDistance) <= 0 ? 1 : 0;
+        }
+
+        @Override
+        protected int[][] calcBoundary() {
+            double[] box = mesh.faceBox(index);
+            return new int[][]{{(int) Math.floor(box[0]), (int) Math.ceil(box[1])},
+                    {(int) Math.floor(box[2]), (int) Math.ceil(box[3])},
+                    {(int) Math.floor(box[4]), (int) Math.ceil(box[5])}};
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            return obj instanceof Face other && this.mesh == other.mesh && this.index == other.index;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(mesh) * 31 + index;
+        }
+
+        @Override
+        public String toString() {
+            return "Face{" +
+                    "index=" + index +
+                    '}';
+        }
+    }
+
+    /**
+     * TriangleMesh constructor
+     *
+     * @param vertices the coordinates of the vertices [x0,y0,z0,x1,y1,z1,...]
+     * @param faces    the indexes of the vertices of the faces [a0,b0,c0,a1,b1,c1,...]
+     * @throws IllegalArgumentException if the mesh has no faces, the arrays aren't made of triples
+     *                                  or a face refers to a missing vertex
+     */
+    public TriangleMesh(double[] vertices, int[] faces) {
+        if (vertices.length % 3 != 0)
+            throw new IllegalArgumentException("Each vertex must have three coordinates");
+        if (faces.length == 0)
+            throw new IllegalArgumentException("A mesh must have at least one face");
+        if (faces.length % 3 != 0)
+            throw new IllegalArgumentException("Each face must have three vertices");
+        int vertexCount = vertices.length / 3;
+        for (int index : faces) {
+            if (index < 0 || index >= vertexCount)
+                throw new IllegalArgumentException("A face refers to a vertex that doesn't exist");
+        }
+        this.vertices = vertices;
+        this.faces = faces;
+        buildHierarchy();
+        this.boundary = calcBoundary();
+    }
+
+    /**
+     * sets a material to each face of the mesh
+     *
+     * @param materials     the materials of the faces
+     * @param faceMaterials the index of the material of each face in the materials array
+     * @return the object itself
+     * @throws IllegalArgumentException if there isn't an index for each face or an index is out of the materials array
+     */
+    public TriangleMesh setFaceMaterials(Material[] materials, int[] faceMaterials) {
+        if (faceMaterials.length != getFaceCount())
+            throw new IllegalArgumentException("There must be a material index for each face");
+        for (int index : faceMaterials) {
+            if (index < 0 || index >= materials.length)
+                throw new IllegalArgumentException("A face refers to a material that doesn't exist");
+        }
+        this.materials = materials;
+        this.faceMaterials = faceMaterials;
+        return this;
+    }
+
+    /**
+     * returns the number of faces of the mesh
+     *
+     * @return the number of faces
+     */
+    public int getFaceCount() {
+        return faces.length / 3;
+    }
+
+    /**
+     * returns the number of vertices of the mesh
+     *
+     * @return the number of vertices
+     */
+    public int getVertexCount() {
+        return vertices.length / 3;
+    }
+
+    /**
+     * returns the material of a face
+     *
+     * @param face the index of the face
+     * @return the material of the face (the material of the mesh if no materials were set to the faces)
+     */
+    public Material getFaceMaterial(int face) {
+        return materials == null ? getMaterial() : materials[faceMaterials[face]];
+    }
+
+    /**
+     * returns a face of the mesh as a geometry
+     *
+     * @param face the index of the face
+     * @return the face
+     */
+    public Face getFace(int face) {
+        return new Face(this, face);
+    }
+
+    /**
+     * Returns the normal of the face that the point lays on.
+     * The intersections of the mesh are reported on its faces, so the normal is usually taken from the face,
+     * this method searches the face of the point in the hierarchy- only the faces of the leaves whose boxes
+     * contain the point are tested.
+     *
+     * @param pnt point on the mesh
+     * @return normal at the point
+     * @throws IllegalArgumentException if the point isn't on the mesh
+     */
+    @Override
+    public Vector getNormal(Point pnt) {
+        double[] p = coordinates(pnt);
+        int[] stack = new int[MAX_DEPTH];
+        int size = 0;
+        stack[size++] = 0;
+        while (size > 0) {
+            int node = stack[--size];
+            if (!boxContains(6 * node, p)) continue;
+            if (nodeCount[node] == 0) {
+                stack[size++] = nodeStart[node];
+                stack[size++] = nodeStart[node] + 1;
+                continue;
+            }
+            for (int i = nodeStart[node]; i < nodeStart[node] + nodeCount[node]; i++) {
+                if (contains(order[i], p))
+                    return faceNormal(order[i]);
+            }
+        }
+        throw new IllegalArgumentException("The point isn't on the mesh");
+    }
+
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+        double[] origin = coordinates(ray.getP0());
+        double[] dir = coordinates(ray.getDir());
+        List<GeoPoint> intersections = new LinkedList<>();
+        int[] stack = new int[MAX_DEPTH];
+        int size = 0;
+        stack[size++] = 0;
+        while (size > 0) {
+            int node = stack[--size];
+            if (!reaches(entry(nodeBoxes, 6 * node, origin, dir), maxDistance)) continue;
+            if (nodeCount[node] == 0) {
+                stack[size++] = nodeStart[node];
+                stack[size++] = nodeStart[node] + 1;
+                continue;
+            }
+            for (int i = nodeStart[node]; i < nodeStart[node] + nodeCount[node]; i++) {
+                double t = intersect(order[i], origin, dir);
+                if (t > 0 && alignZero(t - maxDistance) <= 0)
+                    intersections.add(new GeoPoint(new Face(this, order[i]), ray.getPoint(t), t));
+            }
+        }
+        return intersections.isEmpty() ? null : intersections;
+    }
+
+    /**
+     * Updates a hit record by the closest intersection of a ray with the faces of the mesh.
+     * The nodes are visited from the nearest to the farthest, and a node that starts
+     * further than the closest intersection found so far is skipped.
+     * The record holds the {@link Face} of the closest intersection.
+     *
+     * @param ray the ray that intersect with the geometric entity.
+     * @param hit the record of the closest intersection found so far.
+     * @return true if the record was updated.
+     */
+    @Override
+    public boolean findClosestHit(Ray ray, Hit hit) {
+        double[] origin = coordinates(ray.getP0());
+        double[] dir = coordinates(ray.getDir());
+        int closest = -1;
+        double closestT = 0;
+        int[] stack = new int[MAX_DEPTH];
+        int size = 0;
+        if (reaches(entry(nodeBoxes, 0, origin, dir), hit.getMaxDistance()))
+            stack[size++] = 0;
+        while (size > 0) {
+            int node = stack[--size];
+            double limit = Math.min(hit.getMaxDistance(), closest == -1 ? hit.getT() : closestT);
+            if (!reaches(entry(nodeBoxes, 6 * node, origin, dir), limit)) continue;
+            if (nodeCount[node] == 0) {
+                int left = nodeStart[node];
+                double tLeft = entry(nodeBoxes, 6 * left, origin, dir);
+                double tRight = entry(nodeBoxes, 6 * (left + 1), origin, dir);
+                //push the farther child first, so the nearer one is visited first
+                if (tLeft <= tRight) {
+                    if (reaches(tRight, limit)) stack[size++] = left + 1;
+                    if (reaches(tLeft, limit)) stack[size++] = left;
+                } else {
+                    if (reaches(tLeft, limit)) stack[size++] = left;
+                    if (reaches(tRight, limit)) stack[size++] = left + 1;
+                }
+                continue;
+            }
+            for (int i = nodeStart[node]; i < nodeStart[node] + nodeCount[node]; i++) {
+                double t = intersect(order[i], origin, dir);
+                //the face is created only once, for the closest intersection
+                if ((closest == -1 ? hit.isCloser(t) : t > 0 && t < closestT)) {
+                    closest = order[i];
+                    closestT = t;
+                }
+            }
+        }
+        return closest != -1 && hit.update(new Face(this, closest), closestT);
+    }
+
+    @Override
+    protected Double3 occlusionHelper(Ray ray, double maxDistance, Double3 ktr, double threshold, Geometry[] blocker) {
+        double[] origin = coordinates(ray.getP0());
+        double[] dir = coordinates(ray.getDir());
+        int[] stack = new int[MAX_DEPTH];
+        int size = 0;
+        stack[size++] = 0;
+        while (size > 0) {
+            int node = stack[--size];
+            if (!reaches(entry(nodeBoxes, 6 * node, origin, dir), maxDistance)) continue;
+            if (nodeCount[node] == 0) {
+                stack[size++] = nodeStart[node];
+                stack[size++] = nodeStart[node] + 1;
+                continue;
+            }
+            for (int i = nodeStart[node]; i < nodeStart[node] + nodeCount[node]; i++) {
+                double t = intersect(order[i], origin, dir);
+                if (t > 0 && alignZero(t - maxDistance) <= 0) {
+                    ktr = ktr.product(getFaceMaterial(order[i]).kT);
+                    //the face is created only for the one that blocks the light
+                    if (ktr.lowerThan(threshold)) return new Face(this, order[i]).blocked(blocker);
+                }
+            }
+        }
+        return ktr;
+    }
+
+    @Override
+    protected int[][] calcBoundary() {
+        double[] box = emptyBox();
+        for (int face = 0; face < getFaceCount(); face++) {
+            unite(box, faceBox(face));
+        }
+        return new int[][]{{(int) Math.floor(box[0]), (int) Math.ceil(box[1])},
+                {(int) Math.floor(box[2]), (int) Math.ceil(box[3])},
+                {(int) Math.floor(box[4]), (int) Math.ceil(box[5])}};
+    }
+
+    /**
+     * finds the intersection of a ray with a face (the algorithm of Moller and Trumbore)
+     *
+     * @param face   the index of the face
+     * @param origin coordinates of the ray head
+     * @param dir    coordinates of the ray direction
+     * @return the distance of the intersection from the head of the ray, 0 if there is no intersection
+     * (like a triangle, the edges and the vertices of a face aren't intersections)
+     */
+    private double intersect(int face, double[] origin, double[] dir) {
+        int a = 3 * faces[3 * face], b = 3 * faces[3 * face + 1], c = 3 * faces[3 * face + 2];
+        double ax = vertices[a], ay = vertices[a + 1], az = vertices[a + 2];
+        return triangleDistance(origin[0], origin[1], origin[2], dir[0], dir[1], dir[2], ax, ay, az,
+                vertices[b] - ax, vertices[b + 1] - ay, vertices[b + 2] - az,
+                vertices[c] - ax, vertices[c + 1] - ay, vertices[c + 2] - az, 1, null);
+    }
+
+    /**
+     * checks if a point is in the box of a node of the hierarchy
+     *
+     * @param offset the offset of the box in the node boxes array
+     * @param p      coordinates of the point
+     * @return true if the point is in the box (the boxes are padded, so a point on a face is in the box)
+     */
+    private boolean boxContains(int offset, double[] p) {
+        for (int axis = 0; axis < 3; axis++) {
+            if (p[axis] < nodeBoxes[offset + 2 * axis] || p[axis] > nodeBoxes[offset + 2 * axis + 1])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * checks if a point lays on a face
+     *
+     * @param face the index of the face
+     * @param p    coordinates of the point
+     * @return true if the point is on the face (including its edges)
+     */
+    private boolean contains(int face, double[] p) {
+        int a = 3 * faces[3 * face], b = 3 * faces[3 * face + 1], c = 3 * faces[3 * face + 2];
+        double[] n = normal(a, b, c);
+        double length = Math.sqrt(n[0] * n[0] + n[1] * n[1] + n[2] * n[2]);
+        if (isZero(length)) return false;//a degenerated face
+        //the point must be on the plane of the face
+        if (!isZero(((p[0] - vertices[a]) * n[0] + (p[1] - vertices[a + 1]) * n[1] + (p[2] - vertices[a + 2]) * n[2]) / length))
+            return false;
+        //and on the inner side of all the edges
+        return alignZero(side(a, b, p, n)) >= 0 && alignZero(side(b, c, p, n)) >= 0 && alignZero(side(c, a, p, n)) >= 0;
+    }
+
+    /**
+     * calculates on which side of an edge of a face a point is
+     *
+     * @param from the offset of the first vertex of the edge in the vertices array
+     * @param to   the offset of the second vertex of the edge in the vertices array
+     * @param p    coordinates of the point
+     * @param n    the (not normalized) normal of the face
+     * @return positive if the point is on the inner side of the edge, negative if it's on the outer side
+     */
+    private double side(int from, int to, double[] p, double[] n) {
+        double ex = vertices[to] - vertices[from], ey = vertices[to + 1] - vertices[from + 1], ez = vertices[to + 2] - vertices[from + 2];
+        double px = p[0] - vertices[from], py = p[1] - vertices[from + 1], pz = p[2] - vertices[from + 2];
+        //(e x p) * n
+        return (ey * pz - ez * py) * n[0] + (ez * px - ex * pz) * n[1] + (ex * py - ey * px) * n[2];
+    }
+
+    /**
+     * calculates the normal of a face, with the same orientation as the normal of a {@link Triangle}
+     * with the same vertices
+     *
+     * @param face the index of the face
+     * @return the normal of the face
+     */
+    private Vector faceNormal(int face) {
+        double[] n = normal(3 * faces[3 * face], 3 * faces[3 * face + 1], 3 * faces[3 * face + 2]);
+        return new Vector(n[0], n[1], n[2]).normalize();
+    }
+
+    /**
+     * calculates the cross product of the edges of a face (its normal, not normalized)
+     *
+     * @param a the offset of the first vertex in the vertices array
+     * @param b the offset of the second vertex in the vertices array
+     * @param c the offset of the third vertex in the vertices array
+     * @return the cross product (b-a) x (c-a)
+     */
+    private double[] normal(int a, int b, int c) {
+        double e1x = vertices[b] - vertices[a], e1y = vertices[b + 1] - vertices[a + 1], e1z = vertices[b + 2] - vertices[a + 2];
+        double e2x = vertices[c] - vertices[a], e2y = vertices[c + 1] - vertices[a + 1], e2z = vertices[c + 2] - vertices[a + 2];
+        return new double[]{e1y * e2z - e1z * e2y, e1z * e2x - e1x * e2z, e1x * e2y - e1y * e2x};
+    }
+
+    /**
+     * calculates the box of a face
+     *
+     * @param face the index of the face
+     * @return the box [minX,maxX,minY,maxY,minZ,maxZ]
+     */
+    private double[] faceBox(int face) {
+        double[] box = emptyBox();
+        for (int i = 0; i < 3; i++) {
+            int vertex = 3 * faces[3 * face + i];
+            for (int axis = 0; axis < 3; axis++) {
+                double value = vertices[vertex + axis];
+                if (value < box[2 * axis]) box[2 * axis] = value;
+                if (value > box[2 * axis + 1]) box[2 * axis + 1] = value;
+            }
+        }
+        return box;
+    }
+
+    /**
+     * builds the hierarchy over all the faces with the surface area heuristic (SAH).
+     * The boxes and the centers of the faces are needed only while building, the hierarchy itself
+     * is kept in the flat node arrays.
+     */
+    private void buildHierarchy() {
+        int count = getFaceCount();
+        double[] boxes = new double[6 * count];
+        double[] centroids = new double[3 * count];
+        order = new int[count];
+        for (int face = 0; face < count; face++) {
+            double[] box = faceBox(face);
+            for (int i = 0; i < 6; i += 2) {
+                boxes[6 * face + i] = box[i] - BOX_PADDING;
+                boxes[6 * face + i + 1] = box[i + 1] + BOX_PADDING;
+                centroids[3 * face + i / 2] = (box[i] + box[i + 1]) / 2;
+            }
+            order[face] = face;
+        }
+        //a binary tree with at least one face in each leaf has less than 2 * count nodes
+        int capacity = Math.max(1, 2 * count - 1);
+        nodeBoxes = new double[6 * capacity];
+        nodeStart = new int[capacity];
+        nodeCount = new int[capacity];
+        nodes = 1;
+        buildNode(0, 0, count, 1, boxes, centroids);
+        //keep only the nodes that were used
+        nodeBoxes = Arrays.copyOf(nodeBoxes, 6 * nodes);
+        nodeStart = Arrays.copyOf(nodeStart, nodes);
+        nodeCount = Arrays.copyOf(nodeCount, nodes);
+    }
+
+    /**
+     * builds a node of the hierarchy over a range of faces.
+     * The range is split where the surface area heuristic estimates the lowest cost,
+     * or kept as a leaf if splitting won't be cheaper.
+     *
+     * @param node      the index of the node
+     * @param from      the start of the range in the order array (inclusive)
+     * @param to        the end of the range in the order array (exclusive)
+     * @param depth     the depth of the node
+     * @param boxes     the boxes of the faces, 6 values per face
+     * @param centroids the centers of the boxes of the faces, 3 values per face
+     */
+    private void buildNode(int node, int from, int to, int depth, double[] boxes, double[] centroids) {
+        rangeBox(order, from, to, boxes, nodeBoxes, 6 * node);
+        nodeStart[node] = from;
+        nodeCount[node] = to - from;
+        //a deep node stays a leaf so the traversal stack won't overflow
+        if (depth >= MAX_DEPTH - 1) return;
+        int mid = split(order, from, to, boxes, centroids);
+        if (mid == -1) return;
+
+        int left = nodes;
+        nodes += 2;
+        nodeStart[node] = left;
+        nodeCount[node] = 0;
+        buildNode(left, from, mid, depth + 1, boxes, centroids);
+        buildNode(left + 1, mid, to, depth + 1, boxes, centroids);
+    }
+}
@@ -5,6 +5,7 @@ import primitives.*;
 import java.util.List;
 
 import static primitives.Util.alignZero;
+import static primitives.Util.isZero;
 
 /**
  * Class that represents a tube and implements the interface Geometry
@@ -13,6 +14,10 @@ public class Tube extends Geometry {
     //Fields
     protected final Ray axisRay;
     protected final double radius;
+    protected final double radiusSquared;
+    //the coordinates of the head and the direction of the axis ray
+    protected final double px, py, pz;
+    protected final double vx, vy, vz;
 
     /**
      * Ctor that gets a vector for the axis ray of the tube and double for the radius
@@ -23,6 +28,15 @@ public class Tube extends Geometry {
     public Tube(Ray axisRay, double radius) {
         this.axisRay = axisRay;
         this.radius = radius;
+        this.radiusSquared = radius * radius;
+        Point p0 = axisRay.getP0();
+        Vector dir = axisRay.getDir();
+        this.px = p0.getX();
+        this.py = p0.getY();
+        this.pz = p0.getZ();
+        this.vx = dir.getX();
+        this.vy = dir.getY();
+        this.vz = dir.getZ();
         this.boundary=calcBoundary();
     }
 
@@ -63,70 +77,94 @@ public class Tube extends Geometry {
 
     @Override
     public List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+        double[] distances = new double[2];
+        int count = casingDistances(ray, distances);
+        if (count == 0 || alignZero(distances[0] - maxDistance) > 0) return null;
+        if (count == 1 || alignZero(distances[1] - maxDistance) > 0)
+            return List.of(new GeoPoint(this, ray.getPoint(distances[0]), distances[0]));
+        return List.of(new GeoPoint(this, ray.getPoint(distances[0]), distances[0]), new GeoPoint(this, ray.getPoint(distances[1]), distances[1]));
+    }
+
+    @Override
+    public boolean findClosestHit(Ray ray, Hit hit) {
+        double[] distances = new double[2];
+        return casingDistances(ray, distances) > 0 && hit.update(this, distances[0]);
+    }
+
+    @Override
+    protected int countIntersections(Ray ray, double maxDistance) {
+        double[] distances = new double[2];
+        int count = casingDistances(ray, distances);
+        //the distances are sorted, so only the ones within the maximal distance are counted
+        while (count > 0 && alignZero(distances[count - 1] - maxDistance) > 0) count--;
+        return count;
+    }
+
+    /**
+     * calculates the distances along a ray to the casing of the tube
+     *
+     * @param ray       the ray
+     * @param distances array to fill with the ray parameters of the intersections in front of the ray head,
+     *                  from the nearest to the farthest
+     * @return the number of intersections (0, 1 or 2)
+     */
+    protected int casingDistances(Ray ray, double[] distances) {
         //The overall idea is to form a quadratic equation that it's
         //solutions are the scale factor for the getPoint method.
         //We form this quadratic equation by setting two restriction on an arbitrary point:
         // 1. It is on the ray (i.e. of the form p+t*v)
         // 2. It is on the tube (i.e. it's distance from the tube axis ray is r)
         //Give those two restrictions we extract the requested quadratic equation.
-        Vector tubeDir = this.axisRay.getDir();
+        //All the calculations are done on the coordinates, without creating vectors.
         Vector rayDir = ray.getDir();
+        double dx = rayDir.getX(), dy = rayDir.getY(), dz = rayDir.getZ();
 
-        // if the ray is parallel  to the tube axis ray return null
-        if (tubeDir.equals(rayDir) || tubeDir.equals(rayDir.scale(-1))) {
-            return null;
-        }
+        // if the ray is parallel  to the tube axis ray there are no intersections
+        if ((isZero(vx - dx) && isZero(vy - dy) && isZero(vz - dz))
+                || (isZero(vx + dx) && isZero(vy + dy) && isZero(vz + dz)))
+            return 0;
 
-        double dotP1 = Util.alignZero(rayDir.dotProduct(tubeDir));
-        //if rayDir and tubeDir are orthogonal return just the rayDir,
-        //else return their dot product.
-        Vector vec1 = dotP1 == 0 ? rayDir : rayDir.subtract(tubeDir.scale(dotP1));
-        double radiusSquared = this.radius * this.radius;
+        //the part of the ray direction that is orthogonal to the axis
+        double dotP1 = alignZero(dx * vx + dy * vy + dz * vz);
+        double w1x = dx - vx * dotP1, w1y = dy - vy * dotP1, w1z = dz - vz * dotP1;
 
         //First coefficient of the quadratic equation.
-        double a = Util.alignZero(vec1.lengthSquared());
-
-        if (ray.getP0().equals(this.axisRay.getP0())) {
-            return alignZero(radiusSquared / a - maxDistance) > 0 ? null : List.of(new GeoPoint(this, ray.getPoint(Math.sqrt(radiusSquared / a))));
-        }
-
-        //The vector between the ray heads.
-        Vector deltaP = ray.getP0().subtract(this.axisRay.getP0());
-
-        //If the ray starts at the tube axis ray
-        if (tubeDir.equals(deltaP.normalize()) || tubeDir.equals(deltaP.normalize().scale(-1))) {
-            return alignZero(radiusSquared / a - maxDistance) > 0 ? null : List.of(new GeoPoint(this, ray.getPoint(Math.sqrt(radiusSquared / a))));
-        }
+        double a = alignZero(w1x * w1x + w1y * w1y + w1z * w1z);
 
-        double dotP2 = Util.alignZero(deltaP.dotProduct(tubeDir));
-        var vec2 = dotP2 == 0 ? deltaP : deltaP.subtract(tubeDir.scale(dotP2));
+        //the part of the vector between the ray heads that is orthogonal to the axis
+        //(zero if the ray starts at the tube axis ray)
+        Point p0 = ray.getP0();
+        double deltaX = p0.getX() - px, deltaY = p0.getY() - py, deltaZ = p0.getZ() - pz;
+        double dotP2 = alignZero(deltaX * vx + deltaY * vy + deltaZ * vz);
+        double w2x = deltaX - vx * dotP2, w2y = deltaY - vy * dotP2, w2z = deltaZ - vz * dotP2;
 
         //Second coefficient for the quadratic equation
-        double b = Util.alignZero(2 * (vec1.dotProduct(vec2)));
+        double b = alignZero(2 * (w1x * w2x + w1y * w2y + w1z * w2z));
         //Third coefficient for the quadratic equation
-        double c = Util.alignZero(vec2.lengthSquared() - radiusSquared);
+        double c = alignZero(w2x * w2x + w2y * w2y + w2z * w2z - radiusSquared);
 
         //Discriminant for the quadratic equation
-        double det = Util.alignZero(b * b - 4 * a * c);
+        double det = alignZero(b * b - 4 * a * c);
 
         //If the discriminant is smaller or equal to 0,
         // the ray is outside the tube.
-        if (det <= 0) return null;
+        if (det <= 0) return 0;
 
         //Solving the quadratic equation.
         det = Math.sqrt(det);
-        double t1 = Util.alignZero((-b + det) / (2 * a));
-        double t2 = Util.alignZero((-b - det) / (2 * a));
+        double t1 = alignZero((-b + det) / (2 * a));
+        double t2 = alignZero((-b - det) / (2 * a));
 
         //The intersection points are behind the head of the ray
-        if (t1 <= 0 || alignZero(t2 - maxDistance) > 0) return null;
-        if (t1 - maxDistance > 0) {
-            return t2 <= 0 ? null : List.of(new GeoPoint(this, ray.getPoint(t2)));
-        } else {
-            //Check if there are one or two intersection points.
-            return t2 <= 0 ? List.of(new GeoPoint(this, ray.getPoint(t1))) :
-                    List.of(new GeoPoint(this, ray.getPoint(t2)), new GeoPoint(this, ray.getPoint(t1)));
+        if (t1 <= 0) return 0;
+        //Check if there are one or two intersection points.
+        if (t2 <= 0) {
+            distances[0] = t1;
+            return 1;
         }
+        distances[0] = t2;
+        distances[1] = t1;
+        return 2;
     }
 
     @Override
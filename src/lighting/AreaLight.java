@@ -0,0 +1,82 @@
+package lighting;
+
+import primitives.*;
+
+/**
+ * Abstract class that represents a light source with a surface, which casts soft shadows.
+ * Its intensity and direction are calculated from its center (like a point light with the same attenuation),
+ * and its shadows are tested by rays towards a grid of samples on its surface.
+ */
+public abstract class AreaLight extends PointLight {
+    /**
+     * orthonormal axes of the plane of the light
+     */
+    protected final Vector u, v;
+    /**
+     * the number of samples on each row and column of the grid on the light
+     */
+    private int resolution = 8;
+
+    /**
+     * AreaLight constructor
+     *
+     * @param color  the intensity of the light
+     * @param center the center of the light
+     * @param u      the first axis of the plane of the light
+     * @param v      the second axis of the plane of the light, orthogonal to the first one
+     */
+    protected AreaLight(Color color, Point center, Vector u, Vector v) {
+        super(color, center);
+        if (!Util.isZero(u.dotProduct(v)))
+            throw new IllegalArgumentException("The axes of the light must be orthogonal");
+        this.u = u.normalize();
+        this.v = v.normalize();
+    }
+
+    /**
+     * sets the number of samples on each row and column of the grid on the light.
+     * A point is first tested against the samples on the boundary of the grid, and the inner samples are
+     * tested only if they disagree, so a fully lit or fully shadowed point costs 4*(resolution-1) rays
+     *
+     * @param resolution the number of samples on each row and column (8 by default),
+     *                   1 for a hard shadow from the center
+     * @return the object itself
+     */
+    public AreaLight setSampleResolution(int resolution) {
+        if (resolution < 1)
+            throw new IllegalArgumentException("The sample resolution must be positive");
+        this.resolution = resolution;
+        return this;
+    }
+
+    /**
+     * resolution getter
+     *
+     * @return the number of samples on each row and column of the grid on the light
+     */
+    public int getSampleResolution() {
+        return resolution;
+    }
+
+    /**
+     * returns the sample of a square of the grid on the light
+     *
+     * @param i the row of the square
+     * @param j the column of the square
+     * @return the point on the light in the center of the square
+     */
+    public Point getSample(int i, int j) {
+        //the center of the square in coordinates from -1 to 1 on each axis
+        return samplePoint((2 * j + 1d) / resolution - 1, (2 * i + 1d) / resolution - 1);
+    }
+
+    /**
+     * maps a point of the square [-1,1]x[-1,1] to the surface of the light, so that squares of the same area
+     * are mapped to parts of the light of the same area
+     *
+     * @param s the coordinate along the first axis
+     * @param t the coordinate along the second axis
+     * @return the point on the light
+     */
+    protected abstract Point samplePoint(double s, double t);
+}
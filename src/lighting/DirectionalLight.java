@@ -12,6 +12,10 @@ import primitives.*;
 public class DirectionalLight extends Light implements LightSource {
 
     private final Vector direction;
+    /**
+     * the light at every point- it's the same everywhere, so it's calculated once
+     */
+    private final LightSample sample;
 
     /**
      * Constructor to initialize the fields (intensity and direction)
@@ -22,6 +26,7 @@ public class DirectionalLight extends Light implements LightSource {
     public DirectionalLight(Color color, Vector direction) {
         super(color);
         this.direction = direction.normalize();
+        this.sample = new LightSample(this.direction, Double.POSITIVE_INFINITY, color);
     }
 
     @Override
@@ -39,4 +44,9 @@ public class DirectionalLight extends Light implements LightSource {
         //Since directional light doesn't have a real source and comes from infinity
         return Double.POSITIVE_INFINITY;
     }
+
+    @Override
+    public LightSample sample(Point p) {
+        return sample;
+    }
 }
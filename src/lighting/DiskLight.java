@@ -0,0 +1,70 @@
+package lighting;
+
+import primitives.*;
+
+/**
+ * Class that represents a disk-shaped area light
+ */
+public class DiskLight extends AreaLight {
+    /**
+     * the radius of the disk
+     */
+    private final double radius;
+
+    /**
+     * DiskLight constructor
+     *
+     * @param color  the intensity of the light
+     * @param center the center of the disk
+     * @param normal the normal to the plane of the disk
+     * @param radius the radius of the disk
+     */
+    public DiskLight(Color color, Point center, Vector normal, double radius) {
+        this(color, center, orthogonal(normal.normalize()), normal.normalize(), radius);
+    }
+
+    /**
+     * DiskLight constructor from the axes of its plane
+     *
+     * @param color  the intensity of the light
+     * @param center the center of the disk
+     * @param u      an axis of the plane of the disk
+     * @param normal the normal to the plane of the disk
+     * @param radius the radius of the disk
+     */
+    private DiskLight(Color color, Point center, Vector u, Vector normal, double radius) {
+        super(color, center, u, normal.crossProduct(u));
+        if (radius <= 0)
+            throw new IllegalArgumentException("The radius of the disk must be positive");
+        this.radius = radius;
+    }
+
+    /**
+     * finds a unit vector orthogonal to a unit vector
+     *
+     * @param n the unit vector
+     * @return an orthogonal unit vector
+     */
+    private static Vector orthogonal(Vector n) {
+        return (Math.abs(n.getX()) < 0.9 ? new Vector(1, 0, 0) : Vector.Y).crossProduct(n).normalize();
+    }
+
+    @Override
+    protected Point samplePoint(double s, double t) {
+        //concentric mapping- each square ring of the grid is mapped to a ring of the disk of the same area,
+        //so the samples on the boundary of the grid (the centers of its outer squares) are on the outermost ring
+        //of samples, at (1-1/resolution)*radius from the center, not on the rim of the disk
+        if (s == 0 && t == 0) return getPosition();
+        double r, angle;
+        if (Math.abs(s) > Math.abs(t)) {
+            r = s;
+            angle = Math.PI / 4 * t / s;
+        } else {
+            r = t;
+            angle = Math.PI / 2 - Math.PI / 4 * s / t;
+        }
+        r *= radius;
+        return new Vec3().set(getPosition()).addScaled(u, r * Math.cos(angle)).addScaled(v, r * Math.sin(angle))
+                .toPoint();
+    }
+}
@@ -0,0 +1,254 @@
+package lighting;
+
+import primitives.Point;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Spatial index of the light sources of a scene, for scenes with many attenuated lights.
+ * Each point light has a radius of influence, out of which its intensity is lower than a threshold.
+ * The spheres of influence are stored in a uniform grid, so the lights that reach a point are found
+ * by looking at a single cell, no matter how many lights the scene has.
+ * Lights without a radius of influence (such as directional lights) reach every point.
+ */
+public class LightIndex {
+    /**
+     * the largest number of cells along an axis of the grid
+     */
+    private static final int MAX_CELLS = 32;
+    /**
+     * the list of the lights the index was built from
+     */
+    private final List<LightSource> source;
+    /**
+     * the light sources in the order of the scene
+     */
+    private final LightSource[] lights;
+    /**
+     * the square of the radius of influence of each light (infinity for lights that reach every point)
+     */
+    private final double[] radii2;
+    /**
+     * the indexes of the lights that reach every point
+     */
+    private final int[] unbounded;
+    /**
+     * the indexes of the lights that may reach each cell of the grid, in the order of the scene
+     */
+    private final int[][] cells;
+    /**
+     * the minimal corner of the grid
+     */
+    private double minX, minY, minZ;
+    /**
+     * the edge of a cell along each axis
+     */
+    private double edgeX, edgeY, edgeZ;
+    /**
+     * the number of cells along each axis
+     */
+    private int nX, nY, nZ;
+
+    /**
+     * LightIndex constructor
+     *
+     * @param lights    the light sources of the scene
+     * @param threshold the lowest intensity of a light that is considered a contribution
+     */
+    public LightIndex(List<LightSource> lights, double threshold) {
+        this.source = lights;
+        this.lights = lights.toArray(new LightSource[0]);
+        int count = this.lights.length;
+        radii2 = new double[count];
+        List<Integer> bounded = new ArrayList<>();
+        List<Integer> others = new ArrayList<>();
+        double[] min = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY};
+        double[] max = {Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        double radiusSum = 0;
+        for (int i = 0; i < count; i++) {
+            double radius = this.lights[i] instanceof PointLight light ? light.getRadius(threshold)
+                    : Double.POSITIVE_INFINITY;
+            radii2[i] = radius * radius;
+            if (Double.isInfinite(radius)) {
+                others.add(i);
+            } else if (radius > 0) {
+                //lights with no radius don't contribute anywhere, so they are left out
+                bounded.add(i);
+                radiusSum += radius;
+                double[] center = coordinates(((PointLight) this.lights[i]).getPosition());
+                for (int axis = 0; axis < 3; axis++) {
+                    min[axis] = Math.min(min[axis], center[axis] - radius);
+                    max[axis] = Math.max(max[axis], center[axis] + radius);
+                }
+            }
+        }
+        unbounded = others.stream().mapToInt(Integer::intValue).toArray();
+        if (bounded.isEmpty()) {
+            cells = new int[0][];
+            return;
+        }
+
+        //a cell is about as large as the average sphere of influence
+        double edge = radiusSum / bounded.size();
+        nX = cellCount(max[0] - min[0], edge);
+        nY = cellCount(max[1] - min[1], edge);
+        nZ = cellCount(max[2] - min[2], edge);
+        minX = min[0];
+        minY = min[1];
+        minZ = min[2];
+        edgeX = (max[0] - min[0]) / nX;
+        edgeY = (max[1] - min[1]) / nY;
+        edgeZ = (max[2] - min[2]) / nZ;
+
+        List<List<Integer>> lists = new ArrayList<>(nX * nY * nZ);
+        for (int c = 0; c < nX * nY * nZ; c++)
+            lists.add(new ArrayList<>());
+        for (int i : bounded) {
+            double[] center = coordinates(((PointLight) this.lights[i]).getPosition());
+            double radius = Math.sqrt(radii2[i]);
+            int x0 = cell(center[0] - radius - minX, edgeX, nX), x1 = cell(center[0] + radius - minX, edgeX, nX);
+            int y0 = cell(center[1] - radius - minY, edgeY, nY), y1 = cell(center[1] + radius - minY, edgeY, nY);
+            int z0 = cell(center[2] - radius - minZ, edgeZ, nZ), z1 = cell(center[2] + radius - minZ, edgeZ, nZ);
+            for (int x = x0; x <= x1; x++)
+                for (int y = y0; y <= y1; y++)
+                    for (int z = z0; z <= z1; z++)
+                        if (sphereMeetsCell(center, radii2[i], x, y, z))
+                            lists.get(index(x, y, z)).add(i);
+        }
+        cells = new int[lists.size()][];
+        for (int c = 0; c < cells.length; c++) {
+            //the lights that reach every point are merged in, so the lights keep the order of the scene
+            List<Integer> list = lists.get(c);
+            list.addAll(others);
+            cells[c] = list.stream().mapToInt(Integer::intValue).sorted().toArray();
+        }
+    }
+
+    /**
+     * finds the light sources that may reach a point- the lights of the cell of the point.
+     * Nothing is allocated, so it can be called for each shading point. Whether a candidate
+     * really reaches the point is checked by {@link #reaches(int, Point)}
+     *
+     * @param p the point
+     * @return the indexes of the candidate lights in the order of the scene
+     * (an array of the index that mustn't be modified)
+     */
+    public int[] candidatesAt(Point p) {
+        if (cells.length > 0) {
+            double x = p.getX() - minX, y = p.getY() - minY, z = p.getZ() - minZ;
+            //out of the grid only the lights that reach every point are left
+            if (x >= 0 && y >= 0 && z >= 0 && x <= nX * edgeX && y <= nY * edgeY && z <= nZ * edgeZ)
+                return cells[index(cell(x, edgeX, nX), cell(y, edgeY, nY), cell(z, edgeZ, nZ))];
+        }
+        return unbounded;
+    }
+
+    /**
+     * checks if a light reaches a point by its radius of influence
+     *
+     * @param light the index of the light
+     * @param p     the point
+     * @return true if the intensity of the light at the point isn't lower than the threshold
+     */
+    public boolean reaches(int light, Point p) {
+        return Double.isInfinite(radii2[light])
+                || ((PointLight) lights[light]).getPosition().distanceSquared(p) <= radii2[light];
+    }
+
+    /**
+     * returns a light source of the index
+     *
+     * @param light the index of the light
+     * @return the light source
+     */
+    public LightSource get(int light) {
+        return lights[light];
+    }
+
+    /**
+     * checks if the index was built from a list of lights in its current state.
+     * The list is compared by its identity and its size, so replacing a light in place isn't found,
+     * the index should be built again explicitly in that case
+     *
+     * @param lights the list of lights
+     * @return true if the index was built from the list and no light was added or removed since then
+     */
+    public boolean isOf(List<LightSource> lights) {
+        return source == lights && this.lights.length == lights.size();
+    }
+
+    /**
+     * calculates the number of cells along an axis
+     *
+     * @param extent the size of the grid along the axis
+     * @param edge   the wanted edge of a cell
+     * @return the number of cells, between 1 and MAX_CELLS
+     */
+    private static int cellCount(double extent, double edge) {
+        return Math.max(1, Math.min(MAX_CELLS, (int) Math.ceil(extent / edge)));
+    }
+
+    /**
+     * finds the cell of a coordinate along an axis
+     *
+     * @param offset the coordinate relative to the minimal corner of the grid
+     * @param edge   the edge of a cell along the axis
+     * @param n      the number of cells along the axis
+     * @return the index of the cell (clamped to the grid)
+     */
+    private static int cell(double offset, double edge, int n) {
+        return Math.max(0, Math.min(n - 1, (int) (offset / edge)));
+    }
+
+    /**
+     * calculates the index of a cell in the cells array
+     *
+     * @param x the index of the cell along the x axis
+     * @param y the index of the cell along the y axis
+     * @param z the index of the cell along the z axis
+     * @return the index in the cells array
+     */
+    private int index(int x, int y, int z) {
+        return (x * nY + y) * nZ + z;
+    }
+
+    /**
+     * checks if a sphere of influence meets a cell of the grid
+     *
+     * @param center  the center of the sphere
+     * @param radius2 the square of the radius of the sphere
+     * @param x       the index of the cell along the x axis
+     * @param y       the index of the cell along the y axis
+     * @param z       the index of the cell along the z axis
+     * @return true if the closest point of the cell to the center is in the sphere
+     */
+    private boolean sphereMeetsCell(double[] center, double radius2, int x, int y, int z) {
+        double dx = distanceToRange(center[0], minX + x * edgeX, minX + (x + 1) * edgeX);
+        double dy = distanceToRange(center[1], minY + y * edgeY, minY + (y + 1) * edgeY);
+        double dz = distanceToRange(center[2], minZ + z * edgeZ, minZ + (z + 1) * edgeZ);
+        return dx * dx + dy * dy + dz * dz <= radius2;
+    }
+
+    /**
+     * calculates the distance of a coordinate from a range
+     *
+     * @param value the coordinate
+     * @param min   the start of the range
+     * @param max   the end of the range
+     * @return the distance, 0 if the coordinate is in the range
+     */
+    private static double distanceToRange(double value, double min, double max) {
+        return value < min ? min - value : value > max ? value - max : 0;
+    }
+
+    /**
+     * returns the coordinates of a point as an array
+     *
+     * @param p the point
+     * @return the x, y and z coordinates
+     */
+    private static double[] coordinates(Point p) {
+        return new double[]{p.getX(), p.getY(), p.getZ()};
+    }
+}
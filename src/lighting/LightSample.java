@@ -0,0 +1,35 @@
+package lighting;
+
+import primitives.*;
+
+/**
+ * The light that a light source casts on a point- its direction, distance and attenuated intensity,
+ * calculated together so the shading of the point doesn't calculate them again
+ */
+public class LightSample {
+    /**
+     * the direction from the light source to the point
+     */
+    public final Vector l;
+    /**
+     * the distance of the light source from the point
+     */
+    public final double distance;
+    /**
+     * the intensity of the light at the point
+     */
+    public final Color intensity;
+
+    /**
+     * LightSample constructor
+     *
+     * @param l         the direction from the light source to the point
+     * @param distance  the distance of the light source from the point
+     * @param intensity the intensity of the light at the point
+     */
+    public LightSample(Vector l, double distance, Color intensity) {
+        this.l = l;
+        this.distance = distance;
+        this.intensity = intensity;
+    }
+}
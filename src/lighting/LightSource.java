@@ -33,4 +33,14 @@ public interface LightSource {
      * @return distance of the light source from the point
      */
     public double getDistance(Point point);
+
+    /**
+     * Returns the direction, distance and intensity of the light at a point together
+     *
+     * @param p the point
+     * @return the light at the point, null if the light source doesn't light the point at all
+     */
+    default LightSample sample(Point p) {
+        return new LightSample(getL(p), getDistance(p), getIntensity(p));
+    }
 }
@@ -11,9 +11,9 @@ public class PointLight extends Light implements LightSource {
     //private fields
 
     private Point position;// position of the light source
-    private Double3 kC = new Double3(1);//Attenuation coefficient
-    private Double3 kL = Double3.ZERO;//Attenuation coefficient
-    private Double3 kQ = Double3.ZERO;//Attenuation coefficient
+    private double kC = 1;//Attenuation coefficient
+    private double kL = 0;//Attenuation coefficient
+    private double kQ = 0;//Attenuation coefficient
 
     /**
      * Constructor with parameters
@@ -34,7 +34,7 @@ public class PointLight extends Light implements LightSource {
      * @return the object itself
      */
     public PointLight setKc(double kC) {
-        this.kC = new Double3(kC);
+        this.kC = kC;
         return this;
     }
 
@@ -45,7 +45,7 @@ public class PointLight extends Light implements LightSource {
      * @return the object itself
      */
     public PointLight setKl(double kL) {
-        this.kL = new Double3(kL);
+        this.kL = kL;
         return this;
     }
 
@@ -56,15 +56,72 @@ public class PointLight extends Light implements LightSource {
      * @return the object itself
      */
     public PointLight setKq(double kQ) {
-        this.kQ = new Double3(kQ);
+        this.kQ = kQ;
         return this;
     }
 
 
+    /**
+     * position getter
+     *
+     * @return the position of the light source
+     */
+    public Point getPosition() {
+        return position;
+    }
+
+    /**
+     * calculates the radius of influence of the light- the distance from which its attenuated intensity
+     * (in its strongest color component) is lower than a threshold
+     *
+     * @param threshold the lowest intensity that is considered a contribution
+     * @return the radius of influence, infinity if the light isn't attenuated enough to drop below the threshold
+     */
+    public double getRadius(double threshold) {
+        if (threshold <= 0) return Double.POSITIVE_INFINITY;
+        //solves kC + kL*d + kQ*d^2 = I/threshold for d
+        double c = kC - this.intensity.difference(Color.BLACK) / threshold;
+        if (c >= 0) return 0;
+        if (kQ > 0) return (-kL + Math.sqrt(kL * kL - 4 * kQ * c)) / (2 * kQ);
+        return kL > 0 ? -c / kL : Double.POSITIVE_INFINITY;
+    }
+
     @Override
     public Color getIntensity(Point p) {
-        double d = p.distance(this.position);
-        return this.intensity.reduce(kC.add(kL.scale(d)).add(kQ.scale(d * d)));
+        return this.intensity.reduce(attenuation(p.distance(this.position)));
+    }
+
+    @Override
+    public LightSample sample(Point p) {
+        //the vector from the light source is calculated once for the direction and for the distance
+        Vector vec = p.subtract(this.position);
+        double d = vec.length();
+        Vector l = vec.scale(1 / d);
+        //a light that doesn't reach the point in this direction is rejected before its attenuation
+        double factor = beamFactor(l);
+        if (factor == 0) return null;
+        Color iL = this.intensity.reduce(attenuation(d));
+        return new LightSample(l, d, factor == 1 ? iL : iL.scale(factor));
+    }
+
+    /**
+     * calculates the attenuation of the light by the distance
+     *
+     * @param d the distance from the light source
+     * @return the factor the intensity is divided by
+     */
+    private double attenuation(double d) {
+        return kC + kL * d + kQ * (d * d);
+    }
+
+    /**
+     * calculates the factor of the intensity of the light in a direction
+     *
+     * @param l the direction from the light source
+     * @return the factor of the intensity, 0 if the light doesn't reach this direction
+     */
+    protected double beamFactor(Vector l) {
+        return 1;
     }
 
     @Override
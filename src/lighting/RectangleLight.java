@@ -0,0 +1,36 @@
+package lighting;
+
+import primitives.*;
+
+/**
+ * Class that represents a rectangular area light
+ */
+public class RectangleLight extends AreaLight {
+    /**
+     * half of the width and of the height of the rectangle
+     */
+    private final double halfWidth, halfHeight;
+
+    /**
+     * RectangleLight constructor
+     *
+     * @param color  the intensity of the light
+     * @param center the center of the rectangle
+     * @param vRight the direction of the width of the rectangle
+     * @param vUp    the direction of the height of the rectangle, orthogonal to vRight
+     * @param width  the width of the rectangle
+     * @param height the height of the rectangle
+     */
+    public RectangleLight(Color color, Point center, Vector vRight, Vector vUp, double width, double height) {
+        super(color, center, vRight, vUp);
+        if (width <= 0 || height <= 0)
+            throw new IllegalArgumentException("The size of the rectangle must be positive");
+        this.halfWidth = width / 2;
+        this.halfHeight = height / 2;
+    }
+
+    @Override
+    protected Point samplePoint(double s, double t) {
+        return new Vec3().set(getPosition()).addScaled(u, s * halfWidth).addScaled(v, t * halfHeight).toPoint();
+    }
+}
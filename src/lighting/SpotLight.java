@@ -24,16 +24,17 @@ public class SpotLight extends PointLight {
     }
 
     @Override
-    public Vector getL(Point p) {
-        return super.getL(p);
+    public Color getIntensity(Point p) {
+        //the beam factor is applied by the sample, which is null out of the beam
+        LightSample sample = sample(p);
+        return sample == null ? Color.BLACK : sample.intensity;
     }
 
     @Override
-    public Color getIntensity(Point p) {
-        double lDir = alignZero(this.direction.dotProduct(super.getL(p)));
-        if (lDir <= 0) return Color.BLACK;
-
-        return super.getIntensity(p).scale(Math.pow(lDir, narrow));
+    protected double beamFactor(Vector l) {
+        //out of the cone (behind the spot) the light doesn't reach at all
+        double lDir = alignZero(this.direction.dotProduct(l));
+        return lDir <= 0 ? 0 : Math.pow(lDir, narrow);
     }
 
     /**
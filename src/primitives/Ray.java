@@ -35,10 +35,26 @@ public class Ray {
      */
     public Ray(Point head, Vector direction, Vector normal) {
         double mult = direction.dotProduct(normal);
-        this.p0 = head.add(normal.scale(mult >= 0 ? DELTA : -DELTA));
+        //the same as head.add(normal.scale(delta)), without the intermediate vector
+        double delta = mult >= 0 ? DELTA : -DELTA;
+        this.p0 = new Point(head.xyz.d1 + normal.xyz.d1 * delta, head.xyz.d2 + normal.xyz.d2 * delta,
+                head.xyz.d3 + normal.xyz.d3 * delta);
         this.dir = direction;
     }
 
+    /**
+     * Creates a new Ray and normalizes its direction only if asked
+     * (the internal fast paths pass a direction that they have already normalized)
+     *
+     * @param p0        the starting point of the ray
+     * @param dir       the direction of the ray, it must be normalized if normalize is false
+     * @param normalize whether to normalize the direction
+     */
+    Ray(Point p0, Vector dir, boolean normalize) {
+        this.p0 = p0;
+        this.dir = normalize ? dir.normalize() : dir;
+    }
+
     /**
      * Return the starting point of the ray
      *
@@ -110,7 +126,8 @@ public class Ray {
         //than we have we replace the values.
         //This goes on until the end of the list.
         for (GeoPoint pnt : lst) {
-            double distance = this.p0.distance(pnt.point);
+            //the ray parameter of the point is its distance, it's calculated only if it's unknown
+            double distance = Double.isNaN(pnt.t) ? this.p0.distance(pnt.point) : pnt.t;
             if (d > distance) {
                 d = distance;
                 p = pnt;
@@ -0,0 +1,193 @@
+package primitives;
+
+import static java.lang.Math.sqrt;
+
+/**
+ * Mutable triple of coordinates for the hot paths of the renderer.
+ * The operations change the triple itself and don't create objects or check for the zero vector,
+ * so a calculation of several steps costs only the objects of its result.
+ * It's an internal tool- it is not thread safe and should be used as a local scratch variable,
+ * the immutable {@link Point} and {@link Vector} remain the API for the users.
+ */
+public final class Vec3 {
+    //the coordinates
+    private double x, y, z;
+
+    /**
+     * creates a zero triple
+     */
+    public Vec3() {
+    }
+
+    /**
+     * sets the coordinates
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @param z the z coordinate
+     * @return the triple itself
+     */
+    public Vec3 set(double x, double y, double z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        return this;
+    }
+
+    /**
+     * sets the coordinates of a point (or a vector)
+     *
+     * @param p the point
+     * @return the triple itself
+     */
+    public Vec3 set(Point p) {
+        return set(p.xyz.d1, p.xyz.d2, p.xyz.d3);
+    }
+
+    /**
+     * adds a point (or a vector) to the triple
+     *
+     * @param p the point
+     * @return the triple itself
+     */
+    public Vec3 add(Point p) {
+        x += p.xyz.d1;
+        y += p.xyz.d2;
+        z += p.xyz.d3;
+        return this;
+    }
+
+    /**
+     * adds a scaled vector to the triple (the same as adding vec.scale(factor))
+     *
+     * @param vec    the vector
+     * @param factor the scale factor
+     * @return the triple itself
+     */
+    public Vec3 addScaled(Point vec, double factor) {
+        x += vec.xyz.d1 * factor;
+        y += vec.xyz.d2 * factor;
+        z += vec.xyz.d3 * factor;
+        return this;
+    }
+
+    /**
+     * subtracts a point (or a vector) from the triple
+     *
+     * @param p the point
+     * @return the triple itself
+     */
+    public Vec3 subtract(Point p) {
+        x -= p.xyz.d1;
+        y -= p.xyz.d2;
+        z -= p.xyz.d3;
+        return this;
+    }
+
+    /**
+     * scales the triple
+     *
+     * @param factor the scale factor
+     * @return the triple itself
+     */
+    public Vec3 scale(double factor) {
+        x *= factor;
+        y *= factor;
+        z *= factor;
+        return this;
+    }
+
+    /**
+     * calculates the dot product of the triple and a vector
+     *
+     * @param vec the vector
+     * @return the dot product
+     */
+    public double dotProduct(Point vec) {
+        return (x * vec.xyz.d1) + (y * vec.xyz.d2) + (z * vec.xyz.d3);
+    }
+
+    /**
+     * calculates the squared length of the triple
+     *
+     * @return the squared length
+     */
+    public double lengthSquared() {
+        return (x * x) + (y * y) + (z * z);
+    }
+
+    /**
+     * normalizes the triple (the same calculation as {@link Vector#normalize()})
+     *
+     * @return the triple itself
+     */
+    public Vec3 normalize() {
+        return scale(1 / sqrt(lengthSquared()));
+    }
+
+    /**
+     * checks if the triple is the zero vector (by the accuracy of {@link Util#isZero})
+     *
+     * @return true if all the coordinates are zero
+     */
+    public boolean isZero() {
+        return Util.isZero(x) && Util.isZero(y) && Util.isZero(z);
+    }
+
+    /**
+     * x getter
+     *
+     * @return the x coordinate
+     */
+    public double getX() {
+        return x;
+    }
+
+    /**
+     * y getter
+     *
+     * @return the y coordinate
+     */
+    public double getY() {
+        return y;
+    }
+
+    /**
+     * z getter
+     *
+     * @return the z coordinate
+     */
+    public double getZ() {
+        return z;
+    }
+
+    /**
+     * creates a point of the triple
+     *
+     * @return the point
+     */
+    public Point toPoint() {
+        return new Point(x, y, z);
+    }
+
+    /**
+     * creates a vector of the triple without checking for the zero vector,
+     * the caller is responsible that the triple isn't zero
+     *
+     * @return the vector
+     */
+    public Vector toVector() {
+        return new Vector(new Double3(x, y, z), false);
+    }
+
+    /**
+     * creates a ray in the direction of the triple without normalizing it again,
+     * the caller is responsible that the triple is normalized
+     *
+     * @param head the head of the ray
+     * @return the ray
+     */
+    public Ray toRay(Point head) {
+        return new Ray(head, toVector(), false);
+    }
+}
@@ -33,8 +33,19 @@ public class Vector extends Point {
      * @param xyz the coordinate of the Vector
      */
     Vector(Double3 xyz) {
+        this(xyz, true);
+    }
+
+    /**
+     * Create a new Vector, the check for the zero vector may be skipped by the internal fast paths
+     * that already know the vector isn't zero
+     *
+     * @param xyz   the coordinate of the Vector
+     * @param check whether to check for the zero vector
+     */
+    Vector(Double3 xyz, boolean check) {
         super(xyz);
-        if (this.xyz.equals(Double3.ZERO))
+        if (check && this.xyz.equals(Double3.ZERO))
             throw new IllegalArgumentException("Cannot implement zero vector");
     }
 
@@ -3,11 +3,13 @@ package renderer;
 import primitives.Color;
 import primitives.Point;
 import primitives.Ray;
+import primitives.Vec3;
 import primitives.Vector;
 
 import java.io.Console;
 import java.util.MissingResourceException;
-import java.util.stream.IntStream;
+
+import static primitives.Util.isZero;
 
 /**
  * Camera to take the picture
@@ -28,10 +30,42 @@ public class Camera {
     private RayTracerBase rayTracerBase;
 
     private double printInterval;
+    /**
+     * the listener to the progress of the rendering (null to print the progress by the print interval)
+     */
+    private RenderProgress.Listener progressListener;
+    /**
+     * the progress of the current (or last) rendering
+     */
+    private volatile RenderProgress progress;
     /**
      * boolean that determine if the camera is using threading
      */
     private boolean threading = true;
+    /**
+     * the edge of the square packets of camera rays that are traced together (1 traces each ray by itself)
+     */
+    private int packetSize = 1;
+    /**
+     * the edge of the square tiles of pixels that the threads render
+     */
+    private int tileSize = 32;
+    /**
+     * the number of threads that render the image
+     */
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    /**
+     * the maximal depth of the adaptive subdivision of a pixel (0 traces a single ray through the center of each pixel)
+     */
+    private int antiAliasingDepth = 0;
+    /**
+     * the largest difference of colors (in 0..255 units) of the samples of a square that isn't subdivided
+     */
+    private double antiAliasingThreshold = 10;
+    /**
+     * the scratch triple of each rendering thread, the point of the view plane of a camera ray is calculated on it
+     */
+    private final ThreadLocal<Vec3> scratch = ThreadLocal.withInitial(Vec3::new);
 
 
     /**
@@ -77,7 +111,7 @@ public class Camera {
     /**
      * PrintInterval setter
      *
-     * @param printInterval
+     * @param printInterval the print time interval of the progress in seconds, 0 if printing is not required
      * @return the object itself
      */
     public Camera setPrintInterval(double printInterval) {
@@ -85,6 +119,26 @@ public class Camera {
         return this;
     }
 
+    /**
+     * ProgressListener setter, the listener replaces the printing of the progress
+     *
+     * @param progressListener the listener to the progress of the renderings, called from the rendering threads
+     * @return the object itself
+     */
+    public Camera setProgressListener(RenderProgress.Listener progressListener) {
+        this.progressListener = progressListener;
+        return this;
+    }
+
+    /**
+     * progress getter, it could be polled from any thread while the image is rendered
+     *
+     * @return the progress of the current (or last) rendering, null if no rendering was started
+     */
+    public RenderProgress getProgress() {
+        return progress;
+    }
+
 
     /**
      * V up getter
@@ -183,6 +237,66 @@ public class Camera {
         return this;
     }
 
+    /**
+     * set the size of the tiles. Each thread renders a whole square of tileSize x tileSize pixels at a time
+     * @param tileSize the edge of the square of pixels in each tile
+     * @return the object itself
+     */
+    public Camera setTileSize(int tileSize) {
+        if (tileSize < 1)
+            throw new IllegalArgumentException("The tile size must be positive");
+        this.tileSize = tileSize;
+        return this;
+    }
+
+    /**
+     * set the number of threads that render the image (when threading is used)
+     * @param parallelism the number of threads
+     * @return the object itself
+     */
+    public Camera setParallelism(int parallelism) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("The parallelism must be positive");
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * set the adaptive anti-aliasing. The corners and the center of each pixel are sampled first, and a square
+     * is divided to four smaller squares (with eight more samples- the middles of its edges and the centers of the
+     * smaller squares) only while the colors of its corners and its center differ,
+     * so flat areas cost about two rays per pixel and only the edges get the full sampling.
+     * A detail smaller than a pixel that covers its center isn't lost even if all the corners miss it
+     * @param maxDepth  the maximal depth of the subdivision (0 turns the anti-aliasing off),
+     *                  a pixel gets at most (2^maxDepth+1)^2 samples on the corners of its squares
+     *                  and one at the center of each square
+     * @param threshold the largest difference of colors (in 0..255 units) of the corners and the center
+     *                  of a square that is taken as flat
+     * @return the object itself
+     */
+    public Camera setAntiAliasing(int maxDepth, double threshold) {
+        if (maxDepth < 0)
+            throw new IllegalArgumentException("The anti-aliasing depth can't be negative");
+        if (threshold < 0)
+            throw new IllegalArgumentException("The anti-aliasing threshold can't be negative");
+        this.antiAliasingDepth = maxDepth;
+        this.antiAliasingThreshold = threshold;
+        return this;
+    }
+
+    /**
+     * set the size of the ray packets. The camera rays of each square of packetSize x packetSize pixels
+     * are traced together, so they share the work of finding what they see (secondary rays are traced one by one)
+     * @param packetSize the edge of the square of pixels in each packet, 1 to trace each ray by itself
+     * @return the object itself
+     */
+    public Camera setPacketSize(int packetSize) {
+        if (packetSize < 1)
+            throw new IllegalArgumentException("The packet size must be positive");
+        this.packetSize = packetSize;
+        return this;
+    }
+
     /**
      * A method that generates a ray, starting at the point and going through
      * specific pixel in the view plane. Gets the resolution of the view plane and
@@ -195,27 +309,42 @@ public class Camera {
      * @return Ray that goes through the requested pixel in the view plane
      */
     public Ray constructRay(int nX, int nY, int j, int i) {
+        return constructRay(nX, nY, (double) j, (double) i);
+    }
+
+    /**
+     * A method that generates a ray, starting at the point and going through any point
+     * in the view plane, given in pixel units (the center of pixel [i][j] is at x=j, y=i).
+     *
+     * @param nX Horizontal component of the resolution.
+     * @param nY Vertical component of the resolution.
+     * @param x  The horizontal position in the view plane, in pixels
+     * @param y  The vertical position in the view plane, in pixels
+     * @return Ray that goes through the requested position in the view plane
+     */
+    private Ray constructRay(int nX, int nY, double x, double y) {
+        //the point is calculated on the scratch triple of the thread, only the ray and its direction are created
         //Center of the view plane
-        Point pIj = p0.add(vTo.scale(distance));
+        Vec3 pIj = scratch.get().set(p0).addScaled(vTo, distance);
         //height of each pixel
         double rY = height / nY;
         //width of each pixel
         double rX = width / nX;
         //vertical distance of the required pixel from the center of the view plane
-        double yI = -(i - ((double) (nY - 1)) / 2) * rY;
+        double yI = -(y - ((double) (nY - 1)) / 2) * rY;
         //horizontal distance of the required pixel from the center of the view plane
-        double xJ = -(j - ((double) (nX - 1)) / 2) * rX;
+        double xJ = -(x - ((double) (nX - 1)) / 2) * rX;
 
         //changing the position of the center point so that the ray will intersect the view plane in the right place
         if (xJ != 0) {
-            pIj = pIj.add(vRight.scale(xJ));
+            pIj.addScaled(vRight, xJ);
         }
         if (yI != 0) {
-            pIj = pIj.add(vUp.scale(yI));
+            pIj.addScaled(vUp, yI);
         }
 
         //return the ray
-        return new Ray(p0, pIj.subtract(p0).normalize());
+        return pIj.subtract(p0).normalize().toRay(p0);
     }
 
 
@@ -288,34 +417,189 @@ public class Camera {
             throw new MissingResourceException("One of the camera's attributes are missing", "rayTracerBase", "8");
         int nX = imageWriter.getNx();
         int nY = imageWriter.getNy();
-        if (threading) {//using threads
-            Pixel.initialize(nY, nX, printInterval);
-            IntStream.range(0, nY).parallel().forEach(i -> {
-                IntStream.range(0, nX).parallel().forEach(j -> {
-                    Ray ray = this.constructRay(nX, nY, j, i);
-                    if(i==55 && j==49) {
-                        int u = 5;
-                    }
-                    Color pixelColor = rayTracerBase.traceRay(ray);
-                    imageWriter.writePixel(j, i, pixelColor);
-                    Pixel.pixelDone();
-                    Pixel.printPixel();
-                });
+        RenderProgress.Listener listener = progressListener != null ? progressListener
+                : isZero(printInterval) ? null : RenderProgress.printer(printInterval);
+        RenderProgress progress = new RenderProgress((long) nX * nY, listener);
+        this.progress = progress;
+        if (threading) {//rendering tiles on a pool of threads
+            new TileScheduler(nX, nY, tileSize).render(parallelism, (column, row, columns, rows) -> {
+                long rays = renderTile(nX, nY, column, row, columns, rows);
+                //the progress is reported once for the whole tile
+                progress.done((long) columns * rows, rays);
             });
-        } else {//without threads
-            for (int i = 0; i < nX; i++) {
-                System.out.println(i + "/" + nX);
-                for (int j = 0; j < nY; j++) {
-                    //get the ray through the pixel
-                    Ray ray = this.constructRay(nX, nY, j, i);
-                    imageWriter.writePixel(j, i, rayTracerBase.traceRay(ray));
-                }
+        } else {//without threads, row after row
+            for (int i = 0; i < nY; i += packetSize) {
+                int rows = Math.min(packetSize, nY - i);
+                long rays = renderTile(nX, nY, 0, i, nX, rows);
+                progress.done((long) nX * rows, rays);
             }
         }
         return this;
     }
 
 
+    /**
+     * renders the pixels of a tile, in packets of rays if a packet size was set
+     *
+     * @param nX      Horizontal component of the resolution
+     * @param nY      Vertical component of the resolution
+     * @param column  the horizontal index of the first pixel of the tile
+     * @param row     the vertical index of the first pixel of the tile
+     * @param columns the number of pixel columns in the tile
+     * @param rows    the number of pixel rows in the tile
+     * @return the number of camera rays that were traced
+     */
+    private long renderTile(int nX, int nY, int column, int row, int columns, int rows) {
+        //the random numbers of the tile depend only on its position, not on the thread or the order of the tiles
+        rayTracerBase.seedRandom((long) row * nX + column);
+        if (antiAliasingDepth > 0)
+            return renderAdaptiveTile(nX, nY, column, row, columns, rows);
+        long rays = 0;
+        for (int i = row; i < row + rows; i += packetSize) {
+            for (int j = column; j < column + columns; j += packetSize) {
+                //the packets at the edges of the tile may be smaller
+                rays += renderPacket(nX, nY, j, i, Math.min(packetSize, column + columns - j), Math.min(packetSize, row + rows - i));
+            }
+        }
+        return rays;
+    }
+
+    /**
+     * renders the pixels of a tile with adaptive anti-aliasing. The corners (each corner once for the pixels
+     * that share it) and the centers of all the pixels are traced first,
+     * then each pixel is subdivided where its corners and its center differ
+     *
+     * @param nX      Horizontal component of the resolution
+     * @param nY      Vertical component of the resolution
+     * @param column  the horizontal index of the first pixel of the tile
+     * @param row     the vertical index of the first pixel of the tile
+     * @param columns the number of pixel columns in the tile
+     * @param rows    the number of pixel rows in the tile
+     * @return the number of camera rays that were traced
+     */
+    private long renderAdaptiveTile(int nX, int nY, int column, int row, int columns, int rows) {
+        int width = columns + 1;
+        //the corners are followed by the centers, all of them are traced together
+        int centers = width * (rows + 1);
+        Ray[] rays = new Ray[centers + rows * columns];
+        for (int i = 0; i <= rows; i++)
+            for (int j = 0; j <= columns; j++)
+                rays[i * width + j] = constructRay(nX, nY, column + j - 0.5, row + i - 0.5);
+        for (int i = 0; i < rows; i++)
+            for (int j = 0; j < columns; j++)
+                rays[centers + i * columns + j] = constructRay(nX, nY, column + j, row + i);
+        Color[] samples = traceRays(rays);
+        long[] count = {rays.length};
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                int corner = i * width + j;
+                imageWriter.writePixel(column + j, row + i, adaptiveSample(nX, nY, column + j, row + i, 1,
+                        samples[corner], samples[corner + 1], samples[corner + width], samples[corner + width + 1],
+                        samples[centers + i * columns + j], antiAliasingDepth, count));
+            }
+        }
+        return count[0];
+    }
+
+    /**
+     * calculates the color of a square in the view plane from the colors of its corners and its center,
+     * the square is subdivided to four smaller squares while they differ
+     *
+     * @param nX          Horizontal component of the resolution
+     * @param nY          Vertical component of the resolution
+     * @param x           the horizontal position of the center of the square, in pixels
+     * @param y           the vertical position of the center of the square, in pixels
+     * @param size        the edge of the square, in pixels
+     * @param topLeft     the color of the top left corner
+     * @param topRight    the color of the top right corner
+     * @param bottomLeft  the color of the bottom left corner
+     * @param bottomRight the color of the bottom right corner
+     * @param center      the color of the center
+     * @param depth       the remaining depth of the subdivision
+     * @param count       counter of the traced rays (a single cell)
+     * @return the color of the square
+     */
+    private Color adaptiveSample(int nX, int nY, double x, double y, double size, Color topLeft, Color topRight,
+                                 Color bottomLeft, Color bottomRight, Color center, int depth, long[] count) {
+        if (depth == 0 || isFlat(topLeft, topRight, bottomLeft, bottomRight, center))
+            return topLeft.add(topRight, bottomLeft, bottomRight, center).reduce(5);
+
+        //the center and the middles of the edges are shared by the smaller squares
+        double half = size / 2, quarter = size / 4;
+        Color[] samples = traceRays(new Ray[]{
+                constructRay(nX, nY, x, y - half),
+                constructRay(nX, nY, x, y + half),
+                constructRay(nX, nY, x - half, y),
+                constructRay(nX, nY, x + half, y),
+                constructRay(nX, nY, x - quarter, y - quarter),
+                constructRay(nX, nY, x + quarter, y - quarter),
+                constructRay(nX, nY, x - quarter, y + quarter),
+                constructRay(nX, nY, x + quarter, y + quarter)});
+        count[0] += samples.length;
+        Color top = samples[0], bottom = samples[1], left = samples[2], right = samples[3];
+        return adaptiveSample(nX, nY, x - quarter, y - quarter, half, topLeft, top, left, center, samples[4], depth - 1, count)
+                .add(adaptiveSample(nX, nY, x + quarter, y - quarter, half, top, topRight, center, right, samples[5], depth - 1, count),
+                        adaptiveSample(nX, nY, x - quarter, y + quarter, half, left, center, bottomLeft, bottom, samples[6], depth - 1, count),
+                        adaptiveSample(nX, nY, x + quarter, y + quarter, half, center, right, bottom, bottomRight, samples[7], depth - 1, count))
+                .reduce(4);
+    }
+
+    /**
+     * checks if the colors of the samples of a square are close enough that it needn't be subdivided
+     *
+     * @param colors the colors of the corners and the center
+     * @return true if no two colors differ beyond the anti-aliasing threshold
+     */
+    private boolean isFlat(Color... colors) {
+        for (int a = 0; a < colors.length; a++)
+            for (int b = a + 1; b < colors.length; b++)
+                if (colors[a].difference(colors[b]) > antiAliasingThreshold)
+                    return false;
+        return true;
+    }
+
+    /**
+     * traces a group of camera rays, together if packets are used or one by one otherwise
+     *
+     * @param rays the rays
+     * @return the colors of the rays
+     */
+    private Color[] traceRays(Ray[] rays) {
+        if (packetSize > 1)
+            return rayTracerBase.traceRays(rays);
+        Color[] colors = new Color[rays.length];
+        for (int i = 0; i < rays.length; i++)
+            colors[i] = rayTracerBase.traceRay(rays[i]);
+        return colors;
+    }
+
+    /**
+     * traces the rays of a packet of pixels together and writes their colors
+     *
+     * @param nX      Horizontal component of the resolution
+     * @param nY      Vertical component of the resolution
+     * @param column  the horizontal index of the first pixel of the packet
+     * @param row     the vertical index of the first pixel of the packet
+     * @param columns the number of pixel columns in the packet
+     * @param rows    the number of pixel rows in the packet
+     * @return the number of camera rays that were traced
+     */
+    private int renderPacket(int nX, int nY, int column, int row, int columns, int rows) {
+        if (columns * rows == 1) {//a single ray
+            imageWriter.writePixel(column, row, rayTracerBase.traceRay(constructRay(nX, nY, column, row)));
+            return 1;
+        }
+        Ray[] rays = new Ray[rows * columns];
+        for (int i = 0; i < rows; i++)
+            for (int j = 0; j < columns; j++)
+                rays[i * columns + j] = constructRay(nX, nY, column + j, row + i);
+        Color[] colors = rayTracerBase.traceRays(rays);
+        for (int i = 0; i < rows; i++)
+            for (int j = 0; j < columns; j++)
+                imageWriter.writePixel(column + j, row + i, colors[i * columns + j]);
+        return rays.length;
+    }
+
     /**
      * Prints a grid
      *
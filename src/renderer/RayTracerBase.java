@@ -1,14 +1,82 @@
 package renderer;
 
+import geometries.Geometry;
+import lighting.AreaLight;
+import lighting.LightIndex;
+import lighting.LightSource;
 import primitives.Color;
+import primitives.Double3;
+import primitives.Point;
 import primitives.Ray;
+import primitives.Vector;
 import scene.Scene;
 
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
 /**
  * an abstract class to be the base to RayTracerBasic
  */
 public abstract class RayTracerBase {
     protected final Scene scene;
+    /**
+     * the factor the edge of the sample grid (of glossy and diffusive surfaces) is multiplied by in each level of
+     * the recursion, 1 samples the full grid in all the levels
+     */
+    private double sampleDecay = 1;
+    /**
+     * the depth of the recursion from which a single ray is traced instead of the sample grid
+     */
+    private int singleSampleDepth = Integer.MAX_VALUE;
+    /**
+     * whether the sample grid is also reduced by the attenuation of the path of the rays
+     */
+    private boolean attenuatedSampling = false;
+    /**
+     * whether the sample grid is sampled adaptively
+     */
+    private boolean adaptiveSampling = false;//by default sample the whole grid
+    /**
+     * the largest difference of colors (in 0..255 units) of the corners of a square of the grid that isn't divided
+     */
+    private double adaptiveThreshold = 10;
+    /**
+     * the depth of the recursion from which the paths are terminated by Russian roulette
+     */
+    private int rouletteDepth = Integer.MAX_VALUE;
+    /**
+     * the generator of the random numbers of the roulette, for each thread.
+     * The camera seeds it at the start of each tile, so the image doesn't depend on the thread that rendered the tile
+     */
+    private final ThreadLocal<SplittableRandom> random = ThreadLocal.withInitial(() -> new SplittableRandom(0));
+    /**
+     * whether the last occluder of each light source is tested before the whole scene
+     */
+    private boolean shadowCache = true;
+    /**
+     * the last opaque geometry that blocked each light source, for each thread
+     * (each thread renders its own pixels, so it keeps its own occluders without synchronization)
+     */
+    private final ThreadLocal<Map<LightSource, Geometry>> occluders = ThreadLocal.withInitial(IdentityHashMap::new);
+    /**
+     * the number of shadow queries that were answered by the cached occluder
+     */
+    private final LongAdder shadowCacheHits = new LongAdder();
+    /**
+     * the number of shadow queries that needed the whole scene
+     */
+    private final LongAdder shadowCacheMisses = new LongAdder();
+    /**
+     * the lowest intensity of a light that is considered a contribution, 0 shades with all the lights
+     */
+    private double lightThreshold = 0;
+    /**
+     * the spatial index of the lights of the scene (built on the first use)
+     */
+    private volatile LightIndex lightIndex;
 
     /**
      * RayTracerBase constructor
@@ -19,6 +87,282 @@ public abstract class RayTracerBase {
         this.scene = scene;
     }
 
+    /**
+     * sets the budget of the sample rays of glossy and diffusive surfaces. By default every hit samples
+     * the full grid of the target area, so the number of rays grows exponentially with the depth of the recursion.
+     * With a budget the edge of the grid shrinks in each level, and a single ray is traced in the deep levels.
+     * For example setSampleBudget(0.5, 3, true) samples the full grid at the first hit, half of its edge
+     * at the second one, and a single ray from the third reflection on.
+     *
+     * @param decay             the factor the edge of the grid is multiplied by in each level, in (0,1]
+     * @param singleSampleDepth the depth of the recursion (0 for the hit of the camera ray)
+     *                          from which a single ray is traced
+     * @param attenuated        whether the edge of the grid is also multiplied by the square root of the
+     *                          attenuation of the sampled rays, so the number of rays is proportional to it
+     * @return the object itself
+     */
+    public RayTracerBase setSampleBudget(double decay, int singleSampleDepth, boolean attenuated) {
+        if (decay <= 0 || decay > 1)
+            throw new IllegalArgumentException("The sample decay must be in (0,1]");
+        if (singleSampleDepth < 0)
+            throw new IllegalArgumentException("The single sample depth can't be negative");
+        this.sampleDecay = decay;
+        this.singleSampleDepth = singleSampleDepth;
+        this.attenuatedSampling = attenuated;
+        return this;
+    }
+
+    /**
+     * sets the adaptive sampling of the sample grid of glossy and diffusive surfaces. The corners of the grid
+     * are traced first, and the inside of a square is traced only if the colors of its corners differ,
+     * so the flat parts of the grid cost a few rays instead of all of them
+     *
+     * @param adaptive  whether to sample the grid adaptively
+     * @param threshold the largest difference of colors (in 0..255 units) of the corners of a square
+     *                  that is taken as flat
+     * @return the object itself
+     */
+    public RayTracerBase setAdaptiveSampling(boolean adaptive, double threshold) {
+        if (threshold < 0)
+            throw new IllegalArgumentException("The adaptive threshold can't be negative");
+        this.adaptiveSampling = adaptive;
+        this.adaptiveThreshold = threshold;
+        return this;
+    }
+
+    /**
+     * calculates the resolution of the sample grid of a hit by the sample budget
+     *
+     * @param depth       the depth of the recursion of the hit (0 for the hit of the camera ray)
+     * @param attenuation the attenuation of the sampled rays
+     * @return how many rays on each column and row of the grid, between 1 and the resolution of the target area
+     */
+    protected int sampleResolution(int depth, Double3 attenuation) {
+        int full = Sampling.getTargetAreaResolution();
+        if (depth >= singleSampleDepth) return 1;
+        double edge = full * Math.pow(sampleDecay, depth);
+        if (attenuatedSampling)
+            edge *= Math.sqrt(attenuation.max());
+        return (int) Math.max(1, Math.min(full, Math.ceil(edge)));
+    }
+
+    /**
+     * Calculates the average color seen around a reflected or refracted ray of a glossy or diffusive surface,
+     * on a sample grid reduced by the sample budget, sampled adaptively if it was set.
+     * A grid of a single ray traces the ray itself
+     *
+     * @param ray         the reflected or refracted ray
+     * @param spread      glossy/diffusive attenuation coefficient
+     * @param n           normal to the head of the ray
+     * @param depth       the depth of the recursion of the hit (0 for the hit of the camera ray)
+     * @param attenuation the attenuation of the sampled rays
+     * @param trace       calculates the color seen by a ray
+     * @return the average color
+     */
+    protected Color sampleGlobalEffect(Ray ray, double spread, Vector n, int depth, Double3 attenuation,
+                                       Function<Ray, Color> trace) {
+        int resolution = sampleResolution(depth, attenuation);
+        if (adaptiveSampling && resolution > 1)
+            return Sampling.sample(ray, spread, n, resolution, adaptiveThreshold, trace);
+        if (resolution == Sampling.getTargetAreaResolution())
+            return Sampling.sample(ray, spread, n, trace);
+        return resolution == 1 ? trace.apply(ray) : Sampling.sample(ray, spread, n, resolution, trace);
+    }
+
+    /**
+     * sets the depth of the recursion from which the paths are terminated by Russian roulette.
+     * From that depth a path goes on with a probability equal to its attenuation (its largest component),
+     * and the color it brings is divided by that probability, so on average the image isn't darkened,
+     * while the weak paths that cost the same as the strong ones are mostly cut
+     *
+     * @param rouletteDepth the depth of the recursion (0 for the hit of the camera ray), Integer.MAX_VALUE to
+     *                      trace all the paths until their attenuation is insignificant
+     * @return the object itself
+     */
+    public RayTracerBase setRussianRoulette(int rouletteDepth) {
+        if (rouletteDepth < 0)
+            throw new IllegalArgumentException("The roulette depth can't be negative");
+        this.rouletteDepth = rouletteDepth;
+        return this;
+    }
+
+    /**
+     * decides by Russian roulette if a path goes on from a hit
+     *
+     * @param depth       the depth of the recursion of the hit (0 for the hit of the camera ray)
+     * @param attenuation the attenuation of the path up to the hit
+     * @return the probability the path survived in (its global effect should be divided by it),
+     * 1 before the roulette depth, 0 if the path is terminated
+     */
+    protected double rouletteSurvival(int depth, Double3 attenuation) {
+        if (depth < rouletteDepth) return 1;
+        double probability = Math.min(1, attenuation.max());
+        if (probability >= 1) return 1;
+        //each thread draws from its own generator, so the threads don't contend on it
+        return random.get().nextDouble() < probability ? probability : 0;
+    }
+
+    /**
+     * seeds the random generator of the current thread, so the random decisions of the tracer
+     * (such as the Russian roulette) are repeated in each render of the same pixels
+     *
+     * @param seed the seed, the index of the first pixel of the tile that the thread starts to render
+     */
+    void seedRandom(long seed) {
+        random.set(new SplittableRandom(seed));
+    }
+
+    /**
+     * sets the lowest intensity of a light that is considered a contribution. Each attenuated point light
+     * (or spot light) reaches only the points its attenuated intensity isn't lower than the threshold at,
+     * and the lights are found by a spatial index, so shading a point costs about the same no matter
+     * how many lights the scene has. The index is built when the lights are first needed,
+     * and again when lights are added to the scene or removed from it.
+     *
+     * @param lightThreshold the lowest intensity (in the units of the light colors), 0 shades with all the lights
+     * @return the object itself
+     */
+    public RayTracerBase setLightThreshold(double lightThreshold) {
+        if (lightThreshold < 0)
+            throw new IllegalArgumentException("The light threshold can't be negative");
+        this.lightThreshold = lightThreshold;
+        this.lightIndex = null;
+        return this;
+    }
+
+    /**
+     * drops the spatial index of the lights, so it's built again when the lights are needed.
+     * A new list of lights, and lights that are added to the list or removed from it, are found by themselves,
+     * this is needed only when a light of the list is replaced or changed (moved or attenuated differently)
+     *
+     * @return the object itself
+     */
+    public RayTracerBase invalidateLights() {
+        this.lightIndex = null;
+        return this;
+    }
+
+    /**
+     * returns the spatial index of the lights of the scene, the lights that contribute to the shading of a point
+     * are the candidates of the point that reach it
+     *
+     * @return the index of the current lights of the scene (without a threshold every light is a candidate
+     * of every point)
+     */
+    protected LightIndex lightIndex() {
+        LightIndex index = lightIndex;
+        //the index is built again if the list of lights was replaced or changed its size since it was built
+        if (index == null || !index.isOf(scene.lights)) {
+            synchronized (this) {
+                index = lightIndex;
+                if (index == null || !index.isOf(scene.lights))
+                    lightIndex = index = new LightIndex(scene.lights, lightThreshold);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * calculates how much of an area light reaches a point, by shadow rays towards a grid of samples on the light.
+     * The samples on the boundary of the grid are tested first, and if they all agree the point is
+     * considered fully lit (or fully shadowed by the same transparency) without testing the inner samples,
+     * so only points in the penumbra pay for the whole grid. An occluder smaller than a square of the grid
+     * that is seen only through the inner part of the light may be missed.
+     *
+     * @param light        the area light
+     * @param transparency calculates the transparency of the shadow ray towards a sample on the light
+     * @return the average transparency of the samples
+     */
+    protected Double3 softShadow(AreaLight light, Function<Point, Double3> transparency) {
+        int resolution = light.getSampleResolution();
+        if (resolution == 1) return transparency.apply(light.getSample(0, 0));
+
+        Double3 sum = Double3.ZERO, first = null;
+        boolean uniform = true;
+        for (int i = 0; i < resolution; i++) {
+            //the inner squares of the row are skipped in the first pass
+            int step = i == 0 || i == resolution - 1 ? 1 : resolution - 1;
+            for (int j = 0; j < resolution; j += step) {
+                Double3 ktr = transparency.apply(light.getSample(i, j));
+                sum = sum.add(ktr);
+                if (first == null) first = ktr;
+                else if (uniform && !ktr.equals(first)) uniform = false;
+            }
+        }
+        if (uniform) return first;
+
+        for (int i = 1; i < resolution - 1; i++)
+            for (int j = 1; j < resolution - 1; j++)
+                sum = sum.add(transparency.apply(light.getSample(i, j)));
+        return sum.reduce(resolution * resolution);
+    }
+
+    /**
+     * sets whether the shadow queries test first the geometry that blocked the same light source last time.
+     * Neighbouring points are usually in the shadow of the same geometry, so a shadow query often ends
+     * after a single intersection test
+     *
+     * @param shadowCache true to use the cache of the occluders
+     * @return the object itself
+     */
+    public RayTracerBase setShadowCache(boolean shadowCache) {
+        this.shadowCache = shadowCache;
+        return this;
+    }
+
+    /**
+     * returns the number of shadow queries that were answered by the cached occluder
+     *
+     * @return the number of cache hits
+     */
+    public long getShadowCacheHits() {
+        return shadowCacheHits.sum();
+    }
+
+    /**
+     * returns the number of shadow queries that were tested against the whole scene
+     *
+     * @return the number of cache misses
+     */
+    public long getShadowCacheMisses() {
+        return shadowCacheMisses.sum();
+    }
+
+    /**
+     * checks if the last geometry that blocked a light source (on this thread) blocks a shadow ray too
+     *
+     * @param lightSource the light source
+     * @param lightRay    the ray from the point towards the light source
+     * @param maxDistance the distance of the light source
+     * @param threshold   the transparency below which the light is considered blocked
+     * @return true if the cached occluder blocks the ray, false if the whole scene should be tested
+     */
+    protected boolean cachedOccluderBlocks(LightSource lightSource, Ray lightRay, double maxDistance,
+                                           double threshold) {
+        if (!shadowCache) return false;
+        Geometry occluder = occluders.get().get(lightSource);
+        if (occluder != null && occluder.occlusion(lightRay, maxDistance, threshold).lowerThan(threshold)) {
+            shadowCacheHits.increment();
+            return true;
+        }
+        shadowCacheMisses.increment();
+        return false;
+    }
+
+    /**
+     * remembers the geometry that blocked a light source (on this thread) for the next shadow queries.
+     * Only a geometry that blocks the light by itself is kept- a transparent one may have blocked it only
+     * together with other geometries, so its intersection alone doesn't prove a shadow
+     *
+     * @param lightSource the light source
+     * @param blocker     the geometry that blocked the light (null if it wasn't blocked)
+     * @param threshold   the transparency below which the light is considered blocked
+     */
+    protected void cacheOccluder(LightSource lightSource, Geometry blocker, double threshold) {
+        if (shadowCache && blocker != null && blocker.getMaterial().kT.lowerThan(threshold))
+            occluders.get().put(lightSource, blocker);
+    }
+
     /**
      * Trace the ray to find the color at the intersection point
      *
@@ -26,4 +370,18 @@ public abstract class RayTracerBase {
      * @return the color at the intersection point
      */
     public abstract Color traceRay(Ray ray);
+
+    /**
+     * Trace a packet of coherent rays (such as the rays of neighbouring pixels) to find their colors.
+     * By default the rays are traced one by one, a tracer that can share work between the rays overrides it.
+     *
+     * @param rays the rays to find the colors at their intersection points
+     * @return the colors at the intersection points, one for each ray
+     */
+    public Color[] traceRays(Ray[] rays) {
+        Color[] colors = new Color[rays.length];
+        for (int i = 0; i < rays.length; i++)
+            colors[i] = traceRay(rays[i]);
+        return colors;
+    }
 }
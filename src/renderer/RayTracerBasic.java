@@ -1,12 +1,15 @@
 package renderer;
 
+import lighting.AreaLight;
+import lighting.LightIndex;
+import lighting.LightSample;
 import lighting.LightSource;
 import primitives.*;
 import scene.Scene;
+import geometries.Geometry;
+import geometries.Intersectable;
 import geometries.Intersectable.GeoPoint;
 
-import java.util.LinkedList;
-import java.util.List;
 
 import static primitives.Util.*;
 
@@ -49,6 +52,27 @@ public class RayTracerBasic extends RayTracerBase {
         return closestIntersection == null ? scene.background : calcColor(closestIntersection, ray);
     }
 
+    /**
+     * tracing a packet of rays together, their closest intersections are found in one query on the scene,
+     * the colors (and all the secondary rays) are calculated for each ray separately.
+     *
+     * @param rays the rays we need to get the colors for.
+     * @return the colors of the pixels.
+     */
+    @Override
+    public Color[] traceRays(Ray[] rays) {
+        Intersectable.Hit[] hits = new Intersectable.Hit[rays.length];
+        for (int i = 0; i < rays.length; i++)
+            hits[i] = new Intersectable.Hit(rays[i], Double.POSITIVE_INFINITY);
+        scene.geometries.findClosestHits(rays, hits);
+        Color[] colors = new Color[rays.length];
+        for (int i = 0; i < rays.length; i++) {
+            GeoPoint closestIntersection = hits[i].getGeoPoint();
+            colors[i] = closestIntersection == null ? scene.background : calcColor(closestIntersection, rays[i]);
+        }
+        return colors;
+    }
+
 
     /**
      * calculate the color that needed to be returned from the pixel.
@@ -74,7 +98,12 @@ public class RayTracerBasic extends RayTracerBase {
      */
     private Color calcColor(GeoPoint gp, Ray ray, int level, Double3 k) {
         Color color = calcLocalEffects(gp, ray, k);
-        return level == 1 ? color : color.add(calcGlobalEffect(gp, ray, level, k));
+        if (level == 1) return color;
+        //past the roulette depth the path goes on only by chance, and its global effect is reweighted
+        double survival = rouletteSurvival(MAX_CALC_COLOR_LEVEL - level, k);
+        if (survival == 0) return color;
+        Color global = calcGlobalEffect(gp, ray, level, k);
+        return color.add(survival == 1 ? global : global.scale(1 / survival));
     }
 
     /**
@@ -117,25 +146,15 @@ public class RayTracerBasic extends RayTracerBase {
 
         //If diffusive glass
         if (material.kDg != 0) {
-            //super sample the refracted ray
-            LinkedList<Ray> diffusedSampling = Sampling.superSample(refractedRay, material.kDg, normal);
-            //for each sampling ray calculate the global effect
-            for (var secondaryRay : diffusedSampling) {
-                diffSamplingSum = diffSamplingSum.add(calcGlobalEffect(secondaryRay, level, k, material.kT));
-            }
-            //take the average of the calculation for all sample rays
-            diffSamplingSum = diffSamplingSum.reduce(diffusedSampling.size());
+            //super sample the refracted ray, the average of the global effect of the sample rays the budget allows
+            diffSamplingSum = sampleGlobalEffect(refractedRay, material.kDg, normal, MAX_CALC_COLOR_LEVEL - level,
+                    k.product(material.kT), secondaryRay -> calcGlobalEffect(secondaryRay, level, k, material.kT));
         }
         //If glossy surface
         if (material.kSg != 0) {
-            //super sample the reflected ray
-            LinkedList<Ray> glossySampling = Sampling.superSample(reflectedRay, material.kSg, normal);
-            //for each sampling ray calculate the global effect
-            for (var secondaryRay : glossySampling) {
-                glossSamplingSum = glossSamplingSum.add(calcGlobalEffect(secondaryRay, level, k, material.kR));
-            }
-            //take the average of the calculation for all sample rays
-            glossSamplingSum = glossSamplingSum.reduce(glossySampling.size());
+            //super sample the reflected ray, the average of the global effect of the sample rays the budget allows
+            glossSamplingSum = sampleGlobalEffect(reflectedRay, material.kSg, normal, MAX_CALC_COLOR_LEVEL - level,
+                    k.product(material.kR), secondaryRay -> calcGlobalEffect(secondaryRay, level, k, material.kR));
         }
 
         //If diffusive and glossy return both of the results above
@@ -178,16 +197,24 @@ public class RayTracerBasic extends RayTracerBase {
 
         //go through all the light sources and calculate their
         //intersection at the point
-        for (LightSource lightSource : scene.lights) {
-            Vector l = lightSource.getL(intersection.point);
+        LightIndex lights = lightIndex();
+        for (int i : lights.candidatesAt(intersection.point)) {
+            //the candidates of the cell of the point are checked by their distance here, so nothing is allocated
+            if (!lights.reaches(i, intersection.point)) continue;
+            LightSource lightSource = lights.get(i);
+            //the direction and intensity of the light are calculated together,
+            //and a light that can't reach the point (out of the cone of a spot) is skipped
+            LightSample sample = lightSource.sample(intersection.point);
+            if (sample == null) continue;
+            Vector l = sample.l;
             double nl = alignZero(n.dotProduct(l));
             //Check the angle to decide whether
             //to add the effect of the other light sources
             if (nl * nv > 0) { // sign(nl) == sing(nv)
-                Double3 ktr = transparency(intersection, l, n, lightSource);
+                Double3 ktr = transparency(intersection, sample, n, lightSource);
                 //Here we deal with the transparency of the objects
                 if (!ktr.product(k).lowerThan(MIN_CALC_COLOR_K)) {
-                    Color iL = lightSource.getIntensity(intersection.point).scale(ktr);
+                    Color iL = sample.intensity.scale(ktr);
                     color = color.add( //
                             iL.scale(calcDiffusive(material, nl)//diffusive effect
                                     .add(calcSpecular(material, n, l, nl, v))));//specular effect
@@ -209,8 +236,12 @@ public class RayTracerBasic extends RayTracerBase {
      */
     private Double3 calcSpecular(Material material, Vector n, Vector l, double nl, Vector v) {
         //the reflection of the light source vector (l)
-        Vector r = l.subtract(n.scale(2 * nl));
-        double minusVr = alignZero(-v.dotProduct(r));
+        //(calculated in local coordinates, since only its dot product is needed)
+        double factor = -2 * nl;
+        double rX = l.getX() + n.getX() * factor;
+        double rY = l.getY() + n.getY() * factor;
+        double rZ = l.getZ() + n.getZ() * factor;
+        double minusVr = alignZero(-((rX * v.getX()) + (rY * v.getY()) + (rZ * v.getZ())));
         if (minusVr <= 0) return Double3.ZERO;
 
         //Calculation of the effect according to phong model
@@ -232,28 +263,45 @@ public class RayTracerBasic extends RayTracerBase {
      * Determining how much light reach a certain point, blocked by other objects
      *
      * @param gp          the point we want to calculate the transparency for
-     * @param l           vector from the light source
+     * @param sample      the light of the light source at the point (its direction and distance)
      * @param n           normal to the point
      * @param lightSource the light source
      * @return the transparency of the point
      */
-    private Double3 transparency(GeoPoint gp, Vector l, Vector n, LightSource lightSource) {
-        Vector lightDirection = l.scale(-1); // from point to light source
+    private Double3 transparency(GeoPoint gp, LightSample sample, Vector n, LightSource lightSource) {
+        //an area light is seen through shadow rays towards samples on its surface
+        if (lightSource instanceof AreaLight area)
+            return softShadow(area, point -> {
+                Ray sampleRay = new Ray(gp.point, point.subtract(gp.point).normalize(), n);
+                return transparency(sampleRay, point.distance(sampleRay.getP0()), lightSource);
+            });
+
+        Vector lightDirection = sample.l.scale(-1); // from point to light source
         //We make sure to move the object by DELTA
         //int the correct direction
         //Create a new ray to check shadiness
         Ray lightRay = new Ray(gp.point, lightDirection, n);
+        //the distance of the sample is from the point, the head of the ray was moved by DELTA off the surface
+        double maxDistance = sample.distance - lightRay.getP0().subtract(gp.point).dotProduct(lightDirection);
+        return transparency(lightRay, maxDistance, lightSource);
+    }
 
-        Double3 ktr = Double3.ONE;
-        //Find if any geometric object blocks the light
-        List<GeoPoint> intersections = scene.geometries.findGeoIntersections(lightRay, lightSource.getDistance(lightRay.getP0()));
-        if (intersections == null)
-            return ktr;
-        //For every geometric object in the list, scale by its transparency coefficient
-        for (var geoPoint : intersections) {
-            ktr = ktr.product(geoPoint.geometry.getMaterial().kT);
-            if (ktr.lowerThan(MIN_CALC_COLOR_K)) return Double3.ZERO;
-        }
+    /**
+     * Determining how much light passes through the geometric objects along a shadow ray
+     *
+     * @param lightRay    the ray from the point towards the light source
+     * @param maxDistance the distance of the light source (or of its sample) from the head of the ray
+     * @param lightSource the light source
+     * @return the transparency along the ray
+     */
+    private Double3 transparency(Ray lightRay, double maxDistance, LightSource lightSource) {
+        //Find how much of the light passes through the geometric objects on the way to the light source,
+        //the geometry that blocked this light last time is tested first
+        if (cachedOccluderBlocks(lightSource, lightRay, maxDistance, MIN_CALC_COLOR_K))
+            return Double3.ZERO;
+        Geometry[] blocker = new Geometry[1];
+        Double3 ktr = scene.geometries.occlusion(lightRay, maxDistance, MIN_CALC_COLOR_K, blocker);
+        cacheOccluder(lightSource, blocker[0], MIN_CALC_COLOR_K);
         return ktr;
     }
 
@@ -268,7 +316,7 @@ public class RayTracerBasic extends RayTracerBase {
      */
     private Ray constructReflectedRay(Vector normal, Point intersection, Vector incomeRayVector) {
         double scale = -2 * incomeRayVector.dotProduct(normal);
-        return new Ray(intersection, incomeRayVector.add(normal.scale(scale)), normal);
+        return new Ray(intersection, new Vec3().set(incomeRayVector).addScaled(normal, scale).toVector(), normal);
     }
 
     /**
@@ -290,7 +338,7 @@ public class RayTracerBasic extends RayTracerBase {
      * @return the closest intersection GeoPoint
      */
     private GeoPoint findClosestIntersection(Ray ray) {
-        return ray.findClosestGeoPoint(scene.geometries.findGeoIntersections(ray));
+        return scene.geometries.findClosestGeoIntersection(ray);
     }
 
 }
\ No newline at end of file
@@ -1,17 +1,19 @@
 package renderer;
 
 import geometries.*;
-import geometries.Polygon;
+import lighting.AreaLight;
+import lighting.LightIndex;
+import lighting.LightSample;
 import lighting.LightSource;
 import primitives.*;
 import primitives.Vector;
 import scene.Scene;
+import scene.VoxelGrid;
 
 
 import java.util.*;
 
 import static primitives.Util.alignZero;
-import static primitives.Util.isZero;
 
 /**
  * Ray tracer that using the regular grid
@@ -31,9 +33,9 @@ public class RayTracerRegular extends RayTracerBase {
     private static final double INITIAL_K = 1.0;
 
     /**
-     * small number in order to move the ray
+     * the mailbox of each rendering thread, it remembers which geometric entities the current ray has already tested
      */
-    private final double EPSILON = 0.001;
+    private final ThreadLocal<Mailbox> mailboxes = ThreadLocal.withInitial(Mailbox::new);
 
     /**
      * construction the class with the given scene.
@@ -84,7 +86,12 @@ public class RayTracerRegular extends RayTracerBase {
      */
     private Color calcColor(Intersectable.GeoPoint gp, Ray ray, int level, Double3 k) {
         Color color = calcLocalEffects(gp, ray, k);
-        return level == 1 ? color : color.add(calcGlobalEffect(gp, ray, level, k));
+        if (level == 1) return color;
+        //past the roulette depth the path goes on only by chance, and its global effect is reweighted
+        double survival = rouletteSurvival(MAX_CALC_COLOR_LEVEL - level, k);
+        if (survival == 0) return color;
+        Color global = calcGlobalEffect(gp, ray, level, k);
+        return color.add(survival == 1 ? global : global.scale(1 / survival));
     }
 
     /**
@@ -127,25 +134,15 @@ public class RayTracerRegular extends RayTracerBase {
 
         //If diffusive glass
         if (material.kDg != 0) {
-            //super sample the refracted ray
-            LinkedList<Ray> diffusedSampling = Sampling.superSample(refractedRay, material.kDg, normal);
-            //for each sampling ray calculate the global effect
-            for (var secondaryRay : diffusedSampling) {
-                diffSamplingSum = diffSamplingSum.add(calcGlobalEffect(secondaryRay, level, k, material.kT));
-            }
-            //take the average of the calculation for all sample rays
-            diffSamplingSum = diffSamplingSum.reduce(diffusedSampling.size());
+            //super sample the refracted ray, the average of the global effect of the sample rays the budget allows
+            diffSamplingSum = sampleGlobalEffect(refractedRay, material.kDg, normal, MAX_CALC_COLOR_LEVEL - level,
+                    k.product(material.kT), secondaryRay -> calcGlobalEffect(secondaryRay, level, k, material.kT));
         }
         //If glossy surface
         if (material.kSg != 0) {
-            //super sample the reflected ray
-            LinkedList<Ray> glossySampling = Sampling.superSample(reflectedRay, material.kSg, normal);
-            //for each sampling ray calculate the global effect
-            for (var secondaryRay : glossySampling) {
-                glossSamplingSum = glossSamplingSum.add(calcGlobalEffect(secondaryRay, level, k, material.kR));
-            }
-            //take the average of the calculation for all sample rays
-            glossSamplingSum = glossSamplingSum.reduce(glossySampling.size());
+            //super sample the reflected ray, the average of the global effect of the sample rays the budget allows
+            glossSamplingSum = sampleGlobalEffect(reflectedRay, material.kSg, normal, MAX_CALC_COLOR_LEVEL - level,
+                    k.product(material.kR), secondaryRay -> calcGlobalEffect(secondaryRay, level, k, material.kR));
         }
 
         //If diffusive and glossy return both of the results above
@@ -188,16 +185,24 @@ public class RayTracerRegular extends RayTracerBase {
 
         //go through all the light sources and calculate their
         //intersection at the point
-        for (LightSource lightSource : scene.lights) {
-            Vector l = lightSource.getL(intersection.point);
+        LightIndex lights = lightIndex();
+        for (int i : lights.candidatesAt(intersection.point)) {
+            //the candidates of the cell of the point are checked by their distance here, so nothing is allocated
+            if (!lights.reaches(i, intersection.point)) continue;
+            LightSource lightSource = lights.get(i);
+            //the direction and intensity of the light are calculated together,
+            //and a light that can't reach the point (out of the cone of a spot) is skipped
+            LightSample sample = lightSource.sample(intersection.point);
+            if (sample == null) continue;
+            Vector l = sample.l;
             double nl = alignZero(n.dotProduct(l));
             //Check the angle to decide whether
             //to add the effect of the other light sources
             if (nl * nv > 0) { // sign(nl) == sing(nv)
-                Double3 ktr = transparency(intersection, l, n, lightSource);
+                Double3 ktr = transparency(intersection, sample, n, lightSource);
                 //Here we deal with the transparency of the objects
                 if (!ktr.product(k).lowerThan(MIN_CALC_COLOR_K)) {
-                    Color iL = lightSource.getIntensity(intersection.point).scale(ktr);
+                    Color iL = sample.intensity.scale(ktr);
                     color = color.add( //
                             iL.scale(calcDiffusive(material, nl)//diffusive effect
                                     .add(calcSpecular(material, n, l, nl, v))));//specular effect
@@ -219,8 +224,12 @@ public class RayTracerRegular extends RayTracerBase {
      */
     private Double3 calcSpecular(Material material, Vector n, Vector l, double nl, Vector v) {
         //the reflection of the light source vector (l)
-        Vector r = l.subtract(n.scale(2 * nl));
-        double minusVr = alignZero(-v.dotProduct(r));
+        //(calculated in local coordinates, since only its dot product is needed)
+        double factor = -2 * nl;
+        double rX = l.getX() + n.getX() * factor;
+        double rY = l.getY() + n.getY() * factor;
+        double rZ = l.getZ() + n.getZ() * factor;
+        double minusVr = alignZero(-((rX * v.getX()) + (rY * v.getY()) + (rZ * v.getZ())));
         if (minusVr <= 0) return Double3.ZERO;
 
         //Calculation of the effect according to phong model
@@ -242,33 +251,47 @@ public class RayTracerRegular extends RayTracerBase {
      * Determining how much light reach a certain point, blocked by other objects
      *
      * @param gp          the point we want to calculate the transparency for
-     * @param l           vector from the light source
+     * @param sample      the light of the light source at the point (its direction and distance)
      * @param n           normal to the point
      * @param lightSource the light source
      * @return the transparency of the point
      */
-    private Double3 transparency(Intersectable.GeoPoint gp, Vector l, Vector n, LightSource lightSource) {
-        Vector lightDirection = l.scale(-1); // from point to light source
+    private Double3 transparency(Intersectable.GeoPoint gp, LightSample sample, Vector n, LightSource lightSource) {
+        //an area light is seen through shadow rays towards samples on its surface
+        if (lightSource instanceof AreaLight area)
+            return softShadow(area, point -> {
+                Ray sampleRay = new Ray(gp.point, point.subtract(gp.point).normalize(), n);
+                return transparency(sampleRay, point.distance(sampleRay.getP0()), lightSource);
+            });
+
+        Vector lightDirection = sample.l.scale(-1); // from point to light source
         //We make sure to move the object by DELTA
         //int the correct direction
         //Create a new ray to check shadiness
         Ray lightRay = new Ray(gp.point, lightDirection, n);
+        //the distance of the sample is from the point, the head of the ray was moved by DELTA off the surface
+        double maxDistance = sample.distance - lightRay.getP0().subtract(gp.point).dotProduct(lightDirection);
+        return transparency(lightRay, maxDistance, lightSource);
+    }
 
-        Double3 ktr = Double3.ONE;
-        //Find if any geometric object blocks the light
-        Geometries geometries = voxelsPathGeometries(lightRay);
-        if (geometries == null) {
-            return ktr;
-        }
-        List<Intersectable.GeoPoint> intersections = geometries.findGeoIntersections(lightRay, lightSource.getDistance(lightRay.getP0()));
-        if (intersections == null)
-            return ktr;
-        //For every geometric object in the list, scale by its transparency coefficient
-        for (var geoPoint : intersections) {
-            ktr = ktr.product(geoPoint.geometry.getMaterial().kT);
-            if (ktr.lowerThan(MIN_CALC_COLOR_K)) return Double3.ZERO;
-        }
-        return ktr;
+    /**
+     * Determining how much light passes through the geometric objects along a shadow ray
+     *
+     * @param lightRay    the ray from the point towards the light source
+     * @param maxDistance the distance of the light source (or of its sample) from the head of the ray
+     * @param lightSource the light source
+     * @return the transparency along the ray
+     */
+    private Double3 transparency(Ray lightRay, double maxDistance, LightSource lightSource) {
+        //Find how much of the light passes through the geometric objects on the way to the light source,
+        //the geometry that blocked this light last time is tested first
+        if (cachedOccluderBlocks(lightSource, lightRay, maxDistance, MIN_CALC_COLOR_K))
+            return Double3.ZERO;
+        Transparency visitor = new Transparency(lightRay, maxDistance,
+                mailboxes.get().newRay(scene.voxels.getEntityCount()));
+        traverseScene(lightRay, visitor.maxDistance, visitor);
+        cacheOccluder(lightSource, visitor.blocker[0], MIN_CALC_COLOR_K);
+        return visitor.ktr;
     }
 
 
@@ -282,7 +305,7 @@ public class RayTracerRegular extends RayTracerBase {
      */
     private Ray constructReflectedRay(Vector normal, Point intersection, Vector incomeRayVector) {
         double scale = -2 * incomeRayVector.dotProduct(normal);
-        return new Ray(intersection, incomeRayVector.add(normal.scale(scale)), normal);
+        return new Ray(intersection, new Vec3().set(incomeRayVector).addScaled(normal, scale).toVector(), normal);
     }
 
     /**
@@ -299,171 +322,257 @@ public class RayTracerRegular extends RayTracerBase {
 
 
     /**
-     * finds the closest intersection GeoPoint to the base of the ray
-     *
-     * @param ray the ray that we find intersection from
-     * @return the closest intersection GeoPoint
+     * visitor of the voxels that a ray passes through, in the order of the ray
      */
-    private Intersectable.GeoPoint findClosestIntersection(Ray ray, Geometries geometries) {
-        return ray.findClosestGeoPoint(geometries.findGeoIntersections(ray));
+    private interface VoxelVisitor {
+        /**
+         * visits a non-empty voxel that isn't divided into a nested grid
+         *
+         * @param grid   the grid of the voxel
+         * @param cell   the cell of the voxel in the grid
+         * @param tEnter the distance along the ray in which it enters the voxel
+         * @param tExit  the distance along the ray in which it leaves the voxel
+         * @return true to stop the traversal
+         */
+        boolean visit(VoxelGrid grid, int cell, double tEnter, double tExit);
     }
 
     /**
-     * this function implements the 3dda algorithm. It determines through which voxels the ray goes.
-     *
-     * @param ray the ray through the scene voxels grid
-     * @return the first intersection GeoPoint
+     * mailbox of the geometric entities that a ray has already tested.
+     * Each ray gets a new id, and each entity is stamped with the id of the last ray that tested it,
+     * so an entity that spans several voxels is tested only once per ray.
      */
-    private Intersectable.GeoPoint traversalAlgorithm(Ray ray) {
-        //finds the first intersection with the grid
-        Point firstIntersection = firstIntersection(ray);
-        if (firstIntersection == null) return null;
-        Vector dir = ray.getDir();
-        int[][] boundary = scene.geometries.boundary;
-        //move the point a little, so it would be inside the grid
-        Point fixedFirstIntersection = fixPoint(firstIntersection, boundary);
-
-        //arrays for calculations
-        int[] indexes = VoxelByPoint(fixedFirstIntersection, boundary);
-        double[] directions = new double[]{dir.getX(), dir.getY(), dir.getZ()};
-        int[] steps = new int[3];
-        double[] voxelEdges = new double[]{scene.getXEdgeVoxel(), scene.getYEdgeVoxel(), scene.getZEdgeVoxel()};
-        double[] tMax = new double[3];
-        double[] firstIntersectionCoordinates = new double[]{firstIntersection.getX(), firstIntersection.getY(), firstIntersection.getZ()};
-        double[] tDelta = new double[3];
-
-        for (int i = 0; i <= 2; i++) {
-            steps[i] = determineDirection(directions[i]);
+    static class Mailbox {
+        /**
+         * the id of the last ray that tested each geometric entity (by the entity's id in the grid)
+         */
+        private int[] stamps = new int[0];
+        /**
+         * the id of the current ray (package-private so the end of the ids can be reached in the tests)
+         */
+        int rayId = 0;
+
+        /**
+         * starts a new ray
+         *
+         * @param entityCount the number of different ids of the entities in the grid
+         * @return the mailbox itself
+         */
+        Mailbox newRay(int entityCount) {
+            if (stamps.length < entityCount)
+                stamps = new int[entityCount];
+            //when the ray ids run out, all the stamps are cleared and the ids start over
+            if (++rayId == 0) {
+                Arrays.fill(stamps, 0);
+                rayId = 1;
+            }
+            return this;
         }
 
-        for (int i = 0; i <= 2; i++) {
-            tMax[i] = determineTmax(boundary[i][0], steps[i], indexes[i], voxelEdges[i], directions[i], firstIntersectionCoordinates[i]);
+        /**
+         * checks if the current ray has not tested a geometric entity yet, and stamps it as tested
+         *
+         * @param id the id of the geometric entity in the grid
+         * @return true if the entity wasn't tested by the current ray
+         */
+        boolean firstVisit(int id) {
+            if (stamps[id] == rayId)
+                return false;
+            stamps[id] = rayId;
+            return true;
         }
+    }
 
-        for (int i = 0; i <= 2; i++) {
-            tDelta[i] = Math.abs(voxelEdges[i] / directions[i]);
+    /**
+     * voxel visitor that finds the closest intersection GeoPoint of a ray.
+     * The traversal stops at the first voxel that contains the closest intersection found so far.
+     */
+    private static class ClosestIntersection implements VoxelVisitor {
+        /**
+         * the ray that we find intersection from
+         */
+        private final Ray ray;
+        /**
+         * the geometric entities that the ray has already tested
+         */
+        private final Mailbox mailbox;
+        /**
+         * the record of the closest intersection found so far
+         */
+        private final Intersectable.Hit hit;
+
+        /**
+         * constructor
+         *
+         * @param ray     the ray that we find intersection from
+         * @param mailbox the mailbox of the ray
+         */
+        private ClosestIntersection(Ray ray, Mailbox mailbox) {
+            this.ray = ray;
+            this.mailbox = mailbox;
+            this.hit = new Intersectable.Hit(ray, Double.POSITIVE_INFINITY);
         }
 
+        @Override
+        public boolean visit(VoxelGrid grid, int cell, double tEnter, double tExit) {
+            for (int i = grid.start(cell); i < grid.end(cell); i++) {
+                //an entity that was tested in a previous voxel is already taken into account
+                if (!mailbox.firstVisit(grid.id(i)))
+                    continue;
+                grid.get(i).findClosestHit(ray, hit);
+            }
+            //an intersection inside the voxel can't be hidden by the voxels after it
+            return hit.getT() <= tExit;
+        }
+    }
 
-        //move over all the geometries of the first voxel and find the closest intersection (if there is any)
-        Intersectable.GeoPoint farIntersection = null;
-        Geometries list = scene.voxels.get(new Double3(indexes[0], indexes[1], indexes[2]));
-        Intersectable.GeoPoint closestIntersection;
-        if (list != null) {
-            closestIntersection = findClosestIntersection(ray, list);
-            //check if the intersection point exists, and it's inside the voxel
-            if (closestIntersection != null)
-                if (!isInsideVoxel(indexes, closestIntersection.point, boundary))
-                    farIntersection = closestIntersection;
-                else return closestIntersection;
+    /**
+     * voxel visitor that finds how much light passes through the geometric entities along a shadow ray.
+     * The traversal stops as soon as the light is blocked.
+     */
+    private static class Transparency implements VoxelVisitor {
+        /**
+         * the ray from the point towards the light source
+         */
+        private final Ray ray;
+        /**
+         * the distance of the light source
+         */
+        private final double maxDistance;
+        /**
+         * the geometric entities that the ray has already tested
+         */
+        private final Mailbox mailbox;
+        /**
+         * the transparency accumulated so far
+         */
+        private Double3 ktr = Double3.ONE;
+        /**
+         * the geometric entity that blocked the light (null if it isn't blocked)
+         */
+        private final Geometry[] blocker = new Geometry[1];
+
+        /**
+         * constructor
+         *
+         * @param ray         the ray from the point towards the light source
+         * @param maxDistance the distance of the light source
+         * @param mailbox     the mailbox of the ray
+         */
+        private Transparency(Ray ray, double maxDistance, Mailbox mailbox) {
+            this.ray = ray;
+            this.maxDistance = maxDistance;
+            this.mailbox = mailbox;
         }
 
-        do {
-            if (!nextVoxel(tMax, indexes, tDelta, steps)) {
-                return null;
-            }
-            //move the point a voxel
-            //find the intersection inside teh current voxel
-            list = scene.voxels.get(new Double3(indexes[0], indexes[1], indexes[2]));
-            if (list == null) {
-                closestIntersection = null;
-            } else {
-                if (farIntersection != null && isInsideVoxel(indexes, farIntersection.point, boundary)) {//if it's the voxel with the saved point
-                    list = list.remove(farIntersection.geometry);
-                    closestIntersection = findClosestIntersection(ray, list);
-                    if (closestIntersection != null) {
-                        if (isInsideVoxel(indexes, closestIntersection.point, boundary)) {
-                            //checks the closest of both
-                            if (closestIntersection.point.distanceSquared(fixedFirstIntersection) <= farIntersection.point.distanceSquared(fixedFirstIntersection)) {
-                                //even though we reached the voxel that contains the precalculated point, we found closer one
-                                return closestIntersection;
-                            } else {
-                                //the saved point is still the closest
-                                return farIntersection;
-                            }
-                        } else {//the closest intersection is outside the voxel meaning the saved one is closer
-                            return farIntersection;
-                        }
-                    } else {//no other intersection in this voxel, therefore the saved intersection is the closest
-                        return farIntersection;
-                    }
-                } else {//if it's not the voxel with the saved point
-                    closestIntersection = findClosestIntersection(ray, list);
-                    if (closestIntersection != null) {
-                        if (!isInsideVoxel(indexes, closestIntersection.point, boundary)) {
-                            //if not in the voxel
-                            if (farIntersection == null || closestIntersection.point.distanceSquared(fixedFirstIntersection) <= farIntersection.point.distanceSquared(fixedFirstIntersection)) {
-                                //if it's closer than the already saved farIntersection, save this, since tha saved one would not intersect before this
-                                farIntersection = closestIntersection;
-                                closestIntersection = null;
-                            }
-                        } else {//if it's in the voxel and closest
-                            return closestIntersection;
-                        }
-                    }
+        @Override
+        public boolean visit(VoxelGrid grid, int cell, double tEnter, double tExit) {
+            for (int i = grid.start(cell); i < grid.end(cell); i++) {
+                //an entity that spans several voxels blocks the light only once
+                if (!mailbox.firstVisit(grid.id(i)))
+                    continue;
+                ktr = ktr.product(grid.get(i).occlusion(ray, maxDistance, MIN_CALC_COLOR_K, blocker));
+                if (ktr.lowerThan(MIN_CALC_COLOR_K)) {
+                    ktr = Double3.ZERO;
+                    return true;
                 }
             }
-
-        } while (closestIntersection == null || !isInsideVoxel(indexes, closestIntersection.point, boundary));
-
-        return closestIntersection;
+            return false;
+        }
     }
 
     /**
-     * function that finds the geometric objects in all the voxels the ray travels through
+     * this function implements the 3dda algorithm. It determines through which voxels the ray goes.
      *
      * @param ray the ray through the scene voxels grid
-     * @return geometries in all the voxels the ray travels through
+     * @return the first intersection GeoPoint
      */
-    private Geometries voxelsPathGeometries(Ray ray) {
-        //finds the first intersection with the grid
-        Point firstIntersection = firstIntersection(ray);
-        if (firstIntersection == null) return null;
-        Vector dir = ray.getDir();
-        int[][] boundary = scene.geometries.boundary;
-        //move the point a little, so it would be inside the grid
-        Point fixedFirstIntersection = fixPoint(firstIntersection, boundary);
+    private Intersectable.GeoPoint traversalAlgorithm(Ray ray) {
+        ClosestIntersection visitor = new ClosestIntersection(ray,
+                mailboxes.get().newRay(scene.voxels.getEntityCount()));
+        traverseScene(ray, Double.POSITIVE_INFINITY, visitor);
+        return visitor.hit.getGeoPoint();
+    }
 
+    /**
+     * clips the ray by the boundary of the scene grid and passes the visitor over the voxels the ray goes through
+     *
+     * @param ray         the ray through the scene voxels grid
+     * @param maxDistance the distance along the ray after which the voxels are ignored
+     * @param visitor     the visitor of the voxels
+     */
+    private void traverseScene(Ray ray, double maxDistance, VoxelVisitor visitor) {
+        VoxelGrid grid = scene.voxels;
+        double[] head = {ray.getP0().getX(), ray.getP0().getY(), ray.getP0().getZ()};
+        double[] directions = {ray.getDir().getX(), ray.getDir().getY(), ray.getDir().getZ()};
+        //the distances along the ray in which it enters and leaves the scene CBR
+        double tNear = 0;
+        double tFar = maxDistance;
+        for (int i = 0; i <= 2; i++) {
+            double min = grid.getOrigin(i);
+            double max = min + grid.getResolution(i) * grid.getVoxelEdge(i);
+            if (directions[i] == 0) {
+                if (head[i] < min || head[i] > max)
+                    return; //the ray is parallel to the CBR and outside it
+            } else {
+                double t1 = (min - head[i]) / directions[i];
+                double t2 = (max - head[i]) / directions[i];
+                tNear = Math.max(tNear, Math.min(t1, t2));
+                tFar = Math.min(tFar, Math.max(t1, t2));
+            }
+        }
+        if (tNear > tFar)
+            return; //the ray misses the scene CBR
+        traverse(grid, head, directions, tNear, tFar, visitor);
+    }
+
+    /**
+     * passes the visitor over the voxels of a grid that the ray goes through between two distances along it.
+     * Voxels that are divided into a nested grid are traversed recursively.
+     *
+     * @param grid       the grid of voxels
+     * @param head       the base of the ray [x,y,z]
+     * @param directions the direction of the ray [x,y,z]
+     * @param tStart     the distance along the ray in which it enters the grid
+     * @param tEnd       the distance along the ray in which it leaves the grid
+     * @param visitor    the visitor of the voxels
+     * @return true if the visitor stopped the traversal
+     */
+    private boolean traverse(VoxelGrid grid, double[] head, double[] directions, double tStart, double tEnd,
+                             VoxelVisitor visitor) {
         //arrays for calculations
-        int[] indexes = VoxelByPoint(fixedFirstIntersection, boundary);
-        double[] directions = new double[]{dir.getX(), dir.getY(), dir.getZ()};
+        int[] indexes = new int[3];
         int[] steps = new int[3];
-        double[] voxelEdges = new double[]{scene.getXEdgeVoxel(), scene.getYEdgeVoxel(), scene.getZEdgeVoxel()};
         double[] tMax = new double[3];
-        double[] firstIntersectionCoordinates = new double[]{firstIntersection.getX(), firstIntersection.getY(), firstIntersection.getZ()};
         double[] tDelta = new double[3];
 
         for (int i = 0; i <= 2; i++) {
+            double origin = grid.getOrigin(i);
+            double voxelEdge = grid.getVoxelEdge(i);
+            //the voxel in which the ray enters the grid
+            indexes[i] = voxelEdge == 0 ? 0 : (int) Math.floor((head[i] + directions[i] * tStart - origin) / voxelEdge);
+            indexes[i] = Math.max(0, Math.min(grid.getResolution(i) - 1, indexes[i]));
             steps[i] = determineDirection(directions[i]);
+            tMax[i] = determineTmax(origin, steps[i], indexes[i], voxelEdge, directions[i], head[i]);
+            tDelta[i] = steps[i] == 0 ? Double.POSITIVE_INFINITY : Math.abs(voxelEdge / directions[i]);
         }
 
-        for (int i = 0; i <= 2; i++) {
-            tMax[i] = determineTmax(boundary[i][0], steps[i], indexes[i], voxelEdges[i], directions[i], firstIntersectionCoordinates[i]);
-        }
-
-        for (int i = 0; i <= 2; i++) {
-            tDelta[i] = Math.abs(voxelEdges[i] / directions[i]);
-        }
-
-        //find the geometries in the first voxel
-        Geometries list = new Geometries();
-        Geometries temp = scene.voxels.get(new Double3(indexes[0], indexes[1], indexes[2]));
-
-
-        if (temp != null) {
-            list.add(temp);
-        }
-        //travel through all the voxels in a loop and their geometries
-        while (nextVoxel(tMax, indexes, tDelta, steps)) {
-            temp = scene.voxels.get(new Double3(indexes[0], indexes[1], indexes[2]));
-            if (temp != null) {
-                list.add(temp);
-            }
+        double tEnter = tStart;
+        while (true) {
+            double tExit = Math.min(Math.min(tMax[0], tMax[1]), Math.min(tMax[2], tEnd));
+            int cell = grid.cell(indexes[0], indexes[1], indexes[2]);
+            VoxelGrid subGrid = grid.getSubGrid(cell);
+            if (subGrid != null) {
+                if (traverse(subGrid, head, directions, tEnter, tExit, visitor))
+                    return true;
+            } else if (!grid.isEmpty(cell) && visitor.visit(grid, cell, tEnter, tExit))
+                return true;
+            if (tExit >= tEnd || !nextVoxel(tMax, indexes, tDelta, steps, grid))
+                return false;
+            tEnter = Math.max(tEnter, tExit);
         }
-        return list;
     }
 
-
     /**
      * moves to the next voxel
      *
@@ -471,101 +580,22 @@ public class RayTracerRegular extends RayTracerBase {
      * @param indexes index of the current voxel
      * @param tDelta  width, height and depth of voxel in units of t
      * @param steps   the direction of the steps
+     * @param grid    the grid of the voxels
      * @return if moved successfully to the next voxel or got out of the grid
      */
-    private boolean nextVoxel(double[] tMax, int[] indexes, double[] tDelta, int[] steps) {
-        //if there is no intersection points in the first voxel search in the rest of the ray's way
-        //since the ray starts in the middle of a voxel (since we moved it on the intersection with the  scene CBR,
-        //or the head is already inside the scene SCR), we had to calculate the remaining distance to the fist voxel's edge.
-        //But from now on, we can use the constant voxel size, since it would always intersect with the edge of the voxel.
-        //now would do the same calculation on the rest of the ray's way in the voxels grid.
-
-        if (tMax[0] < tMax[1]) {
-            if (tMax[0] < tMax[2]) {
-                indexes[0] = indexes[0] + steps[0];
-                if ((indexes[0] > 0 && indexes[0] == scene.resolution + 1) || (indexes[0] < 0))
-                    return false; //the ray leaves the scene's CBR with no intersection
-                tMax[0] = tMax[0] + tDelta[0];
-            } else {
-                indexes[2] = indexes[2] + steps[2];
-                if ((indexes[2] > 0 && indexes[2] == scene.resolution + 1) || (indexes[2] < 0))
-                    return false;
-                tMax[2] = tMax[2] + tDelta[2];
-            }
-        } else {
-            if (tMax[1] < tMax[2]) {
-                indexes[1] = indexes[1] + steps[1];
-                if ((indexes[1] > 0 && indexes[1] == scene.resolution + 1) || (indexes[1] < 0))
-                    return false;
-                tMax[1] = tMax[1] + tDelta[1];
-            } else {
-                indexes[2] = indexes[2] + steps[2];
-                if ((indexes[2] > 0 && indexes[2] == scene.resolution + 1) || (indexes[2] < 0))
-                    return false;
-                tMax[2] = tMax[2] + tDelta[2];
-            }
-        }
+    private boolean nextVoxel(double[] tMax, int[] indexes, double[] tDelta, int[] steps, VoxelGrid grid) {
+        //the distances are measured from the base of the ray, so the edge of the next voxel
+        //on each axis is always one voxel size (tDelta) after the current one.
+
+        //the axis which its voxel edge is the closest
+        int axis = tMax[0] < tMax[1] ? (tMax[0] < tMax[2] ? 0 : 2) : (tMax[1] < tMax[2] ? 1 : 2);
+        indexes[axis] = indexes[axis] + steps[axis];
+        if (indexes[axis] < 0 || indexes[axis] >= grid.getResolution(axis))
+            return false; //the ray leaves the grid with no intersection
+        tMax[axis] = tMax[axis] + tDelta[axis];
         return true;
     }
 
-
-    /**
-     * the intersection of the ray with CBR of the scene
-     *
-     * @param ray the entering ray
-     * @return the intersection point
-     */
-    private Point firstIntersection(Ray ray) {
-        double x = ray.getP0().getX();
-        double y = ray.getP0().getY();
-        double z = ray.getP0().getZ();
-        Point head = ray.getP0();
-
-        int[][] boundary = scene.geometries.boundary;
-
-        //if the head of the ray is inside the regular grid return the head of the ray
-        if (x >= boundary[0][0] && x <= boundary[0][1] &&
-                y >= boundary[1][0] && y <= boundary[1][1] &&
-                z >= boundary[2][0] && z <= boundary[2][1]) {
-            return head;
-        }
-
-        List<Point> intersections;
-        Point closest = null;
-
-        //find the closest intersection
-        double distance = Double.POSITIVE_INFINITY;
-        for (Polygon p : scene.faces) {
-            intersections = p.findIntersections(ray);
-            if (intersections != null) {
-                if (intersections.get(0).distance(head) < distance) {
-                    distance = intersections.get(0).distance(head);
-                    closest = intersections.get(0);
-                }
-            }
-        }
-
-        return closest;
-
-    }
-
-
-    /**
-     * this function matches a voxel to a point.
-     *
-     * @param p        the point in the voxel
-     * @param boundary the scene CBR
-     * @return the voxel of the specified point
-     */
-    private int[] VoxelByPoint(Point p, int[][] boundary) {
-
-        int xCoordinate = (int) ((p.getX() - boundary[0][0]) / scene.getXEdgeVoxel());
-        int yCoordinate = (int) ((p.getY() - boundary[1][0]) / scene.getYEdgeVoxel());
-        int zCoordinate = (int) ((p.getZ() - boundary[2][0]) / scene.getZEdgeVoxel());
-
-        return new int[]{xCoordinate, yCoordinate, zCoordinate};
-    }
-
     /**
      * decides sign of a number
      *
@@ -582,77 +612,23 @@ public class RayTracerRegular extends RayTracerBase {
     }
 
     /**
-     * determines the maximum step in units of t to the next voxel
+     * determines the distance along the ray to the edge of the current voxel on an axis
      *
-     * @param minBoundary            minimum boundary coordinate
-     * @param step                   the direction of the next voxel
-     * @param index                  index of the current voxel
-     * @param voxelEdge              length of voxel edge
-     * @param direction              the direction of the vector of the ray
-     * @param intersectionCoordinate the first intersection of the ray with the regular grid
-     * @return the maximum step in units of t to the next voxel
+     * @param minBoundary minimum boundary coordinate of the grid
+     * @param step        the direction of the next voxel
+     * @param index       index of the current voxel
+     * @param voxelEdge   length of voxel edge
+     * @param direction   the direction of the vector of the ray
+     * @param head        the coordinate of the base of the ray
+     * @return the distance in units of t to the next voxel (infinity if the ray doesn't move on this axis)
      */
-    private double determineTmax(double minBoundary, double step, int index, double voxelEdge, double direction, double intersectionCoordinate) {
+    private double determineTmax(double minBoundary, int step, int index, double voxelEdge, double direction, double head) {
         if (step == 1) {
-            return Math.abs((minBoundary + (index + 1) * voxelEdge - intersectionCoordinate) / direction);
+            return (minBoundary + (index + 1) * voxelEdge - head) / direction;
         } else if (step == -1) {
-            return Math.abs((intersectionCoordinate - (minBoundary + index * voxelEdge)) / direction);
+            return (minBoundary + index * voxelEdge - head) / direction;
         }
-        return 0;
+        return Double.POSITIVE_INFINITY;
     }
 
-    /**
-     * checks if the intersection point ith the geometry is inside the voxel
-     *
-     * @param index        the voxel's index
-     * @param intersection the intersection point of teh ray with the geometry
-     * @param boundary     the boundary of the scene
-     * @return if the intersection point ith the geometry is inside the voxel
-     */
-    private boolean isInsideVoxel(int[] index, Point intersection, int[][] boundary) {
-        //minimum coordinates
-        double xMax = boundary[0][0] + (index[0] + 1) * scene.getXEdgeVoxel();
-        double yMax = boundary[1][0] + (index[1] + 1) * scene.getYEdgeVoxel();
-        double zMax = boundary[2][0] + (index[2] + 1) * scene.getZEdgeVoxel();
-
-        //maximum coordinates
-        double xMin = boundary[0][0] + (index[0]) * scene.getXEdgeVoxel();
-        double yMin = boundary[1][0] + (index[1]) * scene.getYEdgeVoxel();
-        double zMin = boundary[2][0] + (index[2]) * scene.getZEdgeVoxel();
-
-        return intersection.getX() >= xMin && intersection.getX() <= xMax
-                && intersection.getY() >= yMin && intersection.getY() <= yMax
-                && intersection.getZ() >= zMin && intersection.getZ() <= zMax;
-    }
-
-    /**
-     * fixes the intersection of the ray with teh scene CBR on exact intersection with voxel edges
-     *
-     * @param p        intersection point with the scene CBR
-     * @param boundary the CBR
-     * @return the fixed point
-     */
-    private Point fixPoint(Point p, int[][] boundary) {
-        if (isZero((p.getX() - boundary[0][0]))) {
-            p = p.add(new Vector(1, 0, 0).scale(EPSILON));
-        }
-        if (isZero((p.getX() - boundary[0][1]))) {
-            p = p.add(new Vector(1, 0, 0).scale(-EPSILON));
-        }
-        if (isZero((p.getY() - boundary[1][0]))) {
-            p = p.add(new Vector(0, 1, 0).scale(EPSILON));
-        }
-        if (isZero((p.getY() - boundary[1][1]))) {
-            p = p.add(new Vector(0, 1, 0).scale(-EPSILON));
-        }
-        if (isZero((p.getZ() - boundary[2][0]))) {
-            p = p.add(new Vector(0, 0, 1).scale(EPSILON));
-        }
-        if (isZero((p.getZ() - boundary[2][1]))) {
-            p = p.add(new Vector(0, 0, 1).scale(-EPSILON));
-        }
-        return p;
-    }
-
-
 }
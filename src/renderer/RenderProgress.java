@@ -0,0 +1,168 @@
+package renderer;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Progress of a single rendering of an image.
+ * The rendering threads add the pixels (and camera rays) they finish to striped counters,
+ * so they never wait for each other, and any thread can poll the progress at any time.
+ * Each rendering has its own progress, so several cameras can render at once.
+ */
+public class RenderProgress {
+    /**
+     * Listener that is notified whenever a part of the image is finished.
+     * It's called from the rendering threads, so it should be quick and thread safe.
+     */
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * called after a part of the image (such as a tile) is finished
+         *
+         * @param progress the progress of the rendering
+         */
+        void progressChanged(RenderProgress progress);
+    }
+
+    /**
+     * the number of the pixels in the image
+     */
+    private final long totalPixels;
+    /**
+     * the number of the finished pixels
+     */
+    private final LongAdder pixels = new LongAdder();
+    /**
+     * the number of the traced camera rays
+     */
+    private final LongAdder rays = new LongAdder();
+    /**
+     * the time the rendering started (in nanoseconds of System.nanoTime)
+     */
+    private final long startTime = System.nanoTime();
+    /**
+     * the listener to notify (null if there is none)
+     */
+    private final Listener listener;
+
+    /**
+     * RenderProgress constructor, the rendering starts when it's created
+     *
+     * @param totalPixels the number of the pixels in the image
+     * @param listener    the listener to notify (null if there is none)
+     */
+    RenderProgress(long totalPixels, Listener listener) {
+        this.totalPixels = totalPixels;
+        this.listener = listener;
+    }
+
+    /**
+     * adds finished pixels and notifies the listener
+     *
+     * @param pixels the number of the finished pixels
+     * @param rays   the number of camera rays that were traced for them
+     */
+    void done(long pixels, long rays) {
+        this.pixels.add(pixels);
+        this.rays.add(rays);
+        if (listener != null)
+            listener.progressChanged(this);
+    }
+
+    /**
+     * totalPixels getter
+     *
+     * @return the number of the pixels in the image
+     */
+    public long getTotalPixels() {
+        return totalPixels;
+    }
+
+    /**
+     * returns the number of the finished pixels
+     *
+     * @return the number of the finished pixels
+     */
+    public long getPixelsDone() {
+        return pixels.sum();
+    }
+
+    /**
+     * returns the number of the traced camera rays
+     *
+     * @return the number of the traced camera rays
+     */
+    public long getRaysTraced() {
+        return rays.sum();
+    }
+
+    /**
+     * checks if all the pixels are finished
+     *
+     * @return true if the rendering is done
+     */
+    public boolean isDone() {
+        return getPixelsDone() >= totalPixels;
+    }
+
+    /**
+     * returns the percentage of the finished pixels
+     *
+     * @return the percentage of the finished pixels (between 0 and 100)
+     */
+    public double getPercent() {
+        return totalPixels == 0 ? 100 : 100d * getPixelsDone() / totalPixels;
+    }
+
+    /**
+     * returns the time since the rendering started
+     *
+     * @return the elapsed time
+     */
+    public Duration getElapsed() {
+        return Duration.ofNanos(System.nanoTime() - startTime);
+    }
+
+    /**
+     * estimates the time until the rendering is done by the rate of the pixels finished so far
+     *
+     * @return the estimated remaining time, null if no pixel is finished yet
+     */
+    public Duration getEta() {
+        long done = getPixelsDone();
+        if (done >= totalPixels) return Duration.ZERO;
+        if (done == 0) return null;
+        double nanosPerPixel = (double) (System.nanoTime() - startTime) / done;
+        return Duration.ofNanos((long) (nanosPerPixel * (totalPixels - done)));
+    }
+
+    /**
+     * returns the average number of camera rays traced in a second since the rendering started
+     *
+     * @return camera rays per second
+     */
+    public double getRaysPerSecond() {
+        long elapsed = System.nanoTime() - startTime;
+        return elapsed == 0 ? 0 : getRaysTraced() * 1e9 / elapsed;
+    }
+
+    /**
+     * creates a listener that prints the percentage of the finished pixels to the console,
+     * no more than once in an interval (and once when the rendering is done)
+     *
+     * @param interval the print time interval in seconds
+     * @return the printing listener
+     */
+    public static Listener printer(double interval) {
+        long intervalNanos = (long) (interval * 1e9);
+        AtomicLong lastPrint = new AtomicLong(System.nanoTime() - intervalNanos);
+        return progress -> {
+            long now = System.nanoTime();
+            long last = lastPrint.get();
+            //only the thread that moves the time of the last print prints, the others go on rendering
+            if ((now - last >= intervalNanos || progress.isDone()) && lastPrint.compareAndSet(last, now))
+                System.out.printf("%5.1f%%%n", progress.getPercent());
+        };
+    }
+}
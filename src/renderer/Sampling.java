@@ -1,10 +1,13 @@
 package renderer;
 
+import primitives.Color;
 import primitives.Point;
 import primitives.Ray;
+import primitives.Vec3;
 import primitives.Vector;
 
 import java.util.LinkedList;
+import java.util.function.Function;
 
 /**
  * A utility class that creates sampling rays
@@ -31,6 +34,14 @@ public class Sampling {
         TARGET_AREA_RESOLUTION = targetAreaResolution;
     }
 
+    /**
+     * TARGET_AREA_RESOLUTION getter
+     * @return the target area resolution (how many rays on each column and row)
+     */
+    public static int getTargetAreaResolution() {
+        return TARGET_AREA_RESOLUTION;
+    }
+
     /**
      * TARGET_AREA_DISTANCE setter
      * @param targetAreaDistance the target area distance from the beginning of the ray
@@ -47,6 +58,217 @@ public class Sampling {
         TARGET_AREA_EDGE = targetAreaEdge;
     }
 
+    /**
+     * Calculates the average color seen by the sample rays around a main ray, on the whole grid of the target area
+     *
+     * @param ray   The main ray
+     * @param k     glossy/diffusive attenuation coefficient
+     * @param n     normal to the head of the main ray
+     * @param trace calculates the color seen by a sample ray
+     * @return the average color of the sample rays
+     */
+    public static Color sample(Ray ray, double k, Vector n, Function<Ray, Color> trace) {
+        return sample(ray, k, n, TARGET_AREA_RESOLUTION, trace);
+    }
+
+    /**
+     * Calculates the average color seen by the sample rays around a main ray, on a grid of a given resolution
+     * (instead of the resolution of the target area). The grid covers the same target area with fewer,
+     * larger squares, so a tracer can reduce the samples of rays that matter less
+     *
+     * @param ray        The main ray
+     * @param k          glossy/diffusive attenuation coefficient
+     * @param n          normal to the head of the main ray
+     * @param resolution how many rays on each column and row of the grid
+     * @param trace      calculates the color seen by a sample ray
+     * @return the average color of the sample rays
+     */
+    public static Color sample(Ray ray, double k, Vector n, int resolution, Function<Ray, Color> trace) {
+        LinkedList<Ray> sampling = superSample(ray, k, n, resolution);
+        Color sum = Color.BLACK;
+        //for each sampling ray calculate the color
+        for (var secondaryRay : sampling) {
+            sum = sum.add(trace.apply(secondaryRay));
+        }
+        //take the average of the calculation for all sample rays
+        return sum.reduce(sampling.size());
+    }
+
+    /**
+     * Calculates the average color seen by the sample rays around a main ray, on a grid of a given resolution
+     * that is sampled adaptively- only the parts of the grid where the color changes are sampled fully.
+     * A grid of less than 3 rays on each column and row has nothing to save, so it's sampled fully
+     *
+     * @param ray        The main ray
+     * @param k          glossy/diffusive attenuation coefficient
+     * @param n          normal to the head of the main ray
+     * @param resolution how many rays on each column and row of the grid
+     * @param threshold  the largest difference of colors (in 0..255 units) of the corners of a square
+     *                   that is taken as flat
+     * @param trace      calculates the color seen by a sample ray
+     * @return the average color of the sample rays
+     */
+    public static Color sample(Ray ray, double k, Vector n, int resolution, double threshold,
+                               Function<Ray, Color> trace) {
+        return resolution > 2 ? adaptiveSample(ray, k, n, resolution, threshold, trace)
+                : sample(ray, k, n, resolution, trace);
+    }
+
+    /**
+     * Calculates the average color of the target area adaptively. The corners of the grid are traced first,
+     * and a square is divided (at the middle rows and columns of the grid) only while the colors of its corners
+     * differ, a flat square is taken as the average of its corners.
+     * Corners below the surface (see {@link #createVectorBeam}) count as differing, so the squares near the
+     * surface are divided to the single cells of the grid, and only their valid corners are averaged.
+     *
+     * @param ray   The main ray
+     * @param k     glossy/diffusive attenuation coefficient
+     * @param n     normal to the head of the main ray
+     * @param resolution how many rays on each column and row of the grid
+     * @param threshold  the largest difference of colors of the corners of a square that is taken as flat
+     * @param trace calculates the color seen by a sample ray
+     * @return the average color of the target area (black if there is no valid sample)
+     */
+    private static Color adaptiveSample(Ray ray, double k, Vector n, int resolution, double threshold,
+                                        Function<Ray, Color> trace) {
+        Vector vTo = ray.getDir();
+        Vector vUp = Vector.createOrthogonal(vTo);
+        Vector vRight = vTo.crossProduct(vUp).normalize();
+        AdaptiveGrid grid = new AdaptiveGrid(ray, vTo, vUp, vRight, k, n, resolution, threshold, trace);
+        int last = resolution - 1;
+        grid.square(0, 0, last, last);
+        return grid.area == 0 ? Color.BLACK : grid.sum.reduce(grid.area);
+    }
+
+    /**
+     * The samples of the grid of the target area that were traced so far, each point is traced once
+     * even though it's a corner of several squares
+     */
+    private static class AdaptiveGrid {
+        //the main ray and its grid, as in createVectorBeam
+        private final Ray ray;
+        private final Vector vTo, vUp, vRight, n;
+        private final double k;
+        private final int resolution;
+        //the largest difference of colors of the corners of a flat square
+        private final double threshold;
+        //calculates the color seen by a sample ray
+        private final Function<Ray, Color> trace;
+        /**
+         * the colors of the points of the grid (null if not traced yet, or the point is below the surface)
+         */
+        private final Color[] colors;
+        /**
+         * which points of the grid were traced (or found below the surface)
+         */
+        private final boolean[] traced;
+        /**
+         * the sum of the colors of the squares weighted by their areas
+         */
+        private Color sum = Color.BLACK;
+        /**
+         * the total area of the squares that were summed (in grid cells)
+         */
+        private int area = 0;
+
+        /**
+         * AdaptiveGrid constructor
+         *
+         * @param ray    The main ray
+         * @param vTo    The direction of the main ray
+         * @param vUp    Orthogonal to vTo
+         * @param vRight Orthogonal to vTo and vUp
+         * @param k      glossy/diffusive attenuation coefficient
+         * @param n          normal to the head of the main ray
+         * @param resolution how many rays on each column and row of the grid
+         * @param threshold  the largest difference of colors of the corners of a flat square
+         * @param trace      calculates the color seen by a sample ray
+         */
+        private AdaptiveGrid(Ray ray, Vector vTo, Vector vUp, Vector vRight, double k, Vector n, int resolution,
+                             double threshold, Function<Ray, Color> trace) {
+            this.ray = ray;
+            this.vTo = vTo;
+            this.vUp = vUp;
+            this.vRight = vRight;
+            this.k = k;
+            this.n = n;
+            this.resolution = resolution;
+            this.threshold = threshold;
+            this.trace = trace;
+            this.colors = new Color[resolution * resolution];
+            this.traced = new boolean[resolution * resolution];
+        }
+
+        /**
+         * returns the color of a point of the grid, traces it on the first call
+         *
+         * @param i the vertical index of the point
+         * @param j the horizontal index of the point
+         * @return the color, null if the point is below the surface
+         */
+        private Color color(int i, int j) {
+            int index = i * resolution + j;
+            if (!traced[index]) {
+                traced[index] = true;
+                Vector sampleDir = createVectorBeam(i, j, ray, vTo, vUp, vRight, k, n, resolution);
+                if (sampleDir != null)
+                    colors[index] = trace.apply(new Ray(ray.getP0(), sampleDir, n));
+            }
+            return colors[index];
+        }
+
+        /**
+         * sums the color of a square of the grid, divides it while its corners differ
+         *
+         * @param i0 the vertical index of the first corner
+         * @param j0 the horizontal index of the first corner
+         * @param i1 the vertical index of the opposite corner
+         * @param j1 the horizontal index of the opposite corner
+         */
+        private void square(int i0, int j0, int i1, int j1) {
+            Color[] corners = {color(i0, j0), color(i0, j1), color(i1, j0), color(i1, j1)};
+            boolean cell = i1 - i0 <= 1 && j1 - j0 <= 1;
+            if (!cell && !isFlat(corners)) {
+                int iMid = i1 - i0 > 1 ? (i0 + i1) / 2 : i1;
+                int jMid = j1 - j0 > 1 ? (j0 + j1) / 2 : j1;
+                square(i0, j0, iMid, jMid);
+                if (jMid != j1) square(i0, jMid, iMid, j1);
+                if (iMid != i1) square(iMid, j0, i1, jMid);
+                if (iMid != i1 && jMid != j1) square(iMid, jMid, i1, j1);
+                return;
+            }
+            //the average of the valid corners stands for the whole square
+            Color average = Color.BLACK;
+            int valid = 0;
+            for (Color corner : corners) {
+                if (corner != null) {
+                    average = average.add(corner);
+                    valid++;
+                }
+            }
+            if (valid == 0) return;
+            int squareArea = (i1 - i0) * (j1 - j0);
+            sum = sum.add(average.scale((double) squareArea / valid));
+            area += squareArea;
+        }
+
+        /**
+         * checks if the corners of a square are valid and close enough that it needn't be divided
+         *
+         * @param corners the colors of the corners
+         * @return true if no corner is below the surface and no two colors differ beyond the threshold
+         */
+        private boolean isFlat(Color[] corners) {
+            for (int a = 0; a < corners.length; a++) {
+                if (corners[a] == null) return false;
+                for (int b = a + 1; b < corners.length; b++)
+                    if (corners[b] == null || corners[a].difference(corners[b]) > threshold)
+                        return false;
+            }
+            return true;
+        }
+    }
+
     /**
      * Creates a sample ray for each square in the target area
      *
@@ -56,6 +278,19 @@ public class Sampling {
      * @return List of sample rays
      */
     public static LinkedList<Ray> superSample(Ray ray, double k, Vector n) {
+        return superSample(ray, k, n, TARGET_AREA_RESOLUTION);
+    }
+
+    /**
+     * Creates a sample ray for each square in a grid of a given resolution over the target area
+     *
+     * @param ray        The main ray
+     * @param k          glossy/diffusive attenuation coefficient
+     * @param n          normal to the head of the main ray
+     * @param resolution how many rays on each column and row of the grid
+     * @return List of sample rays
+     */
+    public static LinkedList<Ray> superSample(Ray ray, double k, Vector n, int resolution) {
         LinkedList<Ray> sampling = new LinkedList<>();
         Vector vUp;
         Vector vRight;
@@ -63,9 +298,9 @@ public class Sampling {
         vUp = Vector.createOrthogonal(vTo);
         vRight = vTo.crossProduct(vUp).normalize();
         Point p0 = ray.getP0();
-        for (int i = 0; i < TARGET_AREA_RESOLUTION; i++) {
-            for (int j = 0; j < TARGET_AREA_RESOLUTION; j++) {
-                Vector sampleDir = createVectorBeam(i, j, ray, vTo, vUp, vRight, k, n);
+        for (int i = 0; i < resolution; i++) {
+            for (int j = 0; j < resolution; j++) {
+                Vector sampleDir = createVectorBeam(i, j, ray, vTo, vUp, vRight, k, n, resolution);
                 if (sampleDir != null) {
                     sampling.add(new Ray(p0, sampleDir, n));
                 }
@@ -86,31 +321,35 @@ public class Sampling {
      * @param vRight Orthogonal to vTo, decides the angle
      * @param k      glossy/diffusive attenuation coefficient
      * @param n      normal to the head of the main ray
+     * @param resolution how many rays on each column and row of the grid
      * @return Vector that goes through the requested square in the grid
      */
-    private static Vector createVectorBeam(int i, int j, Ray ray, Vector vTo, Vector vUp, Vector vRight, double k, Vector n) {
+    private static Vector createVectorBeam(int i, int j, Ray ray, Vector vTo, Vector vUp, Vector vRight, double k, Vector n,
+                                           int resolution) {
         Point p0 = ray.getP0();
+        //the point is calculated on a scratch triple, only the direction is created
         //Center of the grid
-        Point pIj = p0.add(vTo.scale(TARGET_AREA_DISTANCE));
+        Vec3 pIj = new Vec3().set(p0).addScaled(vTo, TARGET_AREA_DISTANCE);
         //height and width of each square
-        double rC = k * TARGET_AREA_EDGE / TARGET_AREA_RESOLUTION;
+        double rC = k * TARGET_AREA_EDGE / resolution;
         //vertical distance of the required square from the center of the grid
-        double yI = -(i - ((double) (TARGET_AREA_RESOLUTION - 1)) / 2) * rC;
+        double yI = -(i - ((double) (resolution - 1)) / 2) * rC;
         //horizontal distance of the required square from the center of the grid
-        double xJ = -(j - ((double) (TARGET_AREA_RESOLUTION - 1)) / 2) * rC;
+        double xJ = -(j - ((double) (resolution - 1)) / 2) * rC;
         //changing the position of the center point so that the ray will intersect the view plane in the right place
         if (xJ != 0) {
-            pIj = pIj.add(vRight.scale(xJ));
+            pIj.addScaled(vRight, xJ);
         }
         if (yI != 0) {
-            pIj = pIj.add(vUp.scale(yI));
+            pIj.addScaled(vUp, yI);
         }
-        //return the ray
-        double sign = pIj.subtract(ray.getP0()).dotProduct(n);
+        //the direction from the head of the ray to the point
+        pIj.subtract(p0);
+        double sign = pIj.dotProduct(n);
         //Checking that the secondary ray doesn't go the other side of the normal plane
         if (vTo.dotProduct(n) * sign < 0) return null;
 
-        return pIj.subtract(p0).normalize();
+        return pIj.normalize().toVector();
 
     }
 }
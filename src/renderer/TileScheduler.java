@@ -0,0 +1,122 @@
+package renderer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Scheduler that renders an image in square tiles on a dedicated fork/join pool.
+ * The tiles are ordered in a spiral from the center of the image outwards, so the
+ * interesting part of the picture is done first, and the idle threads steal tiles from the busy ones.
+ * A tile is a large enough piece of work that the threads rarely meet each other,
+ * and its pixels are near each other so they reuse the same parts of the scene.
+ */
+class TileScheduler {
+    /**
+     * Renders a single tile, called from the threads of the pool
+     */
+    interface TileRenderer {
+        /**
+         * renders the pixels of a tile
+         *
+         * @param column  the horizontal index of the first pixel of the tile
+         * @param row     the vertical index of the first pixel of the tile
+         * @param columns the number of pixel columns in the tile
+         * @param rows    the number of pixel rows in the tile
+         */
+        void render(int column, int row, int columns, int rows);
+    }
+
+    /**
+     * the resolution of the image
+     */
+    private final int nX, nY;
+    /**
+     * the edge of a tile in pixels
+     */
+    private final int tileSize;
+    /**
+     * the indexes [column,row] of the tiles in the order they are rendered
+     */
+    private final List<int[]> tiles;
+
+    /**
+     * TileScheduler constructor
+     *
+     * @param nX       Horizontal component of the resolution
+     * @param nY       Vertical component of the resolution
+     * @param tileSize the edge of a tile in pixels
+     */
+    TileScheduler(int nX, int nY, int tileSize) {
+        if (tileSize < 1)
+            throw new IllegalArgumentException("The tile size must be positive");
+        this.nX = nX;
+        this.nY = nY;
+        this.tileSize = tileSize;
+        this.tiles = spiral((nX + tileSize - 1) / tileSize, (nY + tileSize - 1) / tileSize);
+    }
+
+    /**
+     * renders all the tiles on a new pool and waits until they are done
+     *
+     * @param parallelism the number of threads of the pool
+     * @param renderer    renders each tile
+     */
+    void render(int parallelism, TileRenderer renderer) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("The parallelism must be positive");
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    //the tasks are forked by the spiral order, the threads that steal them take the oldest first
+                    List<RecursiveAction> tasks = new ArrayList<>(tiles.size());
+                    for (int[] tile : tiles) {
+                        tasks.add(new RecursiveAction() {
+                            @Override
+                            protected void compute() {
+                                int column = tile[0] * tileSize;
+                                int row = tile[1] * tileSize;
+                                //the tiles at the edges of the image may be smaller
+                                renderer.render(column, row, Math.min(tileSize, nX - column), Math.min(tileSize, nY - row));
+                            }
+                        });
+                    }
+                    invokeAll(tasks);
+                }
+            });
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * orders the tiles of a grid in a spiral from its center outwards
+     *
+     * @param columns the number of tile columns
+     * @param rows    the number of tile rows
+     * @return the indexes [column,row] of all the tiles by the order of the spiral
+     */
+    static List<int[]> spiral(int columns, int rows) {
+        List<int[]> order = new ArrayList<>(columns * rows);
+        int column = (columns - 1) / 2, row = (rows - 1) / 2;
+        //steps right, down, left, up with growing legs until all the tiles are visited
+        int[][] directions = {{1, 0}, {0, 1}, {-1, 0}, {0, -1}};
+        int leg = 1, direction = 0;
+        while (order.size() < columns * rows) {
+            for (int turn = 0; turn < 2; turn++) {
+                for (int step = 0; step < leg; step++) {
+                    if (column >= 0 && column < columns && row >= 0 && row < rows)
+                        order.add(new int[]{column, row});
+                    column += directions[direction][0];
+                    row += directions[direction][1];
+                }
+                direction = (direction + 1) % 4;
+            }
+            leg++;
+        }
+        return order;
+    }
+}
@@ -1,11 +1,9 @@
 package scene;
 
-import geometries.Polygon;
 import lighting.*;
 import geometries.Geometries;
 import primitives.*;
 
-import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -28,8 +26,6 @@ public class Scene {
     public Geometries geometries = new Geometries();
     //List of light sources
     public List<LightSource> lights = new LinkedList<>();
-    //faces of the regular grid
-    public Polygon[] faces;
 
     //scene geometric attributes
     /**
@@ -45,20 +41,27 @@ public class Scene {
      */
     private int zEdgeScene;
     /**
-     * the resolution of the voxels that divide the scene
+     * the resolution of the voxels that divide the scene (used only if it was set explicitly)
      */
     public double resolution = 10;
     /**
-     * array of resolution to each axis
+     * array of resolution to each axis- the number of voxels the grid has on each axis
      */
-    public double[] resolutions;
+    public int[] resolutions;
+    /**
+     * whether the resolution of each axis is chosen automatically
+     */
+    private boolean autoResolution = true;
+    /**
+     * the maximal number of voxels on each axis when choosing the resolution automatically
+     */
+    private static final int MAX_RESOLUTION = 128;
 
     //voxel attributes
     /**
-     * hash map of all voxels in the scene- their index as the key and the list of geometric entities that intersects
-     * with the voxel as the value.
+     * grid of all voxels in the scene- each voxel holds the geometric entities that intersects with it
      */
-    public HashMap<Double3, Geometries> voxels = new HashMap<Double3, Geometries>();
+    public VoxelGrid voxels = new VoxelGrid();
     /**
      * the size of the edge of the voxel on the X axis
      */
@@ -166,16 +169,27 @@ public class Scene {
     }
 
     /**
-     * sets the resolution of the voxel grid from the tests
+     * sets the resolution of the voxel grid from the tests, the same resolution is used for all the axes.
+     * If it isn't set, the resolution of each axis is chosen automatically.
      *
      * @param resolution teh resolution of the grid
      * @return the object itself
      */
     public Scene setResolution(int resolution) {
         this.resolution = resolution;
+        this.autoResolution = false;
         return this;
     }
 
+    /**
+     * resolutions getter
+     *
+     * @return the number of voxels the grid has on each axis [x,y,z] (null before the voxels were calculated)
+     */
+    public int[] getResolutions() {
+        return resolutions == null ? null : resolutions.clone();
+    }
+
     /**
      * calculates what voxels the scene has and the attributes of the voxels
      */
@@ -185,7 +199,6 @@ public class Scene {
         this.setResolution();
         this.setVoxelsEdges();
         this.setVoxelsGeometries();
-        this.setFaces();
     }
 
     /**
@@ -205,19 +218,26 @@ public class Scene {
     }
 
     /**
-     * sets the resolution of the scene to divide to voxels
+     * sets the resolution of the scene to divide to voxels.
+     * Unless the resolution was set explicitly, it is chosen by the density heuristic of Cleary and Wyvill
+     * (see {@link VoxelGrid#chooseResolutions}), the entities of nested groups are counted one by one.
      */
     private void setResolution() {
-        resolutions = new double[]{resolution, resolution, resolution};
+        if (!autoResolution) {
+            resolutions = new int[]{(int) resolution, (int) resolution, (int) resolution};
+            return;
+        }
+        resolutions = VoxelGrid.chooseResolutions(new double[]{xEdgeScene, yEdgeScene, zEdgeScene},
+                geometries.flatSize(), MAX_RESOLUTION);
     }
 
     /**
      * sets the attributes of the voxels
      */
     private void setVoxelsEdges() {
-        this.xEdgeVoxel = ((double) this.xEdgeScene) / resolution;
-        this.yEdgeVoxel = ((double) this.yEdgeScene) / resolution;
-        this.zEdgeVoxel = ((double) this.zEdgeScene) / resolution;
+        this.xEdgeVoxel = ((double) this.xEdgeScene) / resolutions[0];
+        this.yEdgeVoxel = ((double) this.yEdgeScene) / resolutions[1];
+        this.zEdgeVoxel = ((double) this.zEdgeScene) / resolutions[2];
     }
 
     /**
@@ -226,31 +246,4 @@ public class Scene {
     private void setVoxelsGeometries() {
         this.voxels = this.geometries.attachVoxel(this);
     }
-
-    /**
-     * sets the regular grid faces field
-     */
-    private void setFaces(){
-        //points of the scene regular grid
-        int[][] gridBoundary = geometries.getBoundary();
-        Point p1 = new Point(gridBoundary[0][0],gridBoundary[1][0], gridBoundary[2][0]);//(0,0,0)
-        Point p2 = new Point(gridBoundary[0][1], gridBoundary[1][0], gridBoundary[2][0]);//(1,0,0)
-        Point p3 = new Point(gridBoundary[0][0], gridBoundary[1][1], gridBoundary[2][0]);//(0,1,0)
-        Point p4 = new Point(gridBoundary[0][0], gridBoundary[1][0], gridBoundary[2][1]);//(0,0,1)
-        Point p5 = new Point(gridBoundary[0][1], gridBoundary[1][1], gridBoundary[2][0]);//(1,1,0)
-        Point p6 = new Point(gridBoundary[0][1], gridBoundary[1][0], gridBoundary[2][1]);//(1,0,1)
-        Point p7 = new Point(gridBoundary[0][0], gridBoundary[1][1], gridBoundary[2][1]);//(0,1,1)
-        Point p8 = new Point(gridBoundary[0][1], gridBoundary[1][1], gridBoundary[2][1]);//(1,1,1)
-
-        //faces of the regular grid
-        Polygon bottom = new Polygon(p1, p2, p5, p3);//bottom
-        Polygon front = new Polygon(p1, p2, p6, p4);//front
-        Polygon left = new Polygon(p1, p3, p7, p4);//left
-        Polygon up = new Polygon(p4, p6, p8, p7);//up
-        Polygon behind = new Polygon(p3, p5, p8, p7);//behind
-        Polygon right = new Polygon(p2, p5, p8, p6);//right
-
-        //Memory wise, we won't use the ray function of findClosestPoint, since we will be in need to create a list of points
-        this.faces = new Polygon[]{bottom, front, left, up, behind, right};
-    }
 }
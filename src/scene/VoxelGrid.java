@@ -0,0 +1,255 @@
+package scene;
+
+import geometries.Intersectable;
+
+/**
+ * Class that represents the regular grid of voxels that divides the scene.
+ * The geometric entities of all the voxels are kept in one flat array, sorted by voxel (compressed sparse row),
+ * and each voxel holds the range of its entities in that array.
+ * The voxel (x,y,z) is found at the index x + xResolution * (y + yResolution * z).
+ * A crowded voxel may be divided again into a nested grid (sub-grid) that covers exactly the voxel.
+ */
+public class VoxelGrid {
+    /**
+     * the desired number of voxels per geometric entity when choosing the resolution automatically
+     */
+    private static final double GRID_DENSITY = 3;
+
+    /**
+     * the number of voxels on the X axis
+     */
+    private final int xResolution;
+    /**
+     * the number of voxels on the Y axis
+     */
+    private final int yResolution;
+    /**
+     * the number of voxels on the Z axis
+     */
+    private final int zResolution;
+    /**
+     * the minimal corner of the grid [x,y,z]
+     */
+    private final double[] origin;
+    /**
+     * the size of the edge of a voxel on each axis [x,y,z]
+     */
+    private final double[] voxelEdges;
+    /**
+     * the start of the entities of each voxel in the entities array, the last cell is the total number of entities.
+     * The entities of voxel i are in the range [cellStart[i], cellStart[i+1])
+     */
+    private final int[] cellStart;
+    /**
+     * the geometric entities of all the voxels, sorted by voxel
+     */
+    private final Intersectable[] entities;
+    /**
+     * the id of each geometric entity in the entities array, the same entity has the same id in all the voxels
+     * (and in the nested grids), so a ray can remember which entities it has already tested
+     */
+    private final int[] ids;
+    /**
+     * the number of different ids of the entities (all the ids are smaller than it)
+     */
+    private final int entityCount;
+    /**
+     * the nested grid of each voxel (null if none of the voxels is divided, a null cell if the voxel isn't divided)
+     */
+    private final VoxelGrid[] subGrids;
+
+    /**
+     * VoxelGrid constructor
+     *
+     * @param resolutions the number of voxels on each axis [x,y,z]
+     * @param origin      the minimal corner of the grid [x,y,z]
+     * @param voxelEdges  the size of the edge of a voxel on each axis [x,y,z]
+     * @param cellStart   the start of the entities of each voxel in the entities array
+     * @param entities    the geometric entities of all the voxels, sorted by voxel
+     * @param ids         the id of each geometric entity in the entities array
+     * @param subGrids    the nested grid of each voxel (may be null if none of the voxels is divided)
+     */
+    public VoxelGrid(int[] resolutions, double[] origin, double[] voxelEdges, int[] cellStart, Intersectable[] entities,
+                     int[] ids, VoxelGrid[] subGrids) {
+        int cells = resolutions[0] * resolutions[1] * resolutions[2];
+        if (cellStart.length != cells + 1)
+            throw new IllegalArgumentException("There must be a start for each voxel and the end of the last voxel");
+        if (ids.length != entities.length)
+            throw new IllegalArgumentException("There must be an id for each geometric entity");
+        if (subGrids != null && subGrids.length != cells)
+            throw new IllegalArgumentException("There must be a nested grid cell for each voxel");
+        this.xResolution = resolutions[0];
+        this.yResolution = resolutions[1];
+        this.zResolution = resolutions[2];
+        this.origin = origin;
+        this.voxelEdges = voxelEdges;
+        this.cellStart = cellStart;
+        this.entities = entities;
+        this.ids = ids;
+        int count = 0;
+        for (int id : ids) {
+            count = Math.max(count, id + 1);
+        }
+        this.entityCount = count;
+        this.subGrids = subGrids;
+    }
+
+    /**
+     * creates an empty grid
+     */
+    public VoxelGrid() {
+        this(new int[]{0, 0, 0}, new double[3], new double[3], new int[]{0}, new Intersectable[0], new int[0], null);
+    }
+
+    /**
+     * chooses the number of voxels on each axis by the density heuristic of Cleary and Wyvill:
+     * the voxels are cubes (as close as possible), and there are about GRID_DENSITY voxels per geometric entity.
+     * Axes on which the box is flat get a single voxel.
+     *
+     * @param edges         the size of the box that is divided on each axis [x,y,z]
+     * @param count         the number of geometric entities in the box
+     * @param maxResolution the maximal number of voxels on each axis
+     * @return the number of voxels on each axis [x,y,z]
+     */
+    public static int[] chooseResolutions(double[] edges, int count, int maxResolution) {
+        //the volume of the box, ignoring the flat axes
+        double volume = 1;
+        int dimensions = 0;
+        for (double edge : edges) {
+            if (edge > 0) {
+                volume *= edge;
+                dimensions++;
+            }
+        }
+        //the edge of a cube voxel that gives the desired number of voxels
+        double cubeEdge = Math.pow(volume / (GRID_DENSITY * Math.max(count, 1)), 1d / Math.max(dimensions, 1));
+        int[] resolutions = new int[3];
+        for (int i = 0; i < 3; i++) {
+            resolutions[i] = edges[i] <= 0 ? 1
+                    : (int) Math.max(1, Math.min(maxResolution, Math.round(edges[i] / cubeEdge)));
+        }
+        return resolutions;
+    }
+
+    /**
+     * resolutions getter
+     *
+     * @return the number of voxels on each axis [x,y,z]
+     */
+    public int[] getResolutions() {
+        return new int[]{xResolution, yResolution, zResolution};
+    }
+
+    /**
+     * returns the number of voxels on an axis
+     *
+     * @param axis the axis (0 - X, 1 - Y, 2 - Z)
+     * @return the number of voxels on the axis
+     */
+    public int getResolution(int axis) {
+        return axis == 0 ? xResolution : axis == 1 ? yResolution : zResolution;
+    }
+
+    /**
+     * returns the minimal coordinate of the grid on an axis
+     *
+     * @param axis the axis (0 - X, 1 - Y, 2 - Z)
+     * @return the minimal coordinate of the grid on the axis
+     */
+    public double getOrigin(int axis) {
+        return origin[axis];
+    }
+
+    /**
+     * returns the size of the edge of a voxel on an axis
+     *
+     * @param axis the axis (0 - X, 1 - Y, 2 - Z)
+     * @return the size of the edge of a voxel on the axis
+     */
+    public double getVoxelEdge(int axis) {
+        return voxelEdges[axis];
+    }
+
+    /**
+     * finds the cell of a voxel by its indexes
+     *
+     * @param x the index of the voxel on the X axis
+     * @param y the index of the voxel on the Y axis
+     * @param z the index of the voxel on the Z axis
+     * @return the cell of the voxel, -1 if the indexes are outside the grid
+     */
+    public int cell(int x, int y, int z) {
+        if (x < 0 || y < 0 || z < 0 || x >= xResolution || y >= yResolution || z >= zResolution)
+            return -1;
+        return x + xResolution * (y + yResolution * z);
+    }
+
+    /**
+     * returns the start of the entities of a cell
+     *
+     * @param cell the cell of the voxel
+     * @return the index of the first entity of the voxel in the entities array
+     */
+    public int start(int cell) {
+        return cellStart[cell];
+    }
+
+    /**
+     * returns the end of the entities of a cell
+     *
+     * @param cell the cell of the voxel
+     * @return the index after the last entity of the voxel in the entities array
+     */
+    public int end(int cell) {
+        return cellStart[cell + 1];
+    }
+
+    /**
+     * checks if a voxel has no geometric entities
+     *
+     * @param cell the cell of the voxel, may be -1
+     * @return true if the cell is outside the grid or has no entities
+     */
+    public boolean isEmpty(int cell) {
+        return cell == -1 || cellStart[cell] == cellStart[cell + 1];
+    }
+
+    /**
+     * returns the nested grid of a voxel
+     *
+     * @param cell the cell of the voxel
+     * @return the nested grid, null if the voxel isn't divided
+     */
+    public VoxelGrid getSubGrid(int cell) {
+        return subGrids == null ? null : subGrids[cell];
+    }
+
+    /**
+     * returns a geometric entity from the entities array
+     *
+     * @param index the index in the entities array
+     * @return the geometric entity
+     */
+    public Intersectable get(int index) {
+        return entities[index];
+    }
+
+    /**
+     * returns the id of a geometric entity from the entities array
+     *
+     * @param index the index in the entities array
+     * @return the id of the geometric entity
+     */
+    public int id(int index) {
+        return ids[index];
+    }
+
+    /**
+     * entityCount getter
+     *
+     * @return the number of different ids of the entities (all the ids are smaller than it)
+     */
+    public int getEntityCount() {
+        return entityCount;
+    }
+}
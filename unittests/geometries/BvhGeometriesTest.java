@@ -0,0 +1,166 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.*;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing geometries arranged in a bounding volume hierarchy
+ */
+class BvhGeometriesTest {
+
+    /**
+     * Test method for {@link geometries.BvhGeometries#findIntersections(Ray)}
+     */
+    @Test
+    public void TestFindIntersections() {
+        Sphere sph = new Sphere(new Point(1, 1, 1), 1);
+        Plane plane = new Plane(new Point(1, 0, 0), new Point(0, 1, 0), new Point(0, 0, 2));
+        Triangle tr = new Triangle(new Point(1, 0, 0), new Point(0, 1, 0), new Point(0, 0, 1));
+        BvhGeometries collection = new BvhGeometries(sph, plane, tr);
+
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: Some Geometries are intersected (while others don't).
+        Ray ray = new Ray(new Point(-1, 0, 0), new Vector(1, 1, 1));
+        assertEquals(3, collection.findIntersections(ray).size()
+                , "Wrong number of intersection points."); // the plane once and the sphere twice, not the triangle
+
+        // =============== Boundary Values Tests ==================
+
+        // TC11: All the Geometries are intersected.
+        ray = new Ray(new Point(2, 2, 2.5), new Vector(-1, -1, -1));
+        assertEquals(4, collection.findIntersections(ray).size()
+                , "Wrong number of intersection points.");
+
+        // TC12: No Geometries are intersected.
+        ray = new Ray(new Point(-1, 0, 0), new Vector(-1, -1, -1));
+        assertNull(collection.findIntersections(ray), "No intersection points.");
+
+        // TC13: Only one Geometry shape is intersected.
+        ray = new Ray(new Point(2, 0, 2), new Vector(-1, -1, -1));
+        assertEquals(1, collection.findIntersections(ray).size()
+                , "Wrong number of intersection points.");  // Intersects only plane
+
+        // TC14: Empty Geometries collection.
+        assertNull(new BvhGeometries().findIntersections(new Ray(new Point(-1, 0, 0), new Vector(1, 1, 0)))
+                , "No geometry shapes in the collection.");
+    }
+
+    /**
+     * Test method for {@link geometries.BvhGeometries#findClosestGeoIntersection(Ray, double)}
+     */
+    @Test
+    public void testFindClosestGeoIntersection() {
+        Geometries list = GridFixture.grid();
+        BvhGeometries bvh = new BvhGeometries(list);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Rays through the whole grid find the same closest intersection as the plain list
+        for (Ray ray : GridFixture.sweep()) {
+            assertEquals(list.findClosestGeoIntersection(ray), bvh.findClosestGeoIntersection(ray),
+                    "Wrong closest intersection");
+            List<Point> expected = list.findIntersections(ray);
+            List<Point> result = bvh.findIntersections(ray);
+            assertEquals(expected == null ? 0 : expected.size(), result == null ? 0 : result.size(),
+                    "Wrong number of intersection points");
+        }
+
+        // TC02: The closest entity is beyond the maximal distance
+        Ray ray = GridFixture.TWINS_RAY;
+        assertNull(bvh.findClosestGeoIntersection(ray, 40), "Intersection beyond the maximal distance");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Two entities intersect the ray in the same point - the first added wins
+        Triangle[] pair = GridFixture.twins();
+        BvhGeometries twins = new BvhGeometries(pair);
+        assertSame(pair[0], twins.findClosestGeoIntersection(ray).geometry, "Wrong entity on equal distances");
+    }
+
+    /**
+     * Test method for {@link geometries.BvhGeometries#findClosestGeoIntersection(Ray, double)}
+     * with groups of packed entities in the leaves
+     */
+    @Test
+    public void testPackedLeaves() {
+        //each row of the grid is packed, the rows are the entities of the hierarchy
+        Geometries list = new Geometries();
+        BvhGeometries bvh = new BvhGeometries();
+        Material glass = new Material().setKt(0.6);
+        for (int i = 0; i < GridFixture.SIZE; i++) {
+            PackedGeometries row = new PackedGeometries();
+            for (int j = 0; j < GridFixture.SIZE; j++) {
+                Intersectable[] cell = GridFixture.cell(i, j, glass, new Material());
+                list.add(cell);
+                row.add(cell);
+            }
+            bvh.add(row);
+        }
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The packed rows are bounded, so the hierarchy is built over them
+        assertArrayEquals(new int[]{-3, 94}, ((PackedGeometries) bvh.objects.get(0)).boundary[1],
+                "Wrong boundary of a packed row");
+
+        // TC02: Rays through the whole grid find the same intersections as the plain list
+        for (Ray ray : GridFixture.sweep()) {
+            assertEquals(list.findClosestGeoIntersection(ray), bvh.findClosestGeoIntersection(ray),
+                    "Wrong closest intersection");
+            assertEquals(list.occlusion(ray, 200, 0.001), bvh.occlusion(ray, 200, 0.001),
+                    "Wrong transparency");
+        }
+
+        // =============== Boundary Values Tests ==================
+        // TC11: A packed group with an unbounded entity is tested against every ray
+        PackedGeometries unbounded = new PackedGeometries(new Plane(new Point(0, 0, -70), new Vector(0, 0, 1)));
+        assertNull(unbounded.boundary, "A packed group with a plane has a boundary");
+        bvh.add(unbounded);
+        Ray ray = new Ray(GridFixture.EYE, new Vector(0, 0, -1));
+        assertEquals(170, bvh.findClosestGeoIntersection(ray).t, 1e-9, "The plane wasn't intersected");
+    }
+
+    /**
+     * Test method for {@link geometries.BvhGeometries#findClosestHits(Ray[], Intersectable.Hit[])}
+     */
+    @Test
+    public void testFindClosestHits() {
+        Geometries list = GridFixture.grid();
+        list.add(new Plane(new Point(0, 0, -70), new Vector(0, 0, 1)));
+        BvhGeometries bvh = new BvhGeometries(list);
+        Point p0 = GridFixture.EYE;
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A packet of rays over the whole grid finds the same closest intersections as each ray by itself
+        Ray[] rays = GridFixture.sweep().toArray(new Ray[0]);
+        Intersectable.Hit[] hits = new Intersectable.Hit[rays.length];
+        for (int r = 0; r < rays.length; r++)
+            hits[r] = new Intersectable.Hit(rays[r], Double.POSITIVE_INFINITY);
+        bvh.findClosestHits(rays, hits);
+        for (int r = 0; r < rays.length; r++)
+            assertEquals(list.findClosestGeoIntersection(rays[r]), hits[r].getGeoPoint(), "Wrong closest intersection");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: A ray that misses all the boxes drops out of the packet, the others still find their intersections
+        Ray miss = new Ray(p0, new Vector(0, 0, 1));
+        Ray ray = new Ray(p0, new Point(0, 0, -50).subtract(p0));
+        Intersectable.Hit[] pair = {new Intersectable.Hit(miss, 1000), new Intersectable.Hit(ray, 1000)};
+        bvh.findClosestHits(new Ray[]{miss, ray}, pair);
+        assertNull(pair[0].getGeoPoint(), "Intersection of a ray that misses");
+        assertEquals(list.findClosestGeoIntersection(ray), pair[1].getGeoPoint(), "Wrong closest intersection");
+
+        // TC12: Rays with different heads are tested one by one in every node
+        Ray[] parallel = new Ray[100];
+        Intersectable.Hit[] parallelHits = new Intersectable.Hit[parallel.length];
+        for (int r = 0; r < parallel.length; r++) {
+            parallel[r] = new Ray(new Point(r, r % 7 * 13, 0), new Vector(0.01, 0.02, -1));
+            parallelHits[r] = new Intersectable.Hit(parallel[r], Double.POSITIVE_INFINITY);
+        }
+        bvh.findClosestHits(parallel, parallelHits);
+        for (int r = 0; r < parallel.length; r++)
+            assertEquals(list.findClosestGeoIntersection(parallel[r]), parallelHits[r].getGeoPoint(),
+                    "Wrong closest intersection of a ray with its own head");
+    }
+}
@@ -2,6 +2,10 @@ package geometries;
 
 import org.junit.jupiter.api.Test;
 import primitives.*;
+import scene.Scene;
+import scene.VoxelGrid;
+
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -47,4 +51,137 @@ class GeometriesTest {
         assertNull(new Geometries().findIntersections(new Ray(new Point(-1, 0, 0), new Vector(1, 1, 0)))
                 , "No geometry shapes in the collection.");
     }
-}
\ No newline at end of file
+
+    /**
+     * Test method for {@link geometries.Geometries#attachVoxel(Scene)}
+     */
+    @Test
+    public void testAttachVoxel() {
+        //a large sphere that spreads the scene and a crowded cluster of small spheres in one corner
+        Scene scene = new Scene("voxels").setResolution(2);
+        scene.geometries.add(new Sphere(new Point(80, 80, 80), 20));
+        for (int i = 0; i < 5; i++) {
+            for (int j = 0; j < 5; j++) {
+                scene.geometries.add(new Sphere(new Point(i * 8 + 2, j * 8 + 2, 2), 1));
+            }
+        }
+        scene.calcVoxels();
+        VoxelGrid grid = scene.voxels;
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The crowded voxel is divided into a nested grid
+        int crowded = grid.cell(0, 0, 0);
+        assertEquals(25, grid.end(crowded) - grid.start(crowded), "Wrong number of entities in the voxel");
+        VoxelGrid subGrid = grid.getSubGrid(crowded);
+        assertNotNull(subGrid, "The crowded voxel should be divided");
+        for (int i = 0; i < 3; i++) {
+            assertEquals(grid.getOrigin(i), subGrid.getOrigin(i), 1e-10, "The nested grid should start at the voxel");
+            assertEquals(grid.getVoxelEdge(i), subGrid.getVoxelEdge(i) * subGrid.getResolution(i), 1e-10,
+                    "The nested grid should cover the voxel");
+        }
+
+        // TC02: A voxel with a single entity isn't divided
+        assertNull(grid.getSubGrid(grid.cell(1, 1, 1)), "A voxel with a single entity should not be divided");
+    }
+
+    /**
+     * Test method for {@link geometries.Intersectable#occlusion(Ray, double, double)}
+     */
+    @Test
+    public void testOcclusion() {
+        Geometry glass = new Sphere(new Point(0, 0, -10), 2).setMaterial(new Material().setKt(0.5));
+        Geometry wall = new Triangle(new Point(-5, -5, -20), new Point(5, -5, -20), new Point(0, 5, -20));
+        Geometries collection = new Geometries(glass, wall);
+        Ray ray = new Ray(new Point(0, 0, 0), new Vector(0, 0, -1));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The light passes through both sides of a transparent sphere
+        assertEquals(new Double3(0.25), collection.occlusion(ray, 15, 0.001), "Wrong transparency");
+        // TC02: An opaque entity blocks the light
+        assertEquals(Double3.ZERO, collection.occlusion(ray, 25, 0.001), "The light should be blocked");
+        // TC03: No entity on the way to the light source
+        assertEquals(Double3.ONE, collection.occlusion(ray, 5, 0.001), "The light should pass");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: The transparency drops below the threshold
+        assertEquals(Double3.ZERO, collection.occlusion(ray, 15, 0.3), "The light should be blocked");
+        // TC12: The light source is inside the transparent sphere
+        assertEquals(new Double3(0.5), collection.occlusion(ray, 10, 0.001), "Wrong transparency inside the sphere");
+    }
+
+    /**
+     * Test method for {@link geometries.Geometry#countIntersections(Ray, double)}
+     */
+    @Test
+    public void testCountIntersections() {
+        Geometry[] geometries = {
+                new Sphere(new Point(0, 0, -10), 2),
+                new Plane(new Point(0, 0, -10), new Vector(1, 2, 3)),
+                new Triangle(new Point(-5, -5, -10), new Point(5, -5, -10), new Point(0, 5, -10)),
+                new Polygon(new Point(-5, -5, -10), new Point(5, -5, -10), new Point(5, 5, -10), new Point(-5, 5, -10)),
+                new Tube(new Ray(new Point(0, 0, -10), new Vector(1, 0, 0)), 1),
+                new Cylinder(new Ray(new Point(0, 0, -10), new Vector(1, 0, 0)), 1, 3)};
+        Point[] heads = {new Point(0, 0, 0), new Point(0.5, 0.2, -9), new Point(0, 0, -20), new Point(0, 10, 0)};
+        double[] distances = {1, 9, 10, 11, 20, 100};
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The number of intersections matches the list of intersections within each distance
+        for (Geometry geometry : geometries)
+            for (Point head : heads)
+                for (Vector dir : new Vector[]{new Vector(0, 0, -1), new Vector(0, 0, 1), new Vector(0.1, -0.1, -1)})
+                    for (double distance : distances) {
+                        Ray ray = new Ray(head, dir);
+                        List<Intersectable.GeoPoint> list = geometry.findGeoIntersections(ray, distance);
+                        assertEquals(list == null ? 0 : list.size(), geometry.countIntersections(ray, distance),
+                                "Wrong number of intersections with " + geometry.getClass().getSimpleName());
+                    }
+    }
+
+    /**
+     * Test method for {@link geometries.Intersectable#findClosestHit(Ray, Intersectable.Hit)}
+     */
+    @Test
+    public void testFindClosestHit() {
+        Intersectable[] geometries = {
+                new Sphere(new Point(0, 0, -10), 3),
+                new Plane(new Point(0, 0, -20), new Vector(0, 1, 1)),
+                new Triangle(new Point(-4, -4, -8), new Point(4, -4, -8), new Point(0, 4, -12)),
+                new Polygon(new Point(-4, -4, -6), new Point(4, -4, -6), new Point(4, 4, -6), new Point(-4, 4, -6)),
+                new Tube(new Ray(new Point(0, 0, -10), new Vector(1, 0, 0)), 2),
+                new Cylinder(new Ray(new Point(0, -3, -10), new Vector(0, 1, 0)), 2, 6)};
+        Point p0 = new Point(1, 0.5, 5);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The hit record holds the closest of the intersection points of each geometry,
+        // and each intersection point carries its distance from the head of the ray
+        for (Intersectable geometry : geometries) {
+            for (int i = -6; i <= 6; i++) {
+                for (int j = -6; j <= 6; j++) {
+                    Ray ray = new Ray(p0, new Point(i, j, -10).subtract(p0));
+                    Intersectable.Hit hit = new Intersectable.Hit(ray, Double.POSITIVE_INFINITY);
+                    boolean updated = geometry.findClosestHit(ray, hit);
+                    List<Intersectable.GeoPoint> intersections = geometry.findGeoIntersections(ray);
+                    Intersectable.GeoPoint expected = ray.findClosestGeoPoint(intersections);
+                    assertEquals(expected != null, updated, "Wrong update of the record for " + geometry);
+                    assertEquals(expected, hit.getGeoPoint(), "Wrong closest intersection for " + geometry);
+                    if (intersections != null)
+                        for (Intersectable.GeoPoint gp : intersections)
+                            assertEquals(p0.distance(gp.point), gp.t, 1e-9, "Wrong ray parameter for " + geometry);
+                }
+            }
+        }
+
+        // TC02: A closer intersection in the record isn't replaced
+        Ray ray = new Ray(p0, new Vector(0, 0, -1));
+        Intersectable.Hit hit = new Intersectable.Hit(ray, Double.POSITIVE_INFINITY);
+        assertTrue(geometries[3].findClosestHit(ray, hit), "The polygon should update the record");
+        assertFalse(geometries[0].findClosestHit(ray, hit), "The sphere is behind the polygon");
+        assertSame(geometries[3], hit.getGeometry(), "Wrong geometry in the record");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: The intersection is beyond the maximal distance
+        hit = new Intersectable.Hit(ray, 10);
+        assertFalse(geometries[0].findClosestHit(ray, hit), "The sphere is beyond the maximal distance");
+        assertNull(hit.getGeoPoint(), "The record should be empty");
+    }
+}
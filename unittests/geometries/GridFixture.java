@@ -0,0 +1,87 @@
+package geometries;
+
+import primitives.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shared entities for the tests of the groups that must return the same intersections as a {@link Geometries}:
+ * a 10x10 grid of small spheres and triangles (large enough to be split into several nodes of a hierarchy),
+ * the rays that sweep it, and two triangles that intersect a ray in the same point
+ */
+final class GridFixture {
+    /**
+     * the number of cells of the grid on each axis
+     */
+    static final int SIZE = 10;
+    /**
+     * the head of the rays that sweep the grid
+     */
+    static final Point EYE = new Point(45, 45, 100);
+    /**
+     * the ray that passes through the twin triangles
+     */
+    static final Ray TWINS_RAY = new Ray(new Point(0, 0, 0), new Vector(0, 0, -1));
+
+    /**
+     * Empty private constructor to hide the public one
+     */
+    private GridFixture() {
+    }
+
+    /**
+     * creates the entities of a cell of the grid
+     *
+     * @param i                the index of the cell on the x axis
+     * @param j                the index of the cell on the y axis
+     * @param sphereMaterial   the material of the sphere
+     * @param triangleMaterial the material of the triangle
+     * @return the sphere and the triangle of the cell
+     */
+    static Intersectable[] cell(int i, int j, Material sphereMaterial, Material triangleMaterial) {
+        return new Intersectable[]{
+                new Sphere(new Point(i * 10, j * 10, -50 - i - j), 3).setMaterial(sphereMaterial),
+                new Triangle(new Point(i * 10 + 5, j * 10, -40), new Point(i * 10 + 9, j * 10, -40),
+                        new Point(i * 10 + 5, j * 10 + 4, -45)).setMaterial(triangleMaterial)};
+    }
+
+    /**
+     * creates the whole grid with the default material
+     *
+     * @return the spheres and the triangles of all the cells
+     */
+    static Geometries grid() {
+        Geometries list = new Geometries();
+        for (int i = 0; i < SIZE; i++) {
+            for (int j = 0; j < SIZE; j++)
+                list.add(cell(i, j, new Material(), new Material()));
+        }
+        return list;
+    }
+
+    /**
+     * creates rays from the eye through the whole grid and around it
+     *
+     * @return the rays
+     */
+    static List<Ray> sweep() {
+        List<Ray> rays = new ArrayList<>();
+        for (int i = -10; i <= 100; i += 3) {
+            for (int j = -10; j <= 100; j += 3)
+                rays.add(new Ray(EYE, new Point(i, j, -50).subtract(EYE)));
+        }
+        return rays;
+    }
+
+    /**
+     * creates two triangles that the ray {@link #TWINS_RAY} intersects in the same point
+     *
+     * @return the triangles, the first one should win on equal distances
+     */
+    static Triangle[] twins() {
+        return new Triangle[]{
+                new Triangle(new Point(-1, -1, -10), new Point(1, -1, -10), new Point(0, 1, -10)),
+                new Triangle(new Point(-1, -1, -10), new Point(1, -1, -10), new Point(0, 2, -10))};
+    }
+}
@@ -0,0 +1,97 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.*;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing geometries with packed triangles and spheres
+ */
+class PackedGeometriesTest {
+
+    /**
+     * Test method for {@link geometries.PackedGeometries#findIntersections(Ray)}
+     */
+    @Test
+    public void TestFindIntersections() {
+        Sphere sph = new Sphere(new Point(1, 1, 1), 1);
+        Plane plane = new Plane(new Point(1, 0, 0), new Point(0, 1, 0), new Point(0, 0, 2));
+        Triangle tr = new Triangle(new Point(1, 0, 0), new Point(0, 1, 0), new Point(0, 0, 1));
+        PackedGeometries collection = new PackedGeometries(sph, plane, tr);
+
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: Some Geometries are intersected (while others don't).
+        Ray ray = new Ray(new Point(-1, 0, 0), new Vector(1, 1, 1));
+        assertEquals(3, collection.findIntersections(ray).size()
+                , "Wrong number of intersection points."); // the plane once and the sphere twice, not the triangle
+
+        // =============== Boundary Values Tests ==================
+
+        // TC11: All the Geometries are intersected.
+        ray = new Ray(new Point(2, 2, 2.5), new Vector(-1, -1, -1));
+        assertEquals(4, collection.findIntersections(ray).size()
+                , "Wrong number of intersection points.");
+
+        // TC12: No Geometries are intersected.
+        ray = new Ray(new Point(-1, 0, 0), new Vector(-1, -1, -1));
+        assertNull(collection.findIntersections(ray), "No intersection points.");
+
+        // TC13: The ray starts at the center of the sphere.
+        ray = new Ray(new Point(1, 1, 1), new Vector(0, 0, 1));
+        assertEquals(new Point(1, 1, 2), collection.findClosestGeoIntersection(ray).point,
+                "Wrong intersection from the center of the sphere");
+
+        // TC14: Empty Geometries collection.
+        assertNull(new PackedGeometries().findIntersections(new Ray(new Point(-1, 0, 0), new Vector(1, 1, 0)))
+                , "No geometry shapes in the collection.");
+    }
+
+    /**
+     * Test method for {@link geometries.PackedGeometries#findClosestGeoIntersection(Ray, double)}
+     * and {@link geometries.PackedGeometries#occlusion(Ray, double, double)}
+     */
+    @Test
+    public void testSameAsGeometries() {
+        //the grid of spheres and triangles, with polygons (which aren't packed), some of them transparent
+        Geometries list = new Geometries();
+        Material glass = new Material().setKt(0.6);
+        for (int i = 0; i < GridFixture.SIZE; i++) {
+            for (int j = 0; j < GridFixture.SIZE; j++)
+                list.add(GridFixture.cell(i, j, glass, (i + j) % 2 == 0 ? glass : new Material()));
+            list.add(new Polygon(new Point(i * 10, -10, -60), new Point(i * 10 + 4, -10, -60),
+                    new Point(i * 10 + 4, 100, -60), new Point(i * 10, 100, -60)));
+        }
+        PackedGeometries packed = new PackedGeometries(list);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Rays through the whole grid find the same intersections as the plain list
+        for (Ray ray : GridFixture.sweep()) {
+            assertEquals(list.findClosestGeoIntersection(ray), packed.findClosestGeoIntersection(ray),
+                    "Wrong closest intersection");
+            List<Point> expected = list.findIntersections(ray);
+            List<Point> result = packed.findIntersections(ray);
+            assertEquals(expected, result, "Wrong intersection points");
+            assertEquals(list.occlusion(ray, 200, 0.001), packed.occlusion(ray, 200, 0.001),
+                    "Wrong transparency");
+        }
+
+        // TC02: The closest entity is beyond the maximal distance
+        Ray ray = GridFixture.TWINS_RAY;
+        assertNull(packed.findClosestGeoIntersection(ray, 40), "Intersection beyond the maximal distance");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Two entities intersect the ray in the same point - the first added wins
+        Triangle[] pair = GridFixture.twins();
+        PackedGeometries twins = new PackedGeometries(pair);
+        assertSame(pair[0], twins.findClosestGeoIntersection(ray).geometry, "Wrong entity on equal distances");
+
+        // TC12: An entity added after a query is packed for the next one
+        Sphere near = new Sphere(new Point(0, 0, -5), 1);
+        twins.add(near);
+        assertSame(near, twins.findClosestGeoIntersection(ray).geometry, "The added entity wasn't packed");
+    }
+}
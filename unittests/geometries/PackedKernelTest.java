@@ -0,0 +1,96 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Testing the SIMD loops of the packed geometries against the scalar loops
+ */
+class PackedKernelTest {
+
+    /**
+     * returns the SIMD kernel, the test is skipped if the vector API isn't available
+     * (the JVM runs without --add-modules jdk.incubator.vector)
+     *
+     * @return the kernel
+     */
+    private static PackedKernel vectorKernel() {
+        PackedKernel kernel = PackedGeometries.KERNEL;
+        assumeTrue(kernel != null, "The vector API isn't available");
+        return kernel;
+    }
+
+    /**
+     * Test method for {@link geometries.PackedKernel#triangleDistances}
+     */
+    @Test
+    public void testTriangleDistances() {
+        PackedKernel kernel = vectorKernel();
+        //random triangles around the ray, and triangles on the boundaries of the scalar tests
+        int count = 1003;
+        Random random = new Random(7);
+        double[][] arrays = new double[10][count];
+        for (int i = 0; i < count; i++) {
+            for (int j = 0; j < 9; j++)
+                arrays[j][i] = random.nextDouble() * 4 - 2;
+            if (i % 5 == 0) arrays[0][i] = arrays[1][i] = 0;//the ray passes through the first vertex
+            if (i % 7 == 0) arrays[5][i] = arrays[8][i] = -3;//the ray is parallel to the triangle
+            double nx = arrays[4][i] * arrays[8][i] - arrays[5][i] * arrays[7][i];
+            double ny = arrays[5][i] * arrays[6][i] - arrays[3][i] * arrays[8][i];
+            double nz = arrays[3][i] * arrays[7][i] - arrays[4][i] * arrays[6][i];
+            arrays[9][i] = 1 / Math.sqrt(nx * nx + ny * ny + nz * nz);
+        }
+        double[] distances = new double[count];
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: each lane has the same distance as the scalar calculation
+        for (double[] ray : new double[][]{{0, 0, 5, 0, 0, -1}, {0.1, -0.2, 4, 0.05, 0.1, -1}, {0, 0, 0, 0, 0, 1}}) {
+            int done = kernel.triangleDistances(ray[0], ray[1], ray[2], ray[3], ray[4], ray[5],
+                    arrays[0], arrays[1], arrays[2], arrays[3], arrays[4], arrays[5],
+                    arrays[6], arrays[7], arrays[8], arrays[9], distances);
+            assertTrue(done > count - 64, "The vector loop left too many triangles");
+            for (int i = 0; i < done; i++)
+                assertEquals(GeometryUtil.triangleDistance(ray[0], ray[1], ray[2], ray[3], ray[4], ray[5],
+                                arrays[0][i], arrays[1][i], arrays[2][i], arrays[3][i], arrays[4][i], arrays[5][i],
+                                arrays[6][i], arrays[7][i], arrays[8][i], arrays[9][i], null), distances[i],
+                        "Wrong distance of triangle " + i);
+        }
+    }
+
+    /**
+     * Test method for {@link geometries.PackedKernel#sphereDistances}
+     */
+    @Test
+    public void testSphereDistances() {
+        PackedKernel kernel = vectorKernel();
+        //random spheres around the ray, and spheres on the boundaries of the scalar tests
+        int count = 1003;
+        Random random = new Random(11);
+        double[][] arrays = new double[5][count];
+        for (int i = 0; i < count; i++) {
+            for (int j = 0; j < 3; j++)
+                arrays[j][i] = random.nextDouble() * 8 - 4;
+            arrays[3][i] = random.nextDouble() * 2;
+            if (i % 5 == 0) arrays[0][i] = arrays[1][i] = arrays[2][i] = 0;//the ray head at the center
+            if (i % 7 == 0) arrays[3][i] = Math.abs(arrays[0][i]);//the ray is tangent to the sphere
+            arrays[4][i] = arrays[3][i] * arrays[3][i];
+        }
+        double[] distances = new double[count];
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: each lane has the same distance as the scalar calculation
+        for (double[] ray : new double[][]{{0, 0, 0, 0, 1, 0}, {0, 0, 0, 0.6, 0, 0.8}, {1, 2, 3, 0, 0, -1}}) {
+            int done = kernel.sphereDistances(ray[0], ray[1], ray[2], ray[3], ray[4], ray[5],
+                    arrays[0], arrays[1], arrays[2], arrays[3], arrays[4], distances);
+            assertTrue(done > count - 64, "The vector loop left too many spheres");
+            for (int i = 0; i < done; i++)
+                assertEquals(PackedGeometries.sphereDistance(ray[0], ray[1], ray[2], ray[3], ray[4], ray[5],
+                                arrays[0][i], arrays[1][i], arrays[2][i], arrays[3][i], arrays[4][i]), distances[i],
+                        "Wrong distance of sphere " + i);
+        }
+    }
+}
@@ -114,6 +114,19 @@ public class PolygonTest {
         //TC6: The ray intersect with the Polygon's plane outside the Polygon on one of the Polygon's rib's vector
         Ray ray6 = new Ray(new Point(0, 0, 1), new Vector(-1, -2, -1));
         assertNull(plg.findIntersections(ray6), "The ray failed to intersect with the Polygon's plane on one of the Polygon's rib's vector");
+
+        //TC7: The ray intersect with the quad on each side of its diagonal
+        assertEquals(List.of(new Point(1, -0.5, 0)), plg.findIntersections(new Ray(new Point(1, -0.5, 1), new Vector(0, 0, -1))),
+                "The ray failed to intersect with the quad beyond its diagonal");
+        assertEquals(List.of(new Point(-0.5, 0.5, 0)), plg.findIntersections(new Ray(new Point(-0.5, 0.5, 1), new Vector(0, 0, -1))),
+                "The ray failed to intersect with the quad before its diagonal");
+
+        //TC8: The ray intersect with a pentagon inside it and outside it
+        Polygon pentagon = new Polygon(new Point(0, 0, 0), new Point(2, 0, 0), new Point(3, 1, 0), new Point(1, 3, 0), new Point(-1, 1, 0));
+        assertEquals(List.of(new Point(2, 1.5, 0)), pentagon.findIntersections(new Ray(new Point(2, 1.5, 1), new Vector(0, 0, -1))),
+                "The ray failed to intersect with the pentagon");
+        assertNull(pentagon.findIntersections(new Ray(new Point(3, 2, 1), new Vector(0, 0, -1))),
+                "The ray is outside the pentagon");
     }
 
     /**
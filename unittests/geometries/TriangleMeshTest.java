@@ -0,0 +1,223 @@
+package geometries;
+
+import geometries.Intersectable.GeoPoint;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing meshes of triangles
+ */
+class TriangleMeshTest {
+
+    /**
+     * the size of the grid of the wavy surface mesh
+     */
+    private static final int SIZE = 12;
+
+    /**
+     * creates a wavy surface of SIZE x SIZE squares, each square is two faces
+     *
+     * @return the coordinates of the vertices
+     */
+    private static double[] surfaceVertices() {
+        double[] vertices = new double[3 * (SIZE + 1) * (SIZE + 1)];
+        for (int i = 0; i <= SIZE; i++) {
+            for (int j = 0; j <= SIZE; j++) {
+                int v = 3 * (i * (SIZE + 1) + j);
+                vertices[v] = i;
+                vertices[v + 1] = j;
+                vertices[v + 2] = Math.sin(i * 0.7) + Math.cos(j * 0.5);
+            }
+        }
+        return vertices;
+    }
+
+    /**
+     * creates the faces of the wavy surface
+     *
+     * @return the indexes of the vertices of the faces
+     */
+    private static int[] surfaceFaces() {
+        int[] faces = new int[6 * SIZE * SIZE];
+        int f = 0;
+        for (int i = 0; i < SIZE; i++) {
+            for (int j = 0; j < SIZE; j++) {
+                int a = i * (SIZE + 1) + j, b = a + 1, c = a + SIZE + 1, d = c + 1;
+                faces[f++] = a;
+                faces[f++] = c;
+                faces[f++] = b;
+                faces[f++] = b;
+                faces[f++] = c;
+                faces[f++] = d;
+            }
+        }
+        return faces;
+    }
+
+    /**
+     * creates the same surface of separated triangles
+     *
+     * @param vertices the coordinates of the vertices
+     * @param faces    the indexes of the vertices of the faces
+     * @return the triangles
+     */
+    private static Triangle[] triangles(double[] vertices, int[] faces) {
+        Triangle[] triangles = new Triangle[faces.length / 3];
+        for (int f = 0; f < triangles.length; f++) {
+            Point[] points = new Point[3];
+            for (int k = 0; k < 3; k++) {
+                int v = 3 * faces[3 * f + k];
+                points[k] = new Point(vertices[v], vertices[v + 1], vertices[v + 2]);
+            }
+            triangles[f] = new Triangle(points);
+        }
+        return triangles;
+    }
+
+    /**
+     * Test method for {@link geometries.TriangleMesh#TriangleMesh(double[], int[])}
+     */
+    @Test
+    public void testConstructor() {
+        double[] vertices = {0, 0, 0, 1, 0, 0, 0, 1, 0};
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: a correct mesh
+        assertDoesNotThrow(() -> new TriangleMesh(vertices, new int[]{0, 1, 2}), "Failed constructing a correct mesh");
+
+        // TC02: a face refers to a vertex that doesn't exist
+        assertThrows(IllegalArgumentException.class, () -> new TriangleMesh(vertices, new int[]{0, 1, 3}),
+                "Constructed a mesh with a missing vertex");
+
+        // TC03: the faces aren't triples
+        assertThrows(IllegalArgumentException.class, () -> new TriangleMesh(vertices, new int[]{0, 1}),
+                "Constructed a mesh with a face of two vertices");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: a mesh without faces
+        assertThrows(IllegalArgumentException.class, () -> new TriangleMesh(vertices, new int[0]),
+                "Constructed an empty mesh");
+    }
+
+    /**
+     * Test method for {@link geometries.TriangleMesh#findIntersections(Ray)}
+     */
+    @Test
+    public void testFindIntersections() {
+        TriangleMesh mesh = new TriangleMesh(new double[]{-1, 1, 0, 1, 0, 0, -1, -1, 0, 3, 3, 0}, new int[]{0, 1, 2, 0, 3, 1});
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the ray intersects inside a face
+        Ray ray = new Ray(new Point(0, 0, 1), new Vector(-0.5, 0, -1));
+        List<GeoPoint> result = mesh.findGeoIntersections(ray);
+        assertEquals(List.of(new Point(-0.5, 0, 0)), result.stream().map(gp -> gp.point).toList(),
+                "TC01: wrong intersection inside a face");
+        assertEquals(0, ((TriangleMesh.Face) result.get(0).geometry).getIndex(), "TC01: wrong face");
+
+        // TC02: the ray passes outside all the faces
+        assertNull(mesh.findIntersections(new Ray(new Point(0, 0, 1), new Vector(-3, 0, -1))),
+                "TC02: the ray is outside the mesh");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: the ray passes through the edge shared by the faces
+        assertNull(mesh.findIntersections(new Ray(new Point(0, 0.5, 1), new Vector(0, 0, -1))),
+                "TC11: an edge isn't an intersection");
+
+        // TC12: the ray passes through a vertex
+        assertNull(mesh.findIntersections(new Ray(new Point(1, 0, 1), new Vector(0, 0, -1))),
+                "TC12: a vertex isn't an intersection");
+    }
+
+    /**
+     * Test method for {@link geometries.TriangleMesh#findClosestGeoIntersection(Ray)}
+     * compared with the same surface made of triangles
+     */
+    @Test
+    public void testFindClosestGeoIntersection() {
+        double[] vertices = surfaceVertices();
+        int[] faces = surfaceFaces();
+        TriangleMesh mesh = new TriangleMesh(vertices, faces);
+        Geometries triangles = new Geometries(triangles(vertices, faces));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: rays from all around the surface hit the same points with the same normals
+        for (int i = 0; i < 200; i++) {
+            Point head = new Point(6 + 10 * Math.cos(i), 6 + 10 * Math.sin(i * 1.3), 5 - (i % 11));
+            Vector dir = new Point(1 + (i * 7) % 10, 1 + (i * 3) % 10, 0).subtract(head);
+            Ray ray = new Ray(head, dir);
+            GeoPoint expected = triangles.findClosestGeoIntersection(ray);
+            GeoPoint actual = mesh.findClosestGeoIntersection(ray);
+            if (expected == null) {
+                assertNull(actual, "TC01: the mesh was hit where the triangles weren't");
+                continue;
+            }
+            assertNotNull(actual, "TC01: the mesh wasn't hit where the triangles were");
+            assertEquals(expected.point, actual.point, "TC01: wrong closest point");
+            assertEquals(expected.geometry.getNormal(expected.point), actual.geometry.getNormal(actual.point),
+                    "TC01: wrong normal");
+            assertEquals(expected.t, actual.t, 1e-9, "TC01: wrong distance");
+            assertEquals(actual.geometry.getNormal(actual.point), mesh.getNormal(actual.point),
+                    "TC01: the mesh normal differs from the face normal");
+        }
+
+        // TC02: a point that isn't on the mesh has no normal
+        assertThrows(IllegalArgumentException.class, () -> mesh.getNormal(new Point(100, 100, 100)),
+                "TC02: a point out of the mesh has a normal");
+
+        // TC03: the number of intersections is the same as of the triangles
+        Ray ray = new Ray(new Point(-1, 3.3, 0.4), new Vector(1, 0.05, 0.01));
+        List<GeoPoint> expected = triangles.findGeoIntersections(ray);
+        List<GeoPoint> actual = mesh.findGeoIntersections(ray);
+        assertEquals(expected == null ? 0 : expected.size(), actual == null ? 0 : actual.size(),
+                "TC03: wrong number of intersections");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: the closest intersection is further than the maximal distance
+        Ray down = new Ray(new Point(5.3, 5.6, 10), new Vector(0, 0, -1));
+        assertNull(mesh.findClosestGeoIntersection(down, 5), "TC11: the intersection is too far");
+
+        // TC12: a record that holds a closer intersection isn't replaced
+        Intersectable.Hit hit = new Intersectable.Hit(down, Double.POSITIVE_INFINITY);
+        hit.update(new Sphere(new Point(0, 0, 0), 1), 1);
+        assertFalse(mesh.findClosestHit(down, hit), "TC12: a farther face replaced the closest intersection");
+    }
+
+    /**
+     * Test method for {@link geometries.TriangleMesh#setFaceMaterials(Material[], int[])}
+     * and {@link geometries.TriangleMesh#occlusion(Ray, double, double)}
+     */
+    @Test
+    public void testFaceMaterials() {
+        //two parallel faces above each other
+        TriangleMesh mesh = new TriangleMesh(
+                new double[]{0, 0, 0, 4, 0, 0, 0, 4, 0, 0, 0, 1, 4, 0, 1, 0, 4, 1},
+                new int[]{0, 1, 2, 3, 4, 5});
+        Material glass = new Material().setKt(0.5);
+        Material stone = new Material().setKd(0.5);
+        Ray down = new Ray(new Point(1, 1, 2), new Vector(0, 0, -1));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: without materials of the faces all the faces has the material of the mesh
+        mesh.setMaterial(glass);
+        assertEquals(glass, mesh.findClosestGeoIntersection(down).geometry.getMaterial(),
+                "TC01: the face should have the material of the mesh");
+        assertEquals(new Double3(0.25), mesh.occlusion(down, 10, 0.001), "TC01: wrong transparency");
+
+        // TC02: each face has its own material
+        mesh.setFaceMaterials(new Material[]{stone, glass}, new int[]{0, 1});
+        assertEquals(glass, mesh.findClosestGeoIntersection(down).geometry.getMaterial(),
+                "TC02: wrong material of the upper face");
+        assertEquals(stone, mesh.getFaceMaterial(0), "TC02: wrong material of the lower face");
+        assertEquals(Double3.ZERO, mesh.occlusion(down, 10, 0.001), "TC02: the opaque face should block the light");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: the opaque face is further than the light
+        assertEquals(new Double3(0.5), mesh.occlusion(down, 1.5, 0.001), "TC11: only the upper face is before the light");
+
+        // TC12: a material index of a missing material
+        assertThrows(IllegalArgumentException.class,
+                () -> mesh.setFaceMaterials(new Material[]{stone}, new int[]{0, 1}), "TC12: a missing material");
+    }
+}
@@ -82,6 +82,28 @@ class TriangleTest {
 
     }
 
+    /**
+     * Test method for{@link geometries.Triangle#intersectionDistance(Ray, double[])}
+     */
+    @Test
+    void intersectionDistance() {
+        Triangle tr = new Triangle(new Point(0, 0, 0), new Point(4, 0, 0), new Point(0, 4, 0));
+        double[] barycentric = new double[3];
+        //============ Equivalence Partitions Tests ==============//
+        //EP1: the distance and the weights of the vertices of an inner point
+        assertEquals(2, tr.intersectionDistance(new Ray(new Point(1, 2, 2), new Vector(0, 0, -1)), barycentric), 1e-10,
+                "Bad distance!");
+        assertArrayEquals(new double[]{0.25, 0.25, 0.5}, barycentric, 1e-10, "Bad barycentric coordinates!");
+        //EP2: the ray misses the triangle
+        assertEquals(0, tr.intersectionDistance(new Ray(new Point(3, 3, 2), new Vector(0, 0, -1)), null),
+                "There is no intersection!");
+
+        //============ Boundary Tests ==============//
+        //BVA1: the ray is parallel to the triangle
+        assertEquals(0, tr.intersectionDistance(new Ray(new Point(1, 1, 1), new Vector(1, 0, 0)), null),
+                "A parallel ray has no intersection!");
+    }
+
     @Test
     public void calcBoundaryTest(){
         Triangle triangle = new Triangle(new Point(0, 0, 1), new Point(1, 0, 0), new Point(0, 1, 0));;
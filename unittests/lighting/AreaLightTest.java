@@ -0,0 +1,52 @@
+package lighting;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import primitives.*;
+
+/**
+ * Testing AreaLight Class
+ */
+class AreaLightTest {
+
+    /**
+     * Test method for {@link lighting.AreaLight#getSample(int, int)}.
+     */
+    @Test
+    void testGetSample() {
+        // ============ Equivalence Partitions Tests ==============
+        // EP01: the samples of a rectangle are the centers of its squares
+        AreaLight rectangle = new RectangleLight(new Color(100, 100, 100), new Point(0, 0, 10),
+                new Vector(1, 0, 0), new Vector(0, 1, 0), 40, 20).setSampleResolution(4);
+        assertEquals(new Point(-15, -7.5, 10), rectangle.getSample(0, 0), "Wrong corner sample");
+        assertEquals(new Point(5, 2.5, 10), rectangle.getSample(2, 2), "Wrong inner sample");
+
+        // EP02: the samples of a disk are on its plane, and the samples of the boundary of the grid are on its
+        // outermost ring of samples, (1-1/5)*10 from the center
+        AreaLight disk = new DiskLight(new Color(100, 100, 100), new Point(0, 0, 10), new Vector(0, 0, -1), 10)
+                .setSampleResolution(5);
+        for (int i = 0; i < 5; i++)
+            for (int j = 0; j < 5; j++) {
+                Point sample = disk.getSample(i, j);
+                assertEquals(10, sample.getZ(), 1e-9, "A sample isn't on the plane of the disk");
+                double distance = sample.distance(new Point(0, 0, 10));
+                if (i == 0 || i == 4 || j == 0 || j == 4)
+                    assertEquals(8, distance, 1e-9, "A boundary sample isn't on the outer ring");
+                else
+                    assertTrue(distance < 8, "An inner sample is on the outer ring");
+            }
+
+        // =============== Boundary Values Tests ==================
+        // BV01: by default a light has 8x8 samples
+        assertEquals(8, new DiskLight(new Color(100, 100, 100), Point.ZERO, new Vector(0, 0, 1), 1)
+                .getSampleResolution(), "Wrong default resolution");
+
+        // BV02: a single sample is the center of the light
+        assertEquals(new Point(0, 0, 10), disk.setSampleResolution(1).getSample(0, 0), "Wrong single sample");
+
+        // BV03: axes that aren't orthogonal
+        assertThrows(IllegalArgumentException.class, () -> new RectangleLight(new Color(100, 100, 100), Point.ZERO,
+                new Vector(1, 0, 0), new Vector(1, 1, 0), 1, 1), "Axes that aren't orthogonal");
+    }
+}
@@ -0,0 +1,115 @@
+package lighting;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import primitives.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Testing LightIndex Class
+ */
+class LightIndexTest {
+
+    /**
+     * Test method for {@link lighting.PointLight#getRadius(double)}.
+     */
+    @Test
+    void testGetRadius() {
+        // ============ Equivalence Partitions Tests ==============
+        // EP01: quadratic attenuation- 100/(1+d^2) = 1 at d=sqrt(99)
+        PointLight light = new PointLight(new Color(100, 50, 20), Point.ZERO).setKq(1);
+        assertEquals(Math.sqrt(99), light.getRadius(1), 1e-9, "Wrong radius of quadratic attenuation");
+        assertEquals(1, light.getIntensity(new Point(Math.sqrt(99), 0, 0)).difference(Color.BLACK), 1e-9,
+                "The intensity at the radius isn't the threshold");
+
+        // EP02: linear attenuation- 100/(1+2d) = 1 at d=49.5
+        assertEquals(49.5, new PointLight(new Color(100, 50, 20), Point.ZERO).setKl(2).getRadius(1), 1e-9,
+                "Wrong radius of linear attenuation");
+
+        // =============== Boundary Values Tests ==================
+        // BV01: a light that isn't attenuated reaches every point
+        assertEquals(Double.POSITIVE_INFINITY, new PointLight(new Color(100, 50, 20), Point.ZERO).getRadius(1),
+                "A light without attenuation has a radius");
+
+        // BV02: a light weaker than the threshold reaches no point
+        assertEquals(0, light.getRadius(200), "A weak light has a radius");
+    }
+
+    /**
+     * collects the lights of an index that reach a point
+     *
+     * @param index the index
+     * @param p     the point
+     * @return the candidates of the point that reach it
+     */
+    private static List<LightSource> lightsAt(LightIndex index, Point p) {
+        List<LightSource> result = new ArrayList<>();
+        for (int i : index.candidatesAt(p))
+            if (index.reaches(i, p))
+                result.add(index.get(i));
+        return result;
+    }
+
+    /**
+     * Test method for {@link lighting.LightIndex#candidatesAt(Point)}.
+     */
+    @Test
+    void testCandidatesAt() {
+        // a row of 100 attenuated lights, 10 apart, each one reaches about 7 units
+        List<LightSource> lights = new ArrayList<>();
+        DirectionalLight sun = new DirectionalLight(new Color(10, 10, 10), new Vector(0, 0, -1));
+        lights.add(sun);
+        for (int i = 0; i < 100; i++)
+            lights.add(new PointLight(new Color(50, 50, 50), new Point(i * 10, 0, 0)).setKq(1));
+        LightIndex index = new LightIndex(lights, 1);
+
+        // ============ Equivalence Partitions Tests ==============
+        // EP01: a point near a light is reached only by it and by the directional light, in the order of the scene
+        assertEquals(List.of(sun, lights.get(31)), lightsAt(index, new Point(301, 1, 0)), "Wrong lights near a light");
+
+        // EP02: a point between two lights is reached by both of them
+        assertEquals(List.of(sun, lights.get(31), lights.get(32)), lightsAt(index, new Point(305, 0, 0)),
+                "Wrong lights between two lights");
+
+        // EP03: each light found by the index is stronger than the threshold, and each other one is weaker
+        Point p = new Point(555, 3, 2);
+        List<LightSource> found = lightsAt(index, p);
+        for (LightSource light : lights)
+            assertEquals(light.getIntensity(p).difference(Color.BLACK) >= 1, found.contains(light),
+                    "The index doesn't match the intensity of a light");
+
+        // EP04: the candidates of a point are the same array each time, nothing is allocated for a point
+        assertSame(index.candidatesAt(p), index.candidatesAt(new Point(556, 3, 2)), "The candidates are copied");
+
+        // =============== Boundary Values Tests ==================
+        // BV01: a point out of the grid is reached only by the directional light
+        assertEquals(List.of(sun), lightsAt(index, new Point(0, 500, 0)), "Wrong lights out of the grid");
+
+        // BV02: with no threshold every light reaches every point
+        assertEquals(lights, lightsAt(new LightIndex(lights, 0), new Point(0, 500, 0)), "A light is culled");
+    }
+
+    /**
+     * Test method for {@link lighting.LightIndex#isOf(List)}.
+     */
+    @Test
+    void testIsOf() {
+        List<LightSource> lights = new ArrayList<>();
+        lights.add(new PointLight(new Color(50, 50, 50), Point.ZERO).setKq(1));
+        LightIndex index = new LightIndex(lights, 1);
+
+        // ============ Equivalence Partitions Tests ==============
+        // EP01: the index is of the list it was built from
+        assertTrue(index.isOf(lights), "The index isn't of its own list");
+
+        // EP02: a list with the same lights isn't the list of the index
+        assertFalse(index.isOf(new ArrayList<>(lights)), "The index is of another list");
+
+        // EP03: a light that is added to the list makes the index old
+        lights.add(new PointLight(new Color(50, 50, 50), new Point(10, 0, 0)).setKq(1));
+        assertFalse(index.isOf(lights), "The index is of a list that was changed");
+    }
+}
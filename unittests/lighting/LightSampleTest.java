@@ -0,0 +1,42 @@
+package lighting;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import primitives.*;
+
+/**
+ * Testing LightSource#sample
+ */
+class LightSampleTest {
+
+    /**
+     * Test method for {@link lighting.LightSource#sample(Point)}.
+     */
+    @Test
+    void testSample() {
+        Point p = new Point(30, -20, -100);
+
+        // ============ Equivalence Partitions Tests ==============
+        // EP01: the sample of a point light is its direction, distance and intensity
+        LightSource point = new PointLight(new Color(500, 300, 100), new Point(10, 10, 10)).setKl(1E-3).setKq(1E-4);
+        LightSample sample = point.sample(p);
+        assertEquals(point.getL(p), sample.l, "Wrong direction");
+        assertEquals(point.getDistance(p), sample.distance, 1e-12, "Wrong distance");
+        assertEquals(point.getIntensity(p).toString(), sample.intensity.toString(), "Wrong intensity");
+
+        // EP02: a spot light in its cone is weakened by the angle
+        LightSource spot = new SpotLight(new Color(500, 300, 100), new Point(10, 10, 10), new Vector(1, -1, -3))
+                .setNarrowBeam(4).setKl(1E-3);
+        sample = spot.sample(p);
+        assertEquals(spot.getIntensity(p).toString(), sample.intensity.toString(), "Wrong intensity of a spot");
+
+        // EP03: a spot light doesn't reach a point behind it
+        assertNull(spot.sample(new Point(0, 0, 100)), "A spot light reaches a point behind it");
+
+        // EP04: a directional light is the same everywhere
+        LightSource sun = new DirectionalLight(new Color(100, 100, 100), new Vector(0, 0, -2));
+        assertSame(sun.sample(p), sun.sample(Point.ZERO), "The directional light isn't calculated once");
+        assertEquals(new Vector(0, 0, -1), sun.sample(p).l, "Wrong direction of a directional light");
+    }
+}
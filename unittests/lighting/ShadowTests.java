@@ -117,4 +117,30 @@ public class ShadowTests {
 		camera.writeToImage();
 	}
 
+	/**
+	 * Produce a picture of two triangles lighted by a rectangular area light with a Sphere
+	 * producing a soft shading
+	 */
+	@Test
+	public void trianglesSphereSoft() {
+		scene.setAmbientLight(new AmbientLight(new Color(java.awt.Color.WHITE), new Double3(0.15)));
+
+		scene.geometries.add( //
+				new Triangle(new Point(-150, -150, -115), new Point(150, -150, -135), new Point(75, 75, -150)) //
+						.setMaterial(new Material().setKs(0.8).setnShininess(60)), //
+				new Triangle(new Point(-150, -150, -115), new Point(-70, 70, -140), new Point(75, 75, -150)) //
+						.setMaterial(new Material().setKs(0.8).setnShininess(60)), //
+				new Sphere(new Point(0, 0, -11), 30d) //
+						.setEmission(new Color(java.awt.Color.BLUE)) //
+						.setMaterial(new Material().setKd(0.5).setKs(0.5).setnShininess(30)) //
+		);
+		scene.lights.add( //
+				new RectangleLight(new Color(700, 400, 400), new Point(40, 40, 115), new Vector(1, -1, 0),
+						new Vector(1, 1, 0.5), 40, 40) //
+						.setSampleResolution(8).setKl(4E-4).setKq(2E-5));
+
+		camera.setImageWriter(new ImageWriter("shadowTrianglesSphereSoft", 600, 600)) //
+				.renderImage();
+		camera.writeToImage();
+	}
 }
@@ -0,0 +1,49 @@
+package primitives;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for primitives.Vec3 class
+ */
+class Vec3Test {
+
+    /**
+     * Test method for{@link primitives.Vec3#addScaled(Point, double)} and {@link primitives.Vec3#subtract(Point)}
+     */
+    @Test
+    void addScaled() {
+        //============ Equivalence Partitions Tests ==============//
+        Point pnt = new Point(1, 2, 3);
+        Vector vec = new Vector(1, -1, 2);
+        //TC1: The same result as the immutable operations
+        assertEquals(pnt.add(vec.scale(2.5)), new Vec3().set(pnt).addScaled(vec, 2.5).toPoint(),
+                "TC1: addScaled differs from add and scale");
+        assertEquals(pnt.add(vec).subtract(pnt), new Vec3().set(pnt).add(vec).subtract(pnt).toVector(),
+                "TC1: add and subtract differ from the immutable operations");
+
+        //============ Boundary Partitions Tests ==============//
+        //TC2: The triple may become zero without an exception
+        Vec3 zero = new Vec3().set(pnt).subtract(pnt);
+        assertTrue(zero.isZero(), "TC2: the triple should be zero");
+    }
+
+    /**
+     * Test method for{@link primitives.Vec3#normalize()} and {@link primitives.Vec3#dotProduct(Point)}
+     */
+    @Test
+    void normalize() {
+        //============ Equivalence Partitions Tests ==============//
+        Vector vec = new Vector(1, 2, 3);
+        Vec3 triple = new Vec3().set(vec).normalize();
+        //TC1: The same result as the immutable normalization
+        assertEquals(vec.normalize(), triple.toVector(), "TC1: the normalized triple is wrong");
+        assertEquals(1, triple.lengthSquared(), 1e-10, "TC1: the normalized triple isn't a unit vector");
+        assertEquals(vec.dotProduct(vec.normalize()), triple.dotProduct(vec), 1e-10, "TC1: wrong dot product");
+
+        //TC2: A ray of a normalized triple has the same direction
+        Point head = new Point(0, 0, 1);
+        assertEquals(new Ray(head, vec), triple.toRay(head), "TC2: wrong ray");
+    }
+}
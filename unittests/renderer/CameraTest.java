@@ -55,4 +55,64 @@ class CameraTest {
 
     }
 
+    /**
+     * Test method for
+     * {@link renderer.Camera#setAntiAliasing(int, double)}.
+     */
+    @Test
+    void testAntiAliasing() {
+        //a tracer that sees white on the right half of the view (x > 0) and black on the left half
+        Color white = new Color(255, 255, 255);
+        RayTracerBase edge = new RayTracerBase(null) {
+            @Override
+            public Color traceRay(Ray ray) {
+                return ray.getDir().getX() > 0 ? white : Color.BLACK;
+            }
+        };
+        Color[][] pixels = new Color[8][8];
+        ImageWriter writer = new ImageWriter("antiAliasing", 8, 8) {
+            @Override
+            public void writePixel(int xIndex, int yIndex, Color color) {
+                pixels[yIndex][xIndex] = color;
+            }
+        };
+        Camera camera = new Camera(ZERO_POINT, new Vector(0, 0, -1), new Vector(0, 1, 0))
+                .setVPDistance(10).setVPSize(8, 8).setImageWriter(writer).setRayTracer(edge)
+                .setPrintInterval(0).setAntiAliasing(2, 10);
+
+        // ============ Equivalence Partitions Tests ==============
+        // EP01: only the pixels on the edge are subdivided and get a color between black and white
+        camera.renderImage();
+        for (int i = 0; i < 8; i++) {
+            for (int j = 0; j < 8; j++) {
+                java.awt.Color color = pixels[i][j].getColor();
+                if (j < 4) assertEquals(0, color.getRed(), "A pixel left to the edge isn't black");
+                else if (j > 4) assertEquals(255, color.getRed(), "A pixel right to the edge isn't white");
+                else assertTrue(color.getRed() > 0 && color.getRed() < 255, "The edge isn't smoothed");
+            }
+        }
+        //9x9 shared corners and 8x8 centers, and 8 rays for each pixel on the edge and for 2 of its quarters
+        assertEquals(81 + 64 + 8 * 24, camera.getProgress().getRaysTraced(), "Wrong number of rays");
+
+        // EP02: a line thinner than a pixel through the centers of a column is found, though it misses the corners
+        camera.setRayTracer(new RayTracerBase(null) {
+            @Override
+            public Color traceRay(Ray ray) {
+                //the position of the ray on the view plane, 10 away from the camera
+                double x = ray.getDir().getX() * 10 / -ray.getDir().getZ();
+                return Math.abs(x - 0.5) < 0.1 ? white : Color.BLACK;
+            }
+        }).renderImage();
+        for (int i = 0; i < 8; i++) {
+            for (int j = 0; j < 8; j++) {
+                int red = pixels[i][j].getColor().getRed();
+                if (j != 4) assertEquals(0, red, "A pixel out of the line isn't black");
+                else assertTrue(red > 0 && red < 255, "The line is lost");
+            }
+        }
+
+        // =============== Boundary Values Tests ==================
+        // BV01: negative depth
+        assertThrows(IllegalArgumentException.class, () -> camera.setAntiAliasing(-1, 10), "Negative depth");
+    }
 }
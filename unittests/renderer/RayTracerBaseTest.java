@@ -0,0 +1,174 @@
+package renderer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import geometries.Geometries;
+import geometries.Plane;
+import geometries.Sphere;
+import lighting.AreaLight;
+import lighting.PointLight;
+import lighting.RectangleLight;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+import scene.Scene;
+
+/**
+ * Testing RayTracerBase Class
+ */
+class RayTracerBaseTest {
+
+    /**
+     * Test method for {@link renderer.RayTracerBase#setRussianRoulette(int)}.
+     */
+    @Test
+    void testRussianRoulette() {
+        RayTracerBase tracer = new RayTracerBasic(null).setRussianRoulette(2);
+        Double3 weak = new Double3(0.2, 0.1, 0.05);
+
+        // =============== Boundary Values Tests ==================
+        // BV01: all the paths go on before the roulette depth, and the strong paths after it
+        assertEquals(1, tracer.rouletteSurvival(1, weak), "A path is terminated before the roulette depth");
+        assertEquals(1, tracer.rouletteSurvival(5, Double3.ONE), "A path without attenuation is terminated");
+
+        // ============ Equivalence Partitions Tests ==============
+        // EP01: a weak path survives by its attenuation, and on average its reweighted color is kept
+        int trials = 200000, survived = 0;
+        double weight = 0;
+        for (int i = 0; i < trials; i++) {
+            double survival = tracer.rouletteSurvival(2, weak);
+            if (survival != 0) {
+                assertEquals(0.2, survival, 1e-12, "Wrong survival probability");
+                survived++;
+                weight += 1 / survival;
+            }
+        }
+        assertEquals(0.2, (double) survived / trials, 0.01, "Wrong survival rate");
+        assertEquals(1, weight / trials, 0.05, "The roulette darkens the image");
+
+        // EP02: the same seed repeats the same decisions, so a tile is rendered the same by any thread
+        tracer.seedRandom(1234);
+        double[] first = new double[100];
+        for (int i = 0; i < first.length; i++)
+            first[i] = tracer.rouletteSurvival(2, weak);
+        tracer.seedRandom(1234);
+        for (int i = 0; i < first.length; i++)
+            assertEquals(first[i], tracer.rouletteSurvival(2, weak), "The roulette isn't reproducible");
+
+        // BV02: negative depth
+        assertThrows(IllegalArgumentException.class, () -> tracer.setRussianRoulette(-1), "Negative depth");
+    }
+
+    /**
+     * Test method for {@link renderer.RayTracerBase#setShadowCache(boolean)}.
+     */
+    @Test
+    void testShadowCache() {
+        Scene scene = new Scene("shadow cache");
+        scene.geometries.add(new Plane(new Point(0, 0, -100), new Vector(0, 0, 1))
+                        .setMaterial(new Material().setKd(0.5)),
+                new Sphere(new Point(0, 0, -50), 20).setMaterial(new Material().setKd(0.5)));
+        scene.lights.add(new PointLight(new Color(500, 500, 500), new Point(0, 0, 0)));
+        Ray[] rays = new Ray[20];
+        for (int i = 0; i < rays.length; i++)
+            rays[i] = new Ray(new Point(100, 0, 0), new Point(i - 10, i % 3, -100).subtract(new Point(100, 0, 0)));
+
+        // ============ Equivalence Partitions Tests ==============
+        // EP01: the points in the shadow of the same sphere are answered by the cache, and the colors don't change
+        RayTracerBase cached = new RayTracerBasic(scene);
+        RayTracerBase uncached = new RayTracerBasic(scene).setShadowCache(false);
+        for (Ray ray : rays)
+            assertEquals(uncached.traceRay(ray).toString(), cached.traceRay(ray).toString(), "The cache changes the color");
+        assertEquals(1, cached.getShadowCacheMisses(), "Only the first shadow query needs the whole scene");
+        assertEquals(rays.length - 1, cached.getShadowCacheHits(), "Wrong number of cache hits");
+        assertEquals(0, uncached.getShadowCacheHits() + uncached.getShadowCacheMisses(), "The disabled cache is used");
+
+        // EP02: a transparent sphere doesn't block the light by itself, so it's never cached
+        scene.geometries = new Geometries(new Plane(new Point(0, 0, -100), new Vector(0, 0, 1))
+                .setMaterial(new Material().setKd(0.5)),
+                new Sphere(new Point(0, 0, -50), 20).setMaterial(new Material().setKd(0.5).setKt(0.5)));
+        RayTracerBase transparent = new RayTracerBasic(scene);
+        for (Ray ray : rays)
+            transparent.traceRay(ray);
+        assertEquals(0, transparent.getShadowCacheHits(), "A transparent occluder is cached");
+    }
+
+    /**
+     * counts the lights of a tracer that reach a point
+     *
+     * @param tracer the tracer
+     * @param p      the point
+     * @return the number of the candidates of the point that reach it
+     */
+    private static int lightsAt(RayTracerBase tracer, Point p) {
+        int count = 0;
+        for (int i : tracer.lightIndex().candidatesAt(p))
+            if (tracer.lightIndex().reaches(i, p))
+                count++;
+        return count;
+    }
+
+    /**
+     * Test method for {@link renderer.RayTracerBase#setLightThreshold(double)}.
+     */
+    @Test
+    void testLightThreshold() {
+        Scene scene = new Scene("light threshold");
+        scene.geometries.add(new Plane(new Point(0, 0, -100), new Vector(0, 0, 1))
+                .setMaterial(new Material().setKd(0.5)));
+        scene.lights.add(new PointLight(new Color(500, 500, 500), new Point(0, 0, -90)).setKq(0.1));
+        scene.lights.add(new PointLight(new Color(500, 500, 500), new Point(1000, 0, -90)).setKq(0.1));
+        RayTracerBase tracer = new RayTracerBasic(scene).setLightThreshold(1);
+        Ray ray = new Ray(Point.ZERO, new Vector(0, 0, -1));
+
+        // ============ Equivalence Partitions Tests ==============
+        // EP01: the far light is culled- it changes the color by less than the threshold
+        Point p = new Point(0, 0, -100);
+        assertEquals(1, lightsAt(tracer, p), "The far light isn't culled");
+        assertEquals(0, new RayTracerBasic(scene).traceRay(ray).difference(tracer.traceRay(ray)), 1,
+                "The culling changes the color by more than the threshold");
+
+        // EP02: a light that is added to the scene later is indexed too
+        scene.lights.add(new PointLight(new Color(500, 500, 500), new Point(0, 10, -90)).setKq(0.1));
+        assertEquals(2, lightsAt(tracer, p), "The new light isn't indexed");
+
+        // EP03: a new list of lights of the same size is indexed- the near light is replaced by the far one
+        scene.setLights(new java.util.ArrayList<>(scene.lights.subList(1, 3)));
+        scene.lights.add(new PointLight(new Color(500, 500, 500), new Point(2000, 0, -90)).setKq(0.1));
+        assertEquals(1, lightsAt(tracer, p), "The new list isn't indexed");
+
+        // EP04: a light that is replaced in place is indexed after the index is invalidated
+        scene.lights.set(0, new PointLight(new Color(500, 500, 500), new Point(0, 0, -90)).setKq(0.1));
+        assertEquals(2, lightsAt(tracer.invalidateLights(), p), "The replaced light isn't indexed");
+
+        // =============== Boundary Values Tests ==================
+        // BV01: negative threshold
+        assertThrows(IllegalArgumentException.class, () -> tracer.setLightThreshold(-1), "Negative threshold");
+    }
+
+    /**
+     * Test method for {@link renderer.RayTracerBase#softShadow(AreaLight, java.util.function.Function)}.
+     */
+    @Test
+    void testSoftShadow() {
+        RayTracerBase tracer = new RayTracerBasic(null);
+        AreaLight light = new RectangleLight(new Color(100, 100, 100), Point.ZERO,
+                new Vector(1, 0, 0), new Vector(0, 1, 0), 8, 8).setSampleResolution(8);
+        int[] rays = {0};
+
+        // ============ Equivalence Partitions Tests ==============
+        // EP01: a fully lit point tests only the boundary of the grid
+        assertEquals(Double3.ONE, tracer.softShadow(light, sample -> {
+            rays[0]++;
+            return Double3.ONE;
+        }), "Wrong transparency of a lit point");
+        assertEquals(28, rays[0], "A lit point tests the inner samples");
+
+        // EP02: a point in the penumbra tests the whole grid- half of the light is blocked
+        rays[0] = 0;
+        assertEquals(new Double3(0.5), tracer.softShadow(light, sample -> {
+            rays[0]++;
+            return sample.getX() < 0 ? Double3.ZERO : Double3.ONE;
+        }), "Wrong transparency of the penumbra");
+        assertEquals(64, rays[0], "Wrong number of rays in the penumbra");
+    }
+}
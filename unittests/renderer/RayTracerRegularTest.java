@@ -0,0 +1,83 @@
+package renderer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import geometries.Intersectable;
+import geometries.Sphere;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+import scene.Scene;
+import scene.VoxelGrid;
+
+/**
+ * Testing RayTracerRegular Class
+ */
+class RayTracerRegularTest {
+
+    /**
+     * Test method for {@link renderer.RayTracerRegular#traceRay(Ray)}.
+     */
+    @Test
+    void testMailbox() {
+        //a large sphere that spreads over many voxels, it counts the rays it's tested against and is never hit,
+        //so the traversal passes through all the voxels of the ray
+        int[] tests = {0};
+        Sphere spy = new Sphere(new Point(50, 50, 50), 50) {
+            @Override
+            public boolean findClosestHit(Ray ray, Intersectable.Hit hit) {
+                tests[0]++;
+                return false;
+            }
+        };
+        Scene scene = new Scene("mailbox").setResolution(4);
+        //the small spheres in two corners of the scene are away from the rays
+        scene.geometries.add(spy, new Sphere(new Point(5, 95, 5), 1), new Sphere(new Point(95, 5, 95), 1));
+        RayTracerRegular tracer = new RayTracerRegular(scene);
+
+        //the voxels of the diagonal of the grid that the ray passes through
+        VoxelGrid grid = scene.voxels;
+        int voxels = 0;
+        for (int i = 0; i < 4; i++) {
+            int cell = grid.cell(i, i, i);
+            for (int j = grid.start(cell); j < grid.end(cell); j++)
+                if (grid.get(j) == spy) voxels++;
+        }
+        assertEquals(4, voxels, "The sphere isn't in all the voxels of the ray");
+
+        // ============ Equivalence Partitions Tests ==============
+        // EP01: an entity that spans several voxels of a ray is tested once
+        tracer.traceRay(new Ray(new Point(-10, -10, -10), new Vector(1, 1, 1)));
+        assertEquals(1, tests[0], "The entity is tested in each voxel");
+
+        // EP02: the next ray tests it again
+        tracer.traceRay(new Ray(new Point(-10, -10, -10), new Vector(1, 1, 1.1)));
+        assertEquals(2, tests[0], "The entity isn't tested by the next ray");
+    }
+
+    /**
+     * Test method for {@link renderer.RayTracerRegular.Mailbox#newRay(int)}.
+     */
+    @Test
+    void testMailboxWraparound() {
+        RayTracerRegular.Mailbox mailbox = new RayTracerRegular.Mailbox().newRay(2);
+
+        // ============ Equivalence Partitions Tests ==============
+        // EP01: an entity is visited once by a ray, and again by the next ray
+        assertTrue(mailbox.firstVisit(1), "The first visit isn't found");
+        assertFalse(mailbox.firstVisit(1), "The second visit isn't found");
+        assertTrue(mailbox.newRay(2).firstVisit(1), "The entity was visited by the next ray");
+
+        // EP02: the stamps grow with the number of entities
+        assertTrue(mailbox.newRay(5).firstVisit(4), "The new entity isn't visited");
+
+        // =============== Boundary Values Tests ==================
+        // BV01: after the last id the stamps are cleared, so an old stamp of the first id doesn't hide an entity
+        //the first id stamps the entity, and the ids run up to the last one (-1) before they wrap around
+        mailbox.rayId = 0;
+        mailbox.newRay(5).firstVisit(3);
+        mailbox.rayId = -1;
+        mailbox.newRay(5);
+        assertEquals(1, mailbox.rayId, "The ids don't start over");
+        assertTrue(mailbox.firstVisit(3), "An old stamp hides the entity after the ids start over");
+    }
+}
@@ -0,0 +1,77 @@
+package renderer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import geometries.Sphere;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+import scene.Scene;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Testing RenderProgress Class
+ */
+class RenderProgressTest {
+
+    /**
+     * Test method for {@link renderer.RenderProgress#done(long, long)}.
+     */
+    @Test
+    void testDone() {
+        AtomicInteger calls = new AtomicInteger();
+        RenderProgress progress = new RenderProgress(1000, p -> calls.incrementAndGet());
+
+        // =============== Boundary Values Tests ==================
+        // BV01: nothing is done yet
+        assertEquals(0, progress.getPercent(), "Wrong percentage");
+        assertNull(progress.getEta(), "There is no estimation before a pixel is done");
+        assertFalse(progress.isDone(), "The rendering isn't done");
+
+        // ============ Equivalence Partitions Tests ==============
+        // EP01: parts of the image are done concurrently
+        IntStream.range(0, 50).parallel().forEach(i -> progress.done(10, 20));
+        assertEquals(500, progress.getPixelsDone(), "Wrong number of pixels");
+        assertEquals(1000, progress.getRaysTraced(), "Wrong number of rays");
+        assertEquals(50, progress.getPercent(), "Wrong percentage");
+        assertEquals(50, calls.get(), "The listener isn't called for each part");
+        assertNotNull(progress.getEta(), "No estimation of the remaining time");
+
+        // BV02: all the image is done
+        progress.done(500, 500);
+        assertTrue(progress.isDone(), "The rendering is done");
+        assertEquals(Duration.ZERO, progress.getEta(), "No remaining time when done");
+    }
+
+    /**
+     * Test method for {@link renderer.Camera#setProgressListener(RenderProgress.Listener)}.
+     */
+    @Test
+    void testCameraProgress() {
+        Scene scene = new Scene("progress");
+        scene.geometries.add(new Sphere(new Point(0, 0, -100), 50));
+
+        // ============ Equivalence Partitions Tests ==============
+        // EP01: two cameras render at once, each one has its own progress
+        Camera[] cameras = new Camera[2];
+        AtomicInteger[] calls = {new AtomicInteger(), new AtomicInteger()};
+        for (int c = 0; c < 2; c++) {
+            AtomicInteger count = calls[c];
+            cameras[c] = new Camera(Point.ZERO, new Vector(0, 0, -1), new Vector(0, 1, 0))
+                    .setVPDistance(100).setVPSize(200, 200).setTileSize(10).setParallelism(2)
+                    .setImageWriter(new ImageWriter("progress" + c, 40, 30))
+                    .setRayTracer(new RayTracerBasic(scene))
+                    .setProgressListener(p -> count.incrementAndGet());
+        }
+        IntStream.range(0, 2).parallel().forEach(c -> cameras[c].renderImage());
+        for (int c = 0; c < 2; c++) {
+            RenderProgress progress = cameras[c].getProgress();
+            assertTrue(progress.isDone(), "The rendering isn't done");
+            assertEquals(1200, progress.getPixelsDone(), "Wrong number of pixels");
+            assertEquals(1200, progress.getRaysTraced(), "Wrong number of rays");
+            assertEquals(12, calls[c].get(), "The listener isn't called for each tile");
+        }
+    }
+}
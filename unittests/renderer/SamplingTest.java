@@ -0,0 +1,141 @@
+package renderer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import geometries.Plane;
+import geometries.Sphere;
+import lighting.PointLight;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+import scene.Scene;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Testing Sampling Class
+ */
+class SamplingTest {
+    private final Ray ray = new Ray(new Point(0, 0, 0), new Vector(0, 0, -1));
+    private final Vector normal = new Vector(0, 0, -1);
+
+    /**
+     * restores the default sampling after each test
+     */
+    @AfterEach
+    void restore() {
+        Sampling.setTargetAreaResolution(1);
+    }
+
+    /**
+     * Test method for {@link renderer.Sampling#sample(Ray, double, Vector, int, double, Function)}.
+     */
+    @Test
+    void testAdaptiveSample() {
+        Sampling.setTargetAreaResolution(9);
+        AtomicInteger count = new AtomicInteger();
+        Color white = new Color(255, 255, 255);
+        //white on one half of the target area, black on the other
+        Function<Ray, Color> edge = r -> {
+            count.incrementAndGet();
+            return r.getDir().getX() > 0.01 ? white : Color.BLACK;
+        };
+
+        // ============ Equivalence Partitions Tests ==============
+        // EP01: a flat area is sampled only at the corners of the grid
+        assertEquals(white.toString(), Sampling.sample(ray, 1, normal, 9, 10, r -> {
+            count.incrementAndGet();
+            return white;
+        }).toString(), "Wrong color of a flat area");
+        assertEquals(4, count.get(), "A flat area is sampled more than its corners");
+
+        // EP02: an edge is about the same as the uniform grid, with fewer samples
+        count.set(0);
+        Color uniform = Sampling.sample(ray, 1, normal, edge);
+        assertEquals(81, count.get(), "The uniform grid isn't sampled fully");
+        count.set(0);
+        Color adaptive = Sampling.sample(ray, 1, normal, 9, 10, edge);
+        assertTrue(count.get() < 81, "The adaptive sampling doesn't save samples");
+        assertEquals(uniform.getColor().getRed(), adaptive.getColor().getRed(), 255 / 9d,
+                "The adaptive sampling is too far from the uniform grid");
+    }
+
+    /**
+     * Test method for {@link renderer.RayTracerBase#setAdaptiveSampling(boolean, double)}.
+     */
+    @Test
+    void testAdaptiveRender() {
+        Sampling.setTargetAreaResolution(9);
+        //a glossy floor that blurs the reflections of two spheres
+        Scene scene = new Scene("adaptive sampling");
+        scene.geometries.add(new Plane(new Point(0, -50, 0), new Vector(0, 1, 0))
+                        .setMaterial(new Material().setKd(0.2).setKr(0.7).setKsG(3)),
+                new Sphere(new Point(-30, -20, -100), 30)
+                        .setMaterial(new Material().setKd(new Double3(0.8, 0.1, 0.1)).setKs(0.3).setnShininess(30)),
+                new Sphere(new Point(40, -30, -120), 20)
+                        .setMaterial(new Material().setKd(new Double3(0.1, 0.1, 0.8)).setKs(0.3).setnShininess(30)));
+        scene.lights.add(new PointLight(new Color(500, 500, 500), new Point(0, 100, 0)).setKl(0.001));
+        RayTracerBase uniform = new RayTracerBasic(scene);
+        RayTracerBase adaptive = new RayTracerBasic(scene).setAdaptiveSampling(true, 10);
+        Point eye = new Point(0, 0, 100);
+
+        // ============ Equivalence Partitions Tests ==============
+        // EP01: an image of reflections is visually the same as with the full 9x9 grid
+        double sum = 0, max = 0;
+        int pixels = 0;
+        for (int i = -20; i < 20; i++) {
+            for (int j = -20; j < 20; j++) {
+                Ray pixel = new Ray(eye, new Point(j * 4, -50 + i * 2, -100).subtract(eye));
+                double difference = uniform.traceRay(pixel).difference(adaptive.traceRay(pixel));
+                sum += difference;
+                max = Math.max(max, difference);
+                pixels++;
+            }
+        }
+        assertTrue(sum / pixels < 1, "The adaptive image differs from the full grid on average");
+        assertTrue(max < 255 / 9d, "A pixel of the adaptive image differs from the full grid");
+
+        // =============== Boundary Values Tests ==================
+        // BV01: negative threshold
+        assertThrows(IllegalArgumentException.class, () -> adaptive.setAdaptiveSampling(true, -1),
+                "Negative threshold");
+    }
+
+    /**
+     * Test method for {@link renderer.RayTracerBase#setSampleBudget(double, int, boolean)}.
+     */
+    @Test
+    void testSampleBudget() {
+        Sampling.setTargetAreaResolution(9);
+        RayTracerBase tracer = new RayTracerBasic(null);
+
+        // =============== Boundary Values Tests ==================
+        // BV01: by default the full grid is sampled in all the levels
+        assertEquals(9, tracer.sampleResolution(0, Double3.ONE), "Wrong resolution");
+        assertEquals(9, tracer.sampleResolution(9, new Double3(0.01)), "Wrong resolution");
+
+        // ============ Equivalence Partitions Tests ==============
+        // EP01: the grid shrinks with the depth, and a single ray is traced from the single sample depth
+        tracer.setSampleBudget(0.5, 3, false);
+        assertEquals(9, tracer.sampleResolution(0, Double3.ONE), "Wrong resolution of the first hit");
+        assertEquals(5, tracer.sampleResolution(1, Double3.ONE), "Wrong resolution of the second hit");
+        assertEquals(3, tracer.sampleResolution(2, Double3.ONE), "Wrong resolution of the third hit");
+        assertEquals(1, tracer.sampleResolution(3, Double3.ONE), "Wrong resolution of the deep hits");
+
+        // EP02: the number of rays is proportional to the attenuation
+        tracer.setSampleBudget(1, 10, true);
+        assertEquals(5, tracer.sampleResolution(0, new Double3(0.25, 0.1, 0)), "Wrong resolution of attenuated rays");
+
+        // EP03: a smaller grid samples fewer rays
+        AtomicInteger count = new AtomicInteger();
+        Sampling.sample(ray, 1, normal, 3, r -> {
+            count.incrementAndGet();
+            return Color.BLACK;
+        });
+        assertEquals(9, count.get(), "Wrong number of samples");
+
+        // BV02: a decay out of range
+        assertThrows(IllegalArgumentException.class, () -> tracer.setSampleBudget(0, 3, false), "Decay of 0");
+    }
+}
@@ -0,0 +1,57 @@
+package renderer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Testing TileScheduler Class
+ */
+class TileSchedulerTest {
+
+    /**
+     * Test method for {@link renderer.TileScheduler#spiral(int, int)}.
+     */
+    @Test
+    void testSpiral() {
+        // ============ Equivalence Partitions Tests ==============
+        // EP01: 5X3 tiles- starts at the center and visits each tile once
+        List<int[]> order = TileScheduler.spiral(5, 3);
+        assertEquals(15, order.size(), "Wrong number of tiles");
+        assertArrayEquals(new int[]{2, 1}, order.get(0), "The spiral doesn't start at the center");
+        boolean[][] visited = new boolean[5][3];
+        for (int[] tile : order) {
+            assertFalse(visited[tile[0]][tile[1]], "A tile is visited twice");
+            visited[tile[0]][tile[1]] = true;
+        }
+
+        // =============== Boundary Values Tests ==================
+        // BV01: a single tile
+        assertEquals(1, TileScheduler.spiral(1, 1).size(), "Wrong number of tiles");
+    }
+
+    /**
+     * Test method for {@link renderer.TileScheduler#render(int, TileScheduler.TileRenderer)}.
+     */
+    @Test
+    void testRender() {
+        // ============ Equivalence Partitions Tests ==============
+        // EP01: 100X70 pixels in tiles of 32- each pixel is rendered exactly once, the edge tiles are smaller
+        int nX = 100, nY = 70;
+        AtomicIntegerArray counts = new AtomicIntegerArray(nX * nY);
+        new TileScheduler(nX, nY, 32).render(4, (column, row, columns, rows) -> {
+            for (int i = row; i < row + rows; i++)
+                for (int j = column; j < column + columns; j++)
+                    counts.incrementAndGet(i * nX + j);
+        });
+        for (int p = 0; p < nX * nY; p++)
+            assertEquals(1, counts.get(p), "A pixel isn't rendered exactly once");
+
+        // =============== Boundary Values Tests ==================
+        // BV01: a tile size that isn't positive
+        assertThrows(IllegalArgumentException.class, () -> new TileScheduler(nX, nY, 0), "Tile size of 0");
+    }
+}
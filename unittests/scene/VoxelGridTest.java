@@ -0,0 +1,106 @@
+package scene;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import geometries.Geometries;
+import geometries.Polygon;
+import geometries.Sphere;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+
+/**
+ * Testing VoxelGrid Class
+ */
+class VoxelGridTest {
+
+    /**
+     * Test method for {@link scene.VoxelGrid#chooseResolutions(double[], int, int)}.
+     */
+    @Test
+    void testChooseResolutions() {
+        // ============ Equivalence Partitions Tests ==============
+        // EP01: a cube with 9 entities is divided to about 3 cube voxels per entity- cubes of edge 10
+        assertArrayEquals(new int[]{3, 3, 3}, VoxelGrid.chooseResolutions(new double[]{30, 30, 30}, 9, 128),
+                "Wrong resolutions of a cube");
+
+        // EP02: the voxels stay cubes, so a longer axis gets more of them
+        assertArrayEquals(new int[]{6, 3, 3}, VoxelGrid.chooseResolutions(new double[]{60, 30, 30}, 18, 128),
+                "The resolutions don't follow the extent");
+
+        // EP03: more entities in the same box get more voxels- 8 times the entities halve the edge of a voxel
+        assertArrayEquals(new int[]{6, 6, 6}, VoxelGrid.chooseResolutions(new double[]{30, 30, 30}, 72, 128),
+                "The resolutions don't follow the number of entities");
+
+        // =============== Boundary Values Tests ==================
+        // BV01: the resolution of each axis is clamped to the maximum
+        assertArrayEquals(new int[]{16, 16, 16},
+                VoxelGrid.chooseResolutions(new double[]{30, 30, 30}, 1000000, 16), "The maximum isn't kept");
+        assertArrayEquals(new int[]{128, 1, 1},
+                VoxelGrid.chooseResolutions(new double[]{100000, 2, 2}, 2, 128), "The maximum of a long axis isn't kept");
+
+        // BV02: a flat axis gets a single voxel, and the voxels are squares on the other axes
+        assertArrayEquals(new int[]{3, 3, 1}, VoxelGrid.chooseResolutions(new double[]{30, 30, 0}, 3, 128),
+                "Wrong resolutions of a flat box");
+
+        // BV03: a box that is flat on all the axes is a single voxel
+        assertArrayEquals(new int[]{1, 1, 1}, VoxelGrid.chooseResolutions(new double[]{0, 0, 0}, 5, 128),
+                "Wrong resolutions of a point");
+
+        // BV04: a box without entities is divided as if it had one
+        assertArrayEquals(VoxelGrid.chooseResolutions(new double[]{30, 30, 30}, 1, 128),
+                VoxelGrid.chooseResolutions(new double[]{30, 30, 30}, 0, 128), "Wrong resolutions of an empty box");
+    }
+
+    /**
+     * Test method for {@link scene.Scene#getResolutions()}.
+     */
+    @Test
+    void testGetResolutions() {
+        // ============ Equivalence Partitions Tests ==============
+        // EP01: the resolutions of the scene are chosen by its extent and its number of entities
+        Scene scene = new Scene("resolutions");
+        for (int i = 0; i < 3; i++)
+            for (int j = 0; j < 3; j++)
+                scene.geometries.add(new Sphere(new Point(i * 20 + 5, j * 20 + 5, 5), 5));
+        assertNull(scene.getResolutions(), "There are resolutions before the voxels were calculated");
+        scene.calcVoxels();
+        //a box of 60x60x10 with 9 entities
+        assertArrayEquals(VoxelGrid.chooseResolutions(new double[]{60, 60, 10}, 9, 128), scene.getResolutions(),
+                "Wrong resolutions of the scene");
+        assertArrayEquals(scene.getResolutions(), scene.voxels.getResolutions(), "The grid has other resolutions");
+
+        // EP02: a resolution that was set explicitly is used on all the axes
+        scene.setResolution(4).calcVoxels();
+        assertArrayEquals(new int[]{4, 4, 4}, scene.getResolutions(), "The explicit resolution isn't used");
+
+        // EP03: the entities of nested groups are counted one by one, as the same entities in a flat scene
+        Scene nestedScene = new Scene("nested groups");
+        for (int i = 0; i < 3; i++) {
+            Geometries row = new Geometries();
+            for (int j = 0; j < 3; j++)
+                row.add(new Sphere(new Point(i * 20 + 5, j * 20 + 5, 5), 5));
+            nestedScene.geometries.add(new Geometries(row));
+        }
+        nestedScene.calcVoxels();
+        assertArrayEquals(VoxelGrid.chooseResolutions(new double[]{60, 60, 10}, 9, 128),
+                nestedScene.getResolutions(), "The nested entities aren't counted");
+
+        // =============== Boundary Values Tests ==================
+        // BV01: a long scene is clamped to the maximal resolution on its long axis
+        Scene longScene = new Scene("long scene");
+        longScene.geometries.add(new Sphere(new Point(0, 0, 0), 1), new Sphere(new Point(100000, 0, 0), 1));
+        longScene.calcVoxels();
+        assertArrayEquals(new int[]{128, 1, 1}, longScene.getResolutions(), "The maximal resolution isn't kept");
+
+        // BV02: a flat scene has a single voxel on its flat axis
+        Scene flatScene = new Scene("flat scene");
+        for (int i = 0; i < 4; i++)
+            flatScene.geometries.add(new Polygon(new Point(i * 10, 0, 0), new Point(i * 10 + 10, 0, 0),
+                    new Point(i * 10 + 10, 40, 0), new Point(i * 10, 40, 0)));
+        flatScene.calcVoxels();
+        int[] resolutions = flatScene.getResolutions();
+        assertEquals(1, resolutions[2], "A flat axis is divided");
+        assertArrayEquals(VoxelGrid.chooseResolutions(new double[]{40, 40, 0}, 4, 128), resolutions,
+                "Wrong resolutions of a flat scene");
+    }
+}